@@ -0,0 +1,18 @@
+-- oss_objects 引用计数改为引用该对象的附件数，上传本身不再计入
+-- 新增 uploader_id（最近一次上传该内容的用户）、pending_uploads（尚未丢弃的上传次数）
+-- 和 last_used_time（无引用对象的保留期起点）
+
+-- 1. 添加字段
+ALTER TABLE oss_objects ADD COLUMN uploader_id BIGINT DEFAULT NULL COMMENT '最近一次上传该内容的用户ID';
+ALTER TABLE oss_objects ADD COLUMN pending_uploads INT NOT NULL DEFAULT 0 COMMENT '尚未丢弃的上传次数，大于1时丢弃不删除对象';
+ALTER TABLE oss_objects ADD COLUMN last_used_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '最近一次上传命中或释放引用的时间';
+
+-- 2. 按附件表重新计算引用计数（附件 URL = url-prefix + object_name）
+UPDATE oss_objects o
+SET o.ref_count = (SELECT COUNT(*) FROM attachments a WHERE a.url LIKE CONCAT('%/', o.object_name));
+
+-- 3. 回收任务按 ref_count + last_used_time 查找
+ALTER TABLE oss_objects ADD INDEX idx_ref_count_last_used (ref_count, last_used_time);
+
+-- 验证
+SELECT object_name, ref_count, uploader_id, pending_uploads, last_used_time FROM oss_objects LIMIT 5;
@@ -0,0 +1,16 @@
+-- 创建 oss_delete_outbox 表
+-- 删除附件时在同一事务中写入待删除的 OSS 对象，由后台任务批量删除并按指数退避重试
+
+CREATE TABLE IF NOT EXISTS `oss_delete_outbox` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `object_name` VARCHAR(255) NOT NULL COMMENT '待删除的OSS对象名称',
+  `attempts` INT NOT NULL DEFAULT 0 COMMENT '已尝试次数',
+  `next_attempt_time` DATETIME NOT NULL COMMENT '下次尝试时间',
+  `last_error` VARCHAR(500) DEFAULT NULL COMMENT '最近一次失败原因',
+  `create_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_next_attempt_time` (`next_attempt_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='OSS删除发件箱';
+
+-- 查看积压情况
+SELECT COUNT(*) AS backlog, SUM(attempts > 0) AS retrying FROM oss_delete_outbox;
@@ -0,0 +1,18 @@
+-- 创建 oss_objects 表
+-- 按文件内容哈希登记已上传的 OSS 对象，相同内容的图片只存储一份，按引用计数回收
+-- 历史上传的对象不在表中，删除时按原逻辑直接删除
+
+CREATE TABLE IF NOT EXISTS `oss_objects` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `content_hash` VARCHAR(64) NOT NULL COMMENT '文件内容SHA-256',
+  `object_name` VARCHAR(255) NOT NULL COMMENT 'OSS对象名称',
+  `size` BIGINT NOT NULL COMMENT '文件大小（字节）',
+  `ref_count` INT NOT NULL COMMENT '引用计数',
+  `create_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_content_hash` (`content_hash`),
+  UNIQUE KEY `uk_object_name` (`object_name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='OSS对象索引表';
+
+-- 验证
+DESC oss_objects;
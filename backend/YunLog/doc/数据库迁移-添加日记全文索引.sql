@@ -0,0 +1,19 @@
+-- 为 diaries.content 添加全文索引
+-- 使用 MySQL 内置 ngram 分词器支持中文检索，替代 LIKE %keyword% 全表扫描
+-- 要求 MySQL 5.7.6+，ngram_token_size 使用默认值 2
+
+-- 1. 确认分词长度（默认 2，单字检索由应用层回退到 LIKE）
+SHOW VARIABLES LIKE 'ngram_token_size';
+
+-- 2. 添加全文索引（InnoDB 会在 INSERT/UPDATE/DELETE 时自动增量维护）
+ALTER TABLE diaries ADD FULLTEXT INDEX ft_diaries_content (content) WITH PARSER ngram;
+
+-- 3. 验证
+SHOW INDEX FROM diaries WHERE Key_name = 'ft_diaries_content';
+
+-- 4. 检索示例
+SELECT id, MATCH(content) AGAINST('"天气"' IN BOOLEAN MODE) AS score
+FROM diaries
+WHERE is_deleted = 0 AND MATCH(content) AGAINST('"天气"' IN BOOLEAN MODE)
+ORDER BY score DESC
+LIMIT 10;
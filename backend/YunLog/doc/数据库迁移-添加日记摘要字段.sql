@@ -0,0 +1,21 @@
+-- 为 diaries 表添加 excerpt 和 word_count 字段
+-- 列表摘要模式（view=summary）只查询这两列，不再读取正文；新写入的日记由服务端生成，存量数据在此回填
+
+-- 1. 添加字段
+ALTER TABLE diaries ADD COLUMN excerpt VARCHAR(200) DEFAULT NULL COMMENT '列表摘要';
+ALTER TABLE diaries ADD COLUMN word_count INT DEFAULT NULL COMMENT '正文字数（不含空白）';
+
+-- 2. 回填存量数据，规则与 DiaryText 一致（REGEXP_REPLACE 需要 MySQL 8.0+）
+--    摘要：连续空白（含换行、制表符）合并为一个空格并去掉首尾空白，超过 120 个字符截断并追加省略号
+--    字数：去掉所有空白后的字符数
+UPDATE diaries
+SET excerpt = CASE
+        WHEN CHAR_LENGTH(TRIM(REGEXP_REPLACE(content, '\\s+', ' '))) > 120
+            THEN CONCAT(LEFT(TRIM(REGEXP_REPLACE(content, '\\s+', ' ')), 120), '…')
+        ELSE TRIM(REGEXP_REPLACE(content, '\\s+', ' '))
+    END,
+    word_count = CHAR_LENGTH(REGEXP_REPLACE(content, '\\s+', ''))
+WHERE excerpt IS NULL;
+
+-- 验证
+SELECT id, excerpt, word_count FROM diaries LIMIT 5;
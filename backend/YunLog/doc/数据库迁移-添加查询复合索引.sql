@@ -0,0 +1,35 @@
+-- 为 diaries / attachments / categories 表添加与查询条件匹配的复合索引
+-- 与实体类 @Table(indexes = ...) 声明保持一致；InnoDB 二级索引隐含主键 id，可直接满足 ORDER BY create_time DESC, id DESC
+
+-- 1. diaries
+ALTER TABLE diaries ADD INDEX idx_user_deleted_create (user_id, is_deleted, create_time);
+ALTER TABLE diaries ADD INDEX idx_user_category_deleted_create (user_id, category_id, is_deleted, create_time);
+ALTER TABLE diaries ADD INDEX idx_user_deleted_deleted_time (user_id, is_deleted, deleted_time);
+ALTER TABLE diaries ADD INDEX idx_deleted_deleted_time (is_deleted, deleted_time);
+
+-- 2. attachments
+ALTER TABLE attachments ADD INDEX idx_diary_create (diary_id, create_time);
+
+-- 3. categories
+ALTER TABLE categories ADD INDEX idx_user_sort (user_id, sort_order, create_time);
+ALTER TABLE categories ADD INDEX idx_user_name (user_id, name);
+
+-- 验证：以下每条语句的 key 列应为对应索引，Extra 中不应出现 Using filesort
+-- 日记列表 / 游标分页首页
+EXPLAIN SELECT id FROM diaries WHERE user_id = 1 AND is_deleted = 0 ORDER BY create_time DESC, id DESC LIMIT 21;
+-- 游标分页后续页
+EXPLAIN SELECT id FROM diaries WHERE user_id = 1 AND is_deleted = 0
+    AND (create_time < '2025-10-01 00:00:00' OR (create_time = '2025-10-01 00:00:00' AND id < 100))
+    ORDER BY create_time DESC, id DESC LIMIT 21;
+-- 分类日记列表
+EXPLAIN SELECT id FROM diaries WHERE user_id = 1 AND category_id = 1 AND is_deleted = 0 ORDER BY create_time DESC, id DESC LIMIT 21;
+-- 分类统计
+EXPLAIN SELECT category_id, COUNT(*) FROM diaries WHERE user_id = 1 AND is_deleted = 0 GROUP BY category_id;
+-- 垃圾桶列表
+EXPLAIN SELECT id FROM diaries WHERE user_id = 1 AND is_deleted = 1 ORDER BY deleted_time DESC LIMIT 20;
+-- 过期垃圾清理
+EXPLAIN SELECT id FROM diaries WHERE is_deleted = 1 AND deleted_time < NOW() AND id > 0 ORDER BY id LIMIT 200;
+-- 日记附件
+EXPLAIN SELECT id FROM attachments WHERE diary_id IN (1, 2, 3) ORDER BY create_time ASC;
+-- 分类列表
+EXPLAIN SELECT id FROM categories WHERE user_id = 1 ORDER BY sort_order ASC, create_time ASC;
@@ -0,0 +1,8 @@
+-- 为 attachments 表添加 variant_widths 字段
+-- 记录已生成的缩略图宽度，缩略图地址由原图地址推导（原文件名_w宽度.jpg）
+
+-- 1. 添加 variant_widths 字段
+ALTER TABLE attachments ADD COLUMN variant_widths VARCHAR(100) DEFAULT NULL COMMENT '已生成的缩略图宽度，逗号分隔';
+
+-- 验证
+SELECT id, url, variant_widths FROM attachments LIMIT 5;
@@ -0,0 +1,111 @@
+package io.github.uncleacc.yunlog.dto.response;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.uncleacc.yunlog.common.ApiResponse;
+import io.github.uncleacc.yunlog.common.PageResponse;
+import io.github.uncleacc.yunlog.entity.Attachment;
+import io.github.uncleacc.yunlog.entity.Diary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 日记列表组装与序列化基准
+ * 每页 limit 条日记，正文长度 200~2000 字，每条 0~3 张图片
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DiaryResponseBenchmark {
+    
+    @Param({"20", "100"})
+    private int limit;
+    
+    private List<Diary> diaries;
+    
+    private List<Attachment> attachments;
+    
+    private PageResponse<DiaryWithAttachmentsResponse> page;
+    
+    // 与 Spring MVC 默认配置一致（含 JavaTimeModule）
+    private ObjectMapper objectMapper;
+    
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        diaries = new ArrayList<>(limit);
+        attachments = new ArrayList<>();
+        for (int i = 0; i < limit; i++) {
+            Diary diary = new Diary();
+            diary.setId((long) i + 1);
+            String content = randomText(random, 200 + random.nextInt(1800));
+            diary.setContent(content);
+            diary.setContentHtml("<p>" + content + "</p>");
+            diary.setCategoryId(1L + random.nextInt(5));
+            diary.setUserId(10001L);
+            diary.setIsDeleted(false);
+            diary.setCreateTime(now.minusHours(i));
+            diary.setUpdateTime(now.minusHours(i));
+            diaries.add(diary);
+            
+            int imageCount = random.nextInt(4);
+            for (int j = 0; j < imageCount; j++) {
+                Attachment attachment = new Attachment();
+                attachment.setId((long) attachments.size() + 1);
+                attachment.setDiaryId(diary.getId());
+                attachment.setUrl("https://yunlog.oss-cn-hangzhou.aliyuncs.com/images/20251014/"
+                    + Long.toHexString(random.nextLong()) + ".jpg");
+                attachment.setVariantWidths(j % 2 == 0 ? "320,640,1080" : null);
+                attachment.setCreateTime(now.minusHours(i));
+                attachments.add(attachment);
+            }
+        }
+        page = PageResponse.of(DiaryWithAttachmentsResponse.from(diaries, attachments), 100000L, 1, limit);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+    
+    @Benchmark
+    public List<DiaryWithAttachmentsResponse> assemble() {
+        return DiaryWithAttachmentsResponse.from(diaries, attachments);
+    }
+    
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(ApiResponse.success(page));
+    }
+    
+    @Benchmark
+    public byte[] assembleAndSerialize() throws JsonProcessingException {
+        PageResponse<DiaryWithAttachmentsResponse> response = PageResponse.of(
+            DiaryWithAttachmentsResponse.from(diaries, attachments), 100000L, 1, limit);
+        return objectMapper.writeValueAsBytes(ApiResponse.success(response));
+    }
+    
+    private static String randomText(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(i % 40 == 39 ? '\n' : (char) (0x4E00 + random.nextInt(0x5000)));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.uncleacc.yunlog.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OSS 对象名生成基准（不访问 OSS）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OssServiceBenchmark {
+    
+    private OssService ossService;
+    
+    @Setup
+    public void setup() {
+        ossService = new OssService(null, null, null, null, null, null, null);
+    }
+    
+    @Benchmark
+    public String generateFileName() {
+        return ossService.generateFileName("IMG_20251014_120000.jpg");
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public String generateFileNameContended() {
+        return ossService.generateFileName("IMG_20251014_120000.jpg");
+    }
+}
@@ -0,0 +1,82 @@
+package io.github.uncleacc.yunlog.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT 生成与解析基准
+ * legacyValidateThenParse 为原过滤器路径（validateToken + getUserIdFromToken，每次重建密钥和解析器、验签解析两次），
+ * authenticate 命中验证缓存，getUserIdFromToken 每次完整验签解析
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+    
+    private static final String SECRET = "benchmark-secret-key-must-be-at-least-256-bits-long";
+    
+    private JwtUtil jwtUtil;
+    
+    private String token;
+    
+    @Setup
+    public void setup() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 7 * 24 * 3600L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaxSize", 10000L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheTtl", Duration.ofMinutes(10));
+        jwtUtil.init();
+        token = jwtUtil.generateToken(10001L, "user_10001", 0L);
+    }
+    
+    @Benchmark
+    public Long legacyValidateThenParse() {
+        legacyParse(token);
+        return Long.parseLong(legacyParse(token).getSubject());
+    }
+    
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(10001L, "user_10001", 0L);
+    }
+    
+    @Benchmark
+    public Long parseToken() {
+        return jwtUtil.getUserIdFromToken(token);
+    }
+    
+    @Benchmark
+    public JwtUtil.VerifiedToken authenticateCached() {
+        return jwtUtil.authenticate(token);
+    }
+    
+    private static Claims legacyParse(String token) {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        return Jwts.parserBuilder()
+            .setSigningKey(key)
+            .build()
+            .parseClaimsJws(token)
+            .getBody();
+    }
+}
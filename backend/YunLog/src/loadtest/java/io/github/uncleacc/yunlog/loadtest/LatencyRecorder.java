@@ -0,0 +1,77 @@
+package io.github.uncleacc.yunlog.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按接口记录请求耗时，汇总吞吐量和 p50/p95/p99
+ */
+public class LatencyRecorder {
+    
+    private final Map<String, Samples> samples = new ConcurrentHashMap<>();
+    
+    /**
+     * 记录一次请求
+     */
+    public void record(String endpoint, long nanos, boolean success) {
+        samples.computeIfAbsent(endpoint, key -> new Samples()).add(nanos, success);
+    }
+    
+    /**
+     * 生成报告，按接口名排序
+     * 
+     * @param elapsedSeconds 压测持续时间（秒），用于计算吞吐量
+     */
+    public Map<String, Map<String, Object>> report(double elapsedSeconds) {
+        Map<String, Map<String, Object>> report = new TreeMap<>();
+        samples.forEach((endpoint, endpointSamples) -> report.put(endpoint, endpointSamples.summary(elapsedSeconds)));
+        return report;
+    }
+    
+    private static class Samples {
+        
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+        
+        synchronized void add(long nanos, boolean success) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (!success) {
+                errors++;
+            }
+        }
+        
+        synchronized Map<String, Object> summary(double elapsedSeconds) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("count", count);
+            summary.put("errors", errors);
+            summary.put("throughput", round(count / elapsedSeconds));
+            summary.put("p50Ms", percentile(sorted, 0.50));
+            summary.put("p95Ms", percentile(sorted, 0.95));
+            summary.put("p99Ms", percentile(sorted, 0.99));
+            summary.put("maxMs", count == 0 ? 0 : round(sorted[count - 1] / 1e6));
+            return summary;
+        }
+        
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return round(sorted[Math.max(index, 0)] / 1e6);
+        }
+        
+        private static double round(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package io.github.uncleacc.yunlog.loadtest;
+
+import io.github.uncleacc.yunlog.YunLogApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import redis.embedded.RedisServer;
+
+/**
+ * 压测服务端入口：启动内嵌 Redis 后以 loadtest profile 启动应用
+ * 数据库仍使用配置的 MySQL（查询依赖 MySQL 全文索引等特性）
+ * 
+ * mvn -Ploadtest test-compile exec:java
+ */
+@Slf4j
+public class LoadTestApplication {
+    
+    public static void main(String[] args) {
+        int redisPort = Integer.getInteger("loadtest.redis.port", 6380);
+        RedisServer redisServer = RedisServer.builder()
+            .port(redisPort)
+            .setting("maxmemory 256mb")
+            .build();
+        redisServer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(redisServer::stop));
+        log.info("内嵌 Redis 已启动，端口: {}", redisPort);
+        
+        SpringApplication application = new SpringApplication(YunLogApplication.class);
+        application.setAdditionalProfiles("loadtest");
+        application.run(args);
+    }
+}
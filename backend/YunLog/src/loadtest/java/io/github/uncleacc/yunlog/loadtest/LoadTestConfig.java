@@ -0,0 +1,41 @@
+package io.github.uncleacc.yunlog.loadtest;
+
+import com.aliyun.oss.OSS;
+import io.github.uncleacc.yunlog.service.WechatService;
+import io.github.uncleacc.yunlog.support.LocalFileOss;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+import java.nio.file.Paths;
+
+/**
+ * 压测配置：用本地替身替换外部依赖，控制器、服务和数据库仍走真实代码
+ */
+@Slf4j
+@Configuration
+@Profile("loadtest")
+public class LoadTestConfig {
+    
+    /**
+     * 本地文件系统 OSS，替换 OssConfig.ossClient
+     */
+    @Bean
+    @Primary
+    public OSS localFileOss(@Value("${loadtest.oss.root:target/loadtest-oss}") String root) {
+        log.info("压测模式：OSS 使用本地目录 {}", Paths.get(root).toAbsolutePath());
+        return LocalFileOss.create(Paths.get(root).toAbsolutePath());
+    }
+    
+    /**
+     * 微信服务桩：code 直接映射为 openid，同一 code 始终登录同一用户
+     */
+    @Bean
+    @Primary
+    public WechatService wechatServiceStub() {
+        return code -> "loadtest_" + code;
+    }
+}
@@ -0,0 +1,346 @@
+package io.github.uncleacc.yunlog.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压测客户端：登录一批虚拟用户后，按固定比例混合发起请求（列表、摘要、详情、创建带图日记、搜索、统计、垃圾桶、登录），
+ * 结束后输出每个接口的吞吐量和 p50/p95/p99 耗时，并写入 JSON 报告
+ * 
+ * mvn -Ploadtest test-compile exec:java -Dloadtest.main=io.github.uncleacc.yunlog.loadtest.LoadTestDriver \
+ *     -Dloadtest.concurrency=32 -Dloadtest.duration=120
+ * 
+ * 参数（系统属性）：
+ * loadtest.base-url     服务地址，默认 http://localhost:8080/api/v1
+ * loadtest.concurrency  并发线程数，默认 16
+ * loadtest.users        虚拟用户数，默认 并发数 x 2
+ * loadtest.duration     压测时长（秒），默认 60
+ * loadtest.seed         每个用户预先创建的日记数，默认 20
+ * loadtest.report       报告文件，默认 target/loadtest-report.json
+ */
+public class LoadTestDriver {
+    
+    private static final String[] WORDS = {"今天", "天气", "工作", "学习", "旅行", "电影", "朋友", "晚饭", "跑步", "读书", "周末", "咖啡"};
+    
+    /**
+     * 操作及权重（百分比）
+     */
+    private static final String[] OPERATIONS = {"list", "summary", "detail", "create", "search", "stats", "trash", "login"};
+    private static final int[] WEIGHTS = {25, 15, 10, 15, 10, 5, 15, 5};
+    
+    private final String baseUrl;
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    
+    public LoadTestDriver(String baseUrl) {
+        this.baseUrl = baseUrl;
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(5000);
+        requestFactory.setReadTimeout(30000);
+        this.restTemplate = new RestTemplate(requestFactory);
+        // 错误状态码不抛异常，由调用方记录为失败请求
+        this.restTemplate.setErrorHandler(new DefaultResponseErrorHandler() {
+            @Override
+            public boolean hasError(org.springframework.http.client.ClientHttpResponse response) {
+                return false;
+            }
+        });
+    }
+    
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("loadtest.base-url", "http://localhost:8080/api/v1");
+        int concurrency = Integer.getInteger("loadtest.concurrency", 16);
+        int users = Integer.getInteger("loadtest.users", concurrency * 2);
+        int duration = Integer.getInteger("loadtest.duration", 60);
+        int seed = Integer.getInteger("loadtest.seed", 20);
+        String reportFile = System.getProperty("loadtest.report", "target/loadtest-report.json");
+        
+        LoadTestDriver driver = new LoadTestDriver(baseUrl);
+        
+        System.out.printf("准备 %d 个虚拟用户，每人 %d 篇日记...%n", users, seed);
+        List<VirtualUser> virtualUsers = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < users; i++) {
+            String code = "user" + i;
+            executor.execute(() -> {
+                VirtualUser user = driver.login(code);
+                if (user != null) {
+                    for (int j = 0; j < seed; j++) {
+                        driver.createDiary(user, false);
+                    }
+                    virtualUsers.add(user);
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.MINUTES);
+        if (virtualUsers.isEmpty()) {
+            System.err.println("没有虚拟用户登录成功，请检查服务是否以 loadtest profile 启动");
+            return;
+        }
+        
+        System.out.printf("开始压测：并发 %d，时长 %d 秒%n", concurrency, duration);
+        LoadTestDriver measured = new LoadTestDriver(baseUrl);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(duration);
+        executor = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            executor.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    VirtualUser user = virtualUsers.get(random.nextInt(virtualUsers.size()));
+                    measured.runOperation(pickOperation(random), user);
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(duration + 60L, TimeUnit.SECONDS);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        
+        Map<String, Map<String, Object>> report = measured.recorder.report(elapsedSeconds);
+        printReport(report, elapsedSeconds);
+        
+        Map<String, Object> output = new HashMap<>();
+        output.put("concurrency", concurrency);
+        output.put("users", virtualUsers.size());
+        output.put("elapsedSeconds", elapsedSeconds);
+        output.put("endpoints", report);
+        File file = new File(reportFile);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        measured.objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, output);
+        System.out.println("报告已写入 " + file.getAbsolutePath());
+    }
+    
+    private static String pickOperation(ThreadLocalRandom random) {
+        int value = random.nextInt(100);
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            value -= WEIGHTS[i];
+            if (value < 0) {
+                return OPERATIONS[i];
+            }
+        }
+        return OPERATIONS[0];
+    }
+    
+    private void runOperation(String operation, VirtualUser user) {
+        switch (operation) {
+            case "list":
+                call("GET /diaries", HttpMethod.GET, "/diaries?cursor=&limit=20", user, null);
+                break;
+            case "summary":
+                call("GET /diaries?view=summary", HttpMethod.GET, "/diaries?view=summary&cursor=&limit=20", user, null);
+                break;
+            case "detail":
+                Long id = user.randomDiary();
+                if (id != null) {
+                    call("GET /diaries/{id}", HttpMethod.GET, "/diaries/" + id, user, null);
+                }
+                break;
+            case "create":
+                createDiary(user, true);
+                break;
+            case "search":
+                String keyword = WORDS[ThreadLocalRandom.current().nextInt(WORDS.length)];
+                call("GET /diaries?keyword", HttpMethod.GET, "/diaries?keyword=" + keyword + "&limit=20", user, null);
+                break;
+            case "stats":
+                call("GET /categories/stats", HttpMethod.GET, "/categories/stats", user, null);
+                break;
+            case "trash":
+                trashAndRestore(user);
+                break;
+            case "login":
+                login(user.code);
+                break;
+            default:
+                break;
+        }
+    }
+    
+    private VirtualUser login(String code) {
+        Map<String, Object> body = Collections.singletonMap("code", code);
+        JsonNode data = call("POST /auth/wechat/login", HttpMethod.POST, "/auth/wechat/login", null, body);
+        if (data == null) {
+            return null;
+        }
+        VirtualUser user = new VirtualUser(code, data.path("token").asText());
+        JsonNode categories = call("GET /categories", HttpMethod.GET, "/categories", user, null);
+        if (categories == null || categories.size() == 0) {
+            return null;
+        }
+        user.categoryId = categories.get(0).path("id").asLong();
+        return user;
+    }
+    
+    private void createDiary(VirtualUser user, boolean withImage) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("content", randomContent());
+        body.put("categoryId", user.categoryId);
+        JsonNode diary = call("POST /diaries", HttpMethod.POST, "/diaries", user, body);
+        if (diary == null) {
+            return;
+        }
+        long diaryId = diary.path("id").asLong();
+        user.addDiary(diaryId);
+        
+        if (withImage) {
+            MultiValueMap<String, Object> form = new LinkedMultiValueMap<>();
+            form.add("file", new ByteArrayResource(randomImage()) {
+                @Override
+                public String getFilename() {
+                    return "loadtest.png";
+                }
+            });
+            form.add("diaryId", String.valueOf(diaryId));
+            call("POST /upload/image", HttpMethod.POST, "/upload/image", user, form);
+        }
+    }
+    
+    private void trashAndRestore(VirtualUser user) {
+        Long id = user.takeDiary();
+        if (id == null) {
+            return;
+        }
+        call("DELETE /diaries/{id}", HttpMethod.DELETE, "/diaries/" + id, user, null);
+        call("GET /trash", HttpMethod.GET, "/trash?page=1&limit=20", user, null);
+        if (call("POST /trash/{id}/restore", HttpMethod.POST, "/trash/" + id + "/restore", user, null) != null) {
+            user.addDiary(id);
+        }
+    }
+    
+    /**
+     * 发送请求并记录耗时，成功时返回响应中的 data 节点（无 data 时返回空节点），失败返回 null
+     */
+    private JsonNode call(String endpoint, HttpMethod method, String path, VirtualUser user, Object body) {
+        HttpHeaders headers = new HttpHeaders();
+        if (user != null) {
+            headers.setBearerAuth(user.token);
+        }
+        if (body instanceof MultiValueMap) {
+            headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        } else if (body != null) {
+            headers.setContentType(MediaType.APPLICATION_JSON);
+        }
+        
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl + path, method, new HttpEntity<>(body, headers), String.class);
+            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+                return null;
+            }
+            JsonNode root = objectMapper.readTree(response.getBody());
+            int code = root.path("code").asInt();
+            success = code >= 200 && code < 300;
+            return success ? root.path("data") : null;
+        } catch (Exception e) {
+            return null;
+        } finally {
+            recorder.record(endpoint, System.nanoTime() - start, success);
+        }
+    }
+    
+    private static String randomContent() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int sentences = 3 + random.nextInt(20);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < sentences; i++) {
+            for (int j = 0; j < 4; j++) {
+                builder.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            builder.append(i % 5 == 4 ? "。\n" : "，");
+        }
+        return builder.toString();
+    }
+    
+    /**
+     * 生成随机颜色的图片，避免内容去重让所有上传命中同一个对象
+     */
+    private static byte[] randomImage() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(new Color(random.nextInt(0xFFFFFF)));
+        graphics.fillRect(0, 0, 800, 600);
+        graphics.setColor(new Color(random.nextInt(0xFFFFFF)));
+        graphics.fillOval(random.nextInt(600), random.nextInt(400), 200, 200);
+        graphics.dispose();
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static void printReport(Map<String, Map<String, Object>> report, double elapsedSeconds) {
+        System.out.printf("%n压测时长 %.1f 秒%n", elapsedSeconds);
+        System.out.printf("%-32s %8s %7s %10s %9s %9s %9s %9s%n",
+            "endpoint", "count", "errors", "req/s", "p50(ms)", "p95(ms)", "p99(ms)", "max(ms)");
+        report.forEach((endpoint, summary) -> System.out.printf("%-32s %8s %7s %10s %9s %9s %9s %9s%n",
+            endpoint, summary.get("count"), summary.get("errors"), summary.get("throughput"),
+            summary.get("p50Ms"), summary.get("p95Ms"), summary.get("p99Ms"), summary.get("maxMs")));
+    }
+    
+    /**
+     * 虚拟用户：登录凭证和自己的日记ID
+     */
+    private static class VirtualUser {
+        
+        private final String code;
+        private final String token;
+        private final List<Long> diaryIds = new ArrayList<>();
+        private volatile long categoryId;
+        
+        VirtualUser(String code, String token) {
+            this.code = code;
+            this.token = token;
+        }
+        
+        synchronized void addDiary(long id) {
+            diaryIds.add(id);
+        }
+        
+        synchronized Long randomDiary() {
+            return diaryIds.isEmpty() ? null : diaryIds.get(ThreadLocalRandom.current().nextInt(diaryIds.size()));
+        }
+        
+        synchronized Long takeDiary() {
+            return diaryIds.isEmpty() ? null : diaryIds.remove(ThreadLocalRandom.current().nextInt(diaryIds.size()));
+        }
+    }
+}
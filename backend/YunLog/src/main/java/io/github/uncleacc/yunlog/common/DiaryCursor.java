@@ -0,0 +1,53 @@
+package io.github.uncleacc.yunlog.common;
+
+import io.github.uncleacc.yunlog.exception.BusinessException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 日记时间线游标
+ * 记录上一页最后一条日记的 (createTime, id)，对客户端是不透明的字符串
+ */
+@Data
+@AllArgsConstructor
+public class DiaryCursor {
+    
+    private static final String SEPARATOR = "|";
+    
+    /**
+     * 上一页最后一条日记的创建时间
+     */
+    private LocalDateTime createTime;
+    
+    /**
+     * 上一页最后一条日记的ID
+     */
+    private Long id;
+    
+    /**
+     * 编码为URL安全的游标字符串
+     */
+    public String encode() {
+        String raw = createTime + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 解析游标字符串
+     */
+    public static DiaryCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(SEPARATOR);
+            LocalDateTime createTime = LocalDateTime.parse(raw.substring(0, index));
+            Long id = Long.parseLong(raw.substring(index + 1));
+            return new DiaryCursor(createTime, id);
+        } catch (RuntimeException e) {
+            throw new BusinessException(400, "无效的分页游标");
+        }
+    }
+}
@@ -35,6 +35,11 @@ public class PageResponse<T> {
      */
     private Long totalPages;
     
+    /**
+     * 下一页游标（游标分页模式下返回，为空表示没有更多数据）
+     */
+    private String nextCursor;
+    
     public PageResponse() {}
     
     public PageResponse(List<T> list, Long total, Integer page, Integer limit) {
@@ -48,4 +53,19 @@ public class PageResponse<T> {
     public static <T> PageResponse<T> of(List<T> list, Long total, Integer page, Integer limit) {
         return new PageResponse<>(list, total, page, limit);
     }
+    
+    /**
+     * 游标分页响应，total 为空时不返回总数和总页数
+     */
+    public static <T> PageResponse<T> ofCursor(List<T> list, String nextCursor, Long total, Integer limit) {
+        PageResponse<T> response = new PageResponse<>();
+        response.setList(list);
+        response.setLimit(limit);
+        response.setNextCursor(nextCursor);
+        if (total != null) {
+            response.setTotal(total);
+            response.setTotalPages((total + limit - 1) / limit);
+        }
+        return response;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package io.github.uncleacc.yunlog.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 图片处理线程池配置
+ */
+@Configuration
+public class ImageProcessExecutorConfig {
+    
+    @Value("${yunlog.image.pool-size:2}")
+    private int poolSize;
+    
+    @Value("${yunlog.image.queue-capacity:500}")
+    private int queueCapacity;
+    
+    /**
+     * 缩略图生成专用线程池
+     * 图片解码比较耗内存，线程数保持较小；队列满时拒绝任务（由 ImageVariantService 记录并计数），
+     * 缩略图缺失时列表回退到原图
+     */
+    @Bean
+    public ThreadPoolTaskExecutor imageProcessExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-process-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+}
@@ -0,0 +1,111 @@
+package io.github.uncleacc.yunlog.config;
+
+import com.aliyun.oss.OSS;
+import io.github.uncleacc.yunlog.metrics.OssClientMetrics;
+import io.github.uncleacc.yunlog.metrics.SqlStatementCounter;
+import io.github.uncleacc.yunlog.service.ImageVariantService;
+import io.github.uncleacc.yunlog.service.OssDeleteOutboxService;
+import io.github.uncleacc.yunlog.service.OssService;
+import io.github.uncleacc.yunlog.service.TrashPurgeService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 指标配置
+ * 接口耗时（http.server.requests）和仓库方法耗时（spring.data.repository.invocations）由 Actuator 自动采集，
+ * 这里补充 SQL 语句计数、OSS 调用计时和各后台任务的状态指标
+ */
+@Configuration
+public class MetricsConfig {
+    
+    /**
+     * 注册 SQL 语句计数器
+     */
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounterCustomizer(SqlStatementCounter sqlStatementCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlStatementCounter);
+    }
+    
+    /**
+     * 为所有 OSS 客户端 Bean 加上调用计时
+     */
+    @Bean
+    public static BeanPostProcessor ossClientMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof OSS) {
+                    return OssClientMetrics.instrument((OSS) bean, meterRegistry.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+    
+    /**
+     * OSS 流式上传、删除发件箱、垃圾桶清理、缩略图生成的状态指标
+     */
+    @Bean
+    public MeterBinder yunlogTaskMetrics(OssService ossService,
+                                         OssDeleteOutboxService ossDeleteOutboxService,
+                                         TrashPurgeService trashPurgeService,
+                                         ImageVariantService imageVariantService) {
+        return registry -> {
+            FunctionCounter.builder("yunlog.oss.stream.uploads", ossService, OssService::getStreamUploadCount)
+                .description("流式上传累计次数")
+                .register(registry);
+            FunctionCounter.builder("yunlog.oss.stream.bytes", ossService, OssService::getStreamUploadBytes)
+                .description("流式上传累计字节数")
+                .baseUnit("bytes")
+                .register(registry);
+            Gauge.builder("yunlog.oss.stream.buffer.in.use", ossService, OssService::getStreamBufferBytesInUse)
+                .description("流式上传当前占用的缓冲区字节数")
+                .baseUnit("bytes")
+                .register(registry);
+            Gauge.builder("yunlog.oss.stream.buffer.peak", ossService, OssService::getStreamBufferPeakBytes)
+                .description("流式上传缓冲区占用峰值")
+                .baseUnit("bytes")
+                .register(registry);
+            
+            Gauge.builder("yunlog.oss.delete.backlog", ossDeleteOutboxService, OssDeleteOutboxService::getBacklog)
+                .description("待处理的 OSS 删除任务数")
+                .register(registry);
+            Gauge.builder("yunlog.oss.delete.retrying", ossDeleteOutboxService, OssDeleteOutboxService::getRetryingCount)
+                .description("等待重试的 OSS 删除任务数")
+                .register(registry);
+            FunctionCounter.builder("yunlog.oss.delete.deleted", ossDeleteOutboxService, OssDeleteOutboxService::getDeletedCount)
+                .description("累计删除成功的 OSS 对象数")
+                .register(registry);
+            FunctionCounter.builder("yunlog.oss.delete.failed.batches", ossDeleteOutboxService, OssDeleteOutboxService::getFailedBatchCount)
+                .description("累计失败的 OSS 删除批次数")
+                .register(registry);
+            
+            Gauge.builder("yunlog.trash.purge.last.count", trashPurgeService, TrashPurgeService::getLastPurgedCount)
+                .description("上次垃圾桶清理删除的日记数")
+                .register(registry);
+            Gauge.builder("yunlog.trash.purge.last.duration", trashPurgeService, TrashPurgeService::getLastDurationMillis)
+                .description("上次垃圾桶清理耗时")
+                .baseUnit("milliseconds")
+                .register(registry);
+            Gauge.builder("yunlog.trash.purge.lag", trashPurgeService, TrashPurgeService::getLastLagSeconds)
+                .description("最早一条垃圾桶日记超出保留期的秒数")
+                .baseUnit("seconds")
+                .register(registry);
+            
+            FunctionCounter.builder("yunlog.image.variant.rejected", imageVariantService, ImageVariantService::getRejectedCount)
+                .description("图片处理队列已满被拒绝的缩略图任务数")
+                .register(registry);
+            FunctionCounter.builder("yunlog.image.variant.oversized", imageVariantService, ImageVariantService::getOversizedCount)
+                .description("像素数超过上限未生成缩略图的图片数")
+                .register(registry);
+        };
+    }
+}
@@ -41,4 +41,67 @@ public class OssProperties {
      * 上传文件夹路径
      */
     private String folder;
+    
+    /**
+     * 上传线程池配置
+     */
+    private Upload upload = new Upload();
+    
+    /**
+     * 流式分片上传配置
+     */
+    private Stream stream = new Stream();
+    
+    @Data
+    public static class Upload {
+        
+        /**
+         * 上传线程池核心线程数
+         */
+        private int corePoolSize = 8;
+        
+        /**
+         * 上传线程池最大线程数
+         */
+        private int maxPoolSize = 16;
+        
+        /**
+         * 上传线程池队列容量
+         */
+        private int queueCapacity = 200;
+        
+        /**
+         * 单次批量上传的最大并发数
+         */
+        private int maxConcurrencyPerRequest = 4;
+    }
+    
+    @Data
+    public static class Stream {
+        
+        /**
+         * 分片大小（字节），OSS 要求除最后一片外不小于 100KB
+         */
+        private int partSize = 1024 * 1024;
+        
+        /**
+         * 缓冲区数量上限，即同时进行的流式上传数上限
+         */
+        private int maxBuffers = 32;
+        
+        /**
+         * 获取缓冲区的最长等待时间（毫秒）
+         */
+        private long acquireTimeoutMillis = 3000;
+        
+        /**
+         * 单个分片失败后的最大重试次数
+         */
+        private int maxPartRetries = 3;
+        
+        /**
+         * 单个文件的最大字节数
+         */
+        private long maxObjectSize = 100L * 1024 * 1024;
+    }
 }
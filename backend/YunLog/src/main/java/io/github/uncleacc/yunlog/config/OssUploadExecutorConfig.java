@@ -0,0 +1,36 @@
+package io.github.uncleacc.yunlog.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * OSS 上传线程池配置
+ */
+@Configuration
+@RequiredArgsConstructor
+public class OssUploadExecutorConfig {
+    
+    private final OssProperties ossProperties;
+    
+    /**
+     * 批量上传专用线程池，与 Tomcat 工作线程隔离
+     * 队列满时由调用线程自己上传，避免无界堆积
+     */
+    @Bean
+    public ThreadPoolTaskExecutor ossUploadExecutor() {
+        OssProperties.Upload upload = ossProperties.getUpload();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(upload.getCorePoolSize());
+        executor.setMaxPoolSize(upload.getMaxPoolSize());
+        executor.setQueueCapacity(upload.getQueueCapacity());
+        executor.setThreadNamePrefix("oss-upload-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.uncleacc.yunlog.config;
+
+import io.github.uncleacc.yunlog.metrics.SlowQueryListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 慢查询日志配置
+ * 用 JDBC 代理包装数据源，超过阈值（或按采样率抽中）的语句连同参数、调用方和请求ID异步写入日志
+ */
+@Configuration
+@ConditionalOnProperty(name = "yunlog.slow-sql.enabled", havingValue = "true", matchIfMissing = true)
+public class SlowQueryLogConfig {
+    
+    @Value("${yunlog.slow-sql.queue-capacity:1000}")
+    private int queueCapacity;
+    
+    /**
+     * 慢查询日志写入线程
+     * 单线程保证日志顺序；队列满时丢弃，不阻塞业务线程
+     */
+    @Bean
+    public ThreadPoolTaskExecutor slowQueryLogExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("slow-sql-log-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        return executor;
+    }
+    
+    /**
+     * 包装数据源
+     */
+    @Bean
+    public static BeanPostProcessor slowQueryDataSourcePostProcessor(ObjectProvider<SlowQueryListener> slowQueryListener) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create((DataSource) bean)
+                        .name(beanName)
+                        .listener(slowQueryListener.getObject())
+                        .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
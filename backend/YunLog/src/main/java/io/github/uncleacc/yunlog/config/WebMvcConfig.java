@@ -1,6 +1,7 @@
 package io.github.uncleacc.yunlog.config;
 
 import io.github.uncleacc.yunlog.interceptor.JwtInterceptor;
+import io.github.uncleacc.yunlog.interceptor.SqlStatementInterceptor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
@@ -15,16 +16,22 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class WebMvcConfig implements WebMvcConfigurer {
     
     private final JwtInterceptor jwtInterceptor;
+    private final SqlStatementInterceptor sqlStatementInterceptor;
     
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
+        // 先于JWT拦截器执行，token校验产生的查询也计入请求
+        registry.addInterceptor(sqlStatementInterceptor)
+                .addPathPatterns("/**");
+        
         registry.addInterceptor(jwtInterceptor)
                 .addPathPatterns("/**") // 拦截所有请求
                 .excludePathPatterns(
                         "/auth/sms/send",     // 发送短信验证码不需要token
                         "/auth/phone/login",  // 手机登录不需要token
                         "/auth/wechat/login", // 微信登录不需要token
-                        "/auth/logout"        // 登出不需要token
+                        "/auth/refresh",      // 刷新token使用刷新令牌认证
+                        "/auth/logout"        // 登出自行校验token，访问token过期时也能登出
                 );
     }
     
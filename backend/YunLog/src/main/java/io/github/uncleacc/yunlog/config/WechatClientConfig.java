@@ -0,0 +1,54 @@
+package io.github.uncleacc.yunlog.config;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 微信接口 HTTP 客户端配置
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WechatClientConfig {
+    
+    private final WechatProperties wechatProperties;
+    
+    /**
+     * 带连接池和超时的 HttpClient
+     * 关闭 HttpClient 自带的重试，由 WechatServiceImpl 按失败类型决定是否重试
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient wechatHttpClient() {
+        WechatProperties.Client client = wechatProperties.getClient();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(client.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(client.getMaxPerRoute());
+        
+        RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectTimeout((int) client.getConnectTimeout().toMillis())
+            .setSocketTimeout((int) client.getReadTimeout().toMillis())
+            .setConnectionRequestTimeout((int) client.getPoolAcquireTimeout().toMillis())
+            .build();
+        
+        return HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(requestConfig)
+            .disableAutomaticRetries()
+            .evictExpiredConnections()
+            .evictIdleConnections(30, TimeUnit.SECONDS)
+            .build();
+    }
+    
+    @Bean
+    public RestTemplate wechatRestTemplate(CloseableHttpClient wechatHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(wechatHttpClient));
+    }
+}
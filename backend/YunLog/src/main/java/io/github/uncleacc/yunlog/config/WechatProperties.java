@@ -0,0 +1,104 @@
+package io.github.uncleacc.yunlog.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 微信小程序配置属性
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "wechat")
+public class WechatProperties {
+    
+    /**
+     * 小程序 AppID
+     */
+    private String appid;
+    
+    /**
+     * 小程序 AppSecret
+     */
+    private String secret;
+    
+    /**
+     * 微信接口地址
+     */
+    private String apiUrl = "https://api.weixin.qq.com";
+    
+    /**
+     * HTTP 客户端配置
+     */
+    private Client client = new Client();
+    
+    /**
+     * 熔断器配置
+     */
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    
+    @Data
+    public static class Client {
+        
+        /**
+         * 连接池最大连接数
+         */
+        private int maxTotal = 50;
+        
+        /**
+         * 每个目标主机的最大连接数
+         */
+        private int maxPerRoute = 50;
+        
+        /**
+         * 建立连接超时
+         */
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        
+        /**
+         * 读取响应超时
+         */
+        private Duration readTimeout = Duration.ofSeconds(3);
+        
+        /**
+         * 从连接池获取连接的最长等待时间
+         */
+        private Duration poolAcquireTimeout = Duration.ofMillis(500);
+        
+        /**
+         * 可重试失败的最大重试次数
+         */
+        private int maxRetries = 1;
+        
+        /**
+         * 两次重试之间的等待时间
+         */
+        private Duration retryBackoff = Duration.ofMillis(200);
+        
+        /**
+         * 同时调用微信接口的请求数上限
+         */
+        private int maxConcurrent = 20;
+        
+        /**
+         * 等待调用名额的最长时间
+         */
+        private Duration acquireTimeout = Duration.ofMillis(500);
+    }
+    
+    @Data
+    public static class CircuitBreaker {
+        
+        /**
+         * 连续失败多少次后熔断
+         */
+        private int failureThreshold = 5;
+        
+        /**
+         * 熔断持续时间，到期后放行一个探测请求
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+    }
+}
@@ -8,6 +8,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 /**
@@ -26,9 +27,10 @@ public class AuthController {
      * 发送短信验证码
      */
     @PostMapping("/sms/send")
-    public ApiResponse<String> sendSmsCode(@Valid @RequestBody SendSmsRequest request) {
+    public ApiResponse<String> sendSmsCode(@Valid @RequestBody SendSmsRequest request,
+                                           HttpServletRequest httpRequest) {
         String code = smsService.generateCode();
-        boolean success = smsService.sendVerifyCode(request.getPhone(), code);
+        boolean success = smsService.sendVerifyCode(request.getPhone(), code, httpRequest.getRemoteAddr());
         
         if (success) {
             return ApiResponse.success("验证码已发送");
@@ -56,10 +58,26 @@ public class AuthController {
     }
     
     /**
-     * 登出（客户端删除token即可，服务端无需处理）
+     * 刷新token
+     */
+    @PostMapping("/refresh")
+    public ApiResponse<AuthResponse> refreshToken(@Valid @RequestBody RefreshTokenRequest request) {
+        AuthResponse response = authService.refreshToken(request);
+        return ApiResponse.success("刷新成功", response);
+    }
+    
+    /**
+     * 登出（吊销当前用户在所有设备上的访问token和刷新token）
+     * 不经过JWT拦截器，访问token已过期时通过刷新令牌确认用户身份；token都无效时直接返回成功
      */
     @PostMapping("/logout")
-    public ApiResponse<Void> logout() {
+    public ApiResponse<Void> logout(@RequestBody(required = false) LogoutRequest request,
+                                    @RequestHeader(value = "Authorization", required = false) String authorization) {
+        String refreshToken = request != null ? request.getRefreshToken() : null;
+        String accessToken = authorization != null && authorization.startsWith("Bearer ")
+            ? authorization.substring(7)
+            : null;
+        authService.logout(refreshToken, accessToken);
         return ApiResponse.success();
     }
 }
@@ -3,6 +3,8 @@ package io.github.uncleacc.yunlog.controller;
 import io.github.uncleacc.yunlog.common.ApiResponse;
 import io.github.uncleacc.yunlog.dto.request.CreateCategoryRequest;
 import io.github.uncleacc.yunlog.dto.request.UpdateCategorySortRequest;
+import io.github.uncleacc.yunlog.dto.response.CategoryDeleteResponse;
+import io.github.uncleacc.yunlog.dto.response.DiaryStatsResponse;
 import io.github.uncleacc.yunlog.entity.Category;
 import io.github.uncleacc.yunlog.service.CategoryService;
 import lombok.RequiredArgsConstructor;
@@ -32,6 +34,15 @@ public class CategoryController {
         return ApiResponse.success(categories);
     }
     
+    /**
+     * 获取当前用户的日记统计（汇总 + 各分类）
+     */
+    @GetMapping("/stats")
+    public ApiResponse<DiaryStatsResponse> getUserStats() {
+        DiaryStatsResponse stats = categoryService.getUserStats();
+        return ApiResponse.success(stats);
+    }
+    
     /**
      * 获取分类详情
      */
@@ -64,9 +75,9 @@ public class CategoryController {
      * 删除分类
      */
     @DeleteMapping("/{id}")
-    public ApiResponse<Void> deleteCategory(@PathVariable Long id) {
-        categoryService.deleteCategory(id);
-        return ApiResponse.success();
+    public ApiResponse<CategoryDeleteResponse> deleteCategory(@PathVariable Long id) {
+        CategoryDeleteResponse result = categoryService.deleteCategory(id);
+        return ApiResponse.success(result);
     }
     
     /**
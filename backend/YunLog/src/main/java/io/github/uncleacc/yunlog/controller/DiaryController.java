@@ -4,7 +4,6 @@ import io.github.uncleacc.yunlog.common.ApiResponse;
 import io.github.uncleacc.yunlog.common.PageResponse;
 import io.github.uncleacc.yunlog.dto.request.CreateDiaryRequest;
 import io.github.uncleacc.yunlog.dto.request.UpdateDiaryTimeRequest;
-import io.github.uncleacc.yunlog.dto.response.DiaryWithAttachmentsResponse;
 import io.github.uncleacc.yunlog.entity.Diary;
 import io.github.uncleacc.yunlog.service.DiaryService;
 import lombok.RequiredArgsConstructor;
@@ -27,18 +26,31 @@ public class DiaryController {
     
     /**
      * 获取日记列表
+     * 传入 cursor 参数（首页传空字符串）时使用游标分页，否则按 page/limit 分页；
+     * view=summary 时只返回摘要、字数和首图缩略图，正文通过日记详情获取
      */
     @GetMapping
-    public ApiResponse<PageResponse<DiaryWithAttachmentsResponse>> getDiaryList(
+    public ApiResponse<PageResponse<?>> getDiaryList(
             @RequestParam(defaultValue = "1") Integer page,
             @RequestParam(defaultValue = "20") Integer limit,
             @RequestParam(required = false) Long categoryId,
-            @RequestParam(required = false) String keyword) {
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") Boolean withTotal,
+            @RequestParam(defaultValue = "full") String view) {
         
-        PageResponse<DiaryWithAttachmentsResponse> diaries;
+        PageResponse<?> diaries;
         if (keyword != null && !keyword.trim().isEmpty()) {
             // 搜索日记
             diaries = diaryService.searchDiaries(keyword, page, limit);
+        } else if ("summary".equals(view)) {
+            // 摘要列表
+            diaries = cursor != null
+                ? diaryService.getDiarySummaryTimeline(cursor, limit, categoryId, withTotal)
+                : diaryService.getDiarySummaryList(page, limit, categoryId);
+        } else if (cursor != null) {
+            // 游标分页
+            diaries = diaryService.getDiaryTimeline(cursor, limit, categoryId, withTotal);
         } else {
             // 普通查询
             diaries = diaryService.getDiaryList(page, limit, categoryId);
@@ -98,9 +110,9 @@ public class DiaryController {
      * 批量删除日记
      */
     @DeleteMapping("/batch")
-    public ApiResponse<Void> batchDeleteDiaries(@RequestBody BatchDeleteRequest deleteRequest) {
-        diaryService.batchDeleteDiaries(deleteRequest.getIds());
-        return ApiResponse.success("已批量移到垃圾桶", null);
+    public ApiResponse<Integer> batchDeleteDiaries(@RequestBody BatchDeleteRequest deleteRequest) {
+        int count = diaryService.batchDeleteDiaries(deleteRequest.getIds());
+        return ApiResponse.success("已批量移到垃圾桶", count);
     }
     
     /**
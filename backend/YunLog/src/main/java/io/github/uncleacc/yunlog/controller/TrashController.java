@@ -55,22 +55,18 @@ public class TrashController {
      * 清空垃圾桶
      */
     @DeleteMapping("/clear")
-    public ApiResponse<Void> clearTrash() {
-        diaryService.clearTrash();
-        return ApiResponse.success("垃圾桶已清空", null);
+    public ApiResponse<Integer> clearTrash() {
+        int count = diaryService.clearTrash();
+        return ApiResponse.success("垃圾桶已清空", count);
     }
     
     /**
      * 批量恢复
      */
     @PostMapping("/batch-restore")
-    public ApiResponse<Void> batchRestore(@RequestBody BatchRestoreRequest restoreRequest) {
-        
-        for (Long id : restoreRequest.getIds()) {
-            diaryService.restoreFromTrash(id);
-        }
-        
-        return ApiResponse.success("批量恢复成功", null);
+    public ApiResponse<Integer> batchRestore(@RequestBody BatchRestoreRequest restoreRequest) {
+        int count = diaryService.batchRestoreFromTrash(restoreRequest.getIds());
+        return ApiResponse.success("批量恢复成功", count);
     }
     
     /**
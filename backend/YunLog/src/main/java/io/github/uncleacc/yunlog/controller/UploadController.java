@@ -10,6 +10,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -106,6 +108,44 @@ public class UploadController {
         return ApiResponse.success("批量上传成功", result);
     }
     
+    /**
+     * 流式上传单个图片
+     * 请求体直接为图片二进制数据（Content-Type 为图片类型），不经过 multipart 解析，
+     * 边读边以分片形式写入 OSS，适合大图上传
+     * 
+     * @param request HTTP 请求
+     * @param filename 原始文件名（可选，用于确定扩展名）
+     * @param diaryId 日记ID（可选，如果提供则自动创建附件记录）
+     * @return 图片 URL
+     */
+    @PostMapping("/image/stream")
+    public ApiResponse<Map<String, Object>> uploadImageStream(
+            HttpServletRequest request,
+            @RequestParam(value = "filename", required = false) String filename,
+            @RequestParam(value = "diaryId", required = false) Long diaryId) throws IOException {
+        
+        log.info("流式上传图片: 文件名={}, 大小={}KB, 日记ID={}", 
+            filename, 
+            request.getContentLengthLong() / 1024, 
+            diaryId);
+        
+        String url = ossService.uploadStream(request.getInputStream(), request.getContentType(), filename);
+        
+        // 如果提供了日记ID，自动创建附件记录
+        Map<String, Object> result = new HashMap<>();
+        result.put("url", url);
+        if (diaryId != null) {
+            CreateAttachmentRequest attachmentRequest = new CreateAttachmentRequest();
+            attachmentRequest.setDiaryId(diaryId);
+            attachmentRequest.setUrl(url);
+            Attachment attachment = attachmentService.createAttachment(attachmentRequest);
+            result.put("attachmentId", attachment.getId());
+            result.put("diaryId", attachment.getDiaryId());
+        }
+        
+        return ApiResponse.success("图片上传成功", result);
+    }
+    
     /**
      * 仅上传图片到 OSS（不创建附件记录）
      * 用于在编辑器中临时上传图片
@@ -131,14 +171,15 @@ public class UploadController {
     }
     
     /**
-     * 删除 OSS 文件
+     * 删除当前用户上传、尚未被附件引用的 OSS 文件
+     * 已被附件引用或不属于当前用户的文件不做处理（附件引用的文件随附件删除回收）
      * 
      * @param url 文件 URL
      */
     @DeleteMapping("/file")
     public ApiResponse<Void> deleteFile(@RequestParam("url") String url) {
         log.info("删除文件: {}", url);
-        ossService.deleteFile(url);
+        ossService.discardUpload(url);
         return ApiResponse.success("文件删除成功", null);
     }
 }
@@ -15,10 +15,20 @@ import lombok.NoArgsConstructor;
 public class AuthResponse {
     
     /**
-     * JWT token
+     * JWT 访问token
      */
     private String token;
     
+    /**
+     * 刷新token，用于访问token过期后换取新token，每次使用后轮换
+     */
+    private String refreshToken;
+    
+    /**
+     * 访问token有效期（秒）
+     */
+    private Long expiresIn;
+    
     /**
      * 用户信息
      */
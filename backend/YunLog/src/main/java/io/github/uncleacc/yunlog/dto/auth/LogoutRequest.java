@@ -0,0 +1,15 @@
+package io.github.uncleacc.yunlog.dto.auth;
+
+import lombok.Data;
+
+/**
+ * 登出请求DTO
+ */
+@Data
+public class LogoutRequest {
+    
+    /**
+     * 刷新令牌（可选），访问token已过期时用于确认用户身份
+     */
+    private String refreshToken;
+}
@@ -0,0 +1,15 @@
+package io.github.uncleacc.yunlog.dto.auth;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotBlank;
+
+/**
+ * 刷新token请求DTO
+ */
+@Data
+public class RefreshTokenRequest {
+    
+    @NotBlank(message = "刷新令牌不能为空")
+    private String refreshToken;
+}
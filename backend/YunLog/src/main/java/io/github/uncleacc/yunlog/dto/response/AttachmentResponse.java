@@ -0,0 +1,41 @@
+package io.github.uncleacc.yunlog.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.github.uncleacc.yunlog.entity.Attachment;
+import io.github.uncleacc.yunlog.util.ImageVariants;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 附件响应DTO（列表用，附带缩略图地址）
+ */
+@Data
+public class AttachmentResponse {
+    
+    private Long id;
+    private Long diaryId;
+    private String url;
+    
+    /**
+     * 适合列表卡片展示的缩略图地址，尚未生成缩略图时与原图相同
+     */
+    private String thumbnailUrl;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createTime;
+    
+    /**
+     * 从 Attachment 实体创建响应对象
+     */
+    public static AttachmentResponse from(Attachment attachment) {
+        AttachmentResponse response = new AttachmentResponse();
+        response.setId(attachment.getId());
+        response.setDiaryId(attachment.getDiaryId());
+        response.setUrl(attachment.getUrl());
+        response.setThumbnailUrl(ImageVariants.fit(
+            attachment.getUrl(), attachment.getVariantWidths(), ImageVariants.CARD_WIDTH));
+        response.setCreateTime(attachment.getCreateTime());
+        return response;
+    }
+}
@@ -0,0 +1,24 @@
+package io.github.uncleacc.yunlog.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 删除分类结果响应DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryDeleteResponse {
+    
+    /**
+     * 移到垃圾桶的日记数
+     */
+    private Integer movedToTrash;
+    
+    /**
+     * 迁移到默认分类的垃圾桶日记数
+     */
+    private Integer reassigned;
+}
@@ -0,0 +1,46 @@
+package io.github.uncleacc.yunlog.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.github.uncleacc.yunlog.service.CategoryService;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 用户日记统计响应DTO（汇总 + 各分类）
+ */
+@Data
+public class DiaryStatsResponse {
+    
+    /**
+     * 日记总数
+     */
+    private Long totalCount;
+    
+    /**
+     * 今天写的日记数
+     */
+    private Long today;
+    
+    /**
+     * 本周（周一起）写的日记数
+     */
+    private Long thisWeek;
+    
+    /**
+     * 本月写的日记数
+     */
+    private Long thisMonth;
+    
+    /**
+     * 最近一篇日记的时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime lastDiaryTime;
+    
+    /**
+     * 各分类统计，key 为分类ID
+     */
+    private Map<Long, CategoryService.CategoryStatsResponse> categories;
+}
@@ -0,0 +1,76 @@
+package io.github.uncleacc.yunlog.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.github.uncleacc.yunlog.entity.Attachment;
+import io.github.uncleacc.yunlog.repository.DiarySummaryView;
+import io.github.uncleacc.yunlog.util.ImageVariants;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 日记摘要响应DTO（列表卡片用，不含正文）
+ */
+@Data
+public class DiarySummaryResponse {
+    
+    private Long id;
+    private Long categoryId;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createTime;
+    
+    /**
+     * 写入时生成的正文摘要
+     */
+    private String excerpt;
+    
+    /**
+     * 正文字数（不含空白）
+     */
+    private Integer wordCount;
+    
+    /**
+     * 第一张图片的缩略图地址，没有图片时为 null
+     */
+    private String thumbnailUrl;
+    
+    /**
+     * 图片数量
+     */
+    private Integer imageCount;
+    
+    /**
+     * 从摘要投影和日记附件创建响应对象
+     */
+    public static DiarySummaryResponse from(DiarySummaryView view, List<Attachment> attachments) {
+        DiarySummaryResponse response = new DiarySummaryResponse();
+        response.setId(view.getId());
+        response.setCategoryId(view.getCategoryId());
+        response.setCreateTime(view.getCreateTime());
+        response.setExcerpt(view.getExcerpt());
+        response.setWordCount(view.getWordCount());
+        response.setImageCount(attachments.size());
+        if (!attachments.isEmpty()) {
+            Attachment first = attachments.get(0);
+            response.setThumbnailUrl(ImageVariants.fit(
+                first.getUrl(), first.getVariantWidths(), ImageVariants.CARD_WIDTH));
+        }
+        return response;
+    }
+    
+    /**
+     * 批量创建响应对象，附件按日记ID分组后依次对应（附件需按创建时间升序）
+     */
+    public static List<DiarySummaryResponse> from(List<DiarySummaryView> views, List<Attachment> attachments) {
+        Map<Long, List<Attachment>> attachmentsByDiary = attachments.stream()
+            .collect(Collectors.groupingBy(Attachment::getDiaryId));
+        return views.stream()
+            .map(view -> from(view, attachmentsByDiary.getOrDefault(view.getId(), Collections.emptyList())))
+            .collect(Collectors.toList());
+    }
+}
@@ -6,7 +6,10 @@ import io.github.uncleacc.yunlog.entity.Diary;
 import lombok.Data;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * 包含附件信息的日记响应DTO
@@ -32,7 +35,12 @@ public class DiaryWithAttachmentsResponse {
     /**
      * 附件列表
      */
-    private List<Attachment> attachments;
+    private List<AttachmentResponse> attachments;
+    
+    /**
+     * 搜索高亮摘要（仅搜索结果返回）
+     */
+    private String highlight;
     
     /**
      * 从 Diary 实体创建响应对象
@@ -47,7 +55,22 @@ public class DiaryWithAttachmentsResponse {
         response.setDeletedTime(diary.getDeletedTime());
         response.setCreateTime(diary.getCreateTime());
         response.setUpdateTime(diary.getUpdateTime());
-        response.setAttachments(attachments);
+        response.setAttachments(attachments.stream()
+            .map(AttachmentResponse::from)
+            .collect(Collectors.toList()));
         return response;
     }
+    
+    /**
+     * 批量创建响应对象
+     * 附件按日记ID分组后挂到对应日记上，没有附件的日记返回空列表
+     */
+    public static List<DiaryWithAttachmentsResponse> from(List<Diary> diaries, List<Attachment> attachments) {
+        Map<Long, List<Attachment>> attachmentMap = attachments.stream()
+            .collect(Collectors.groupingBy(Attachment::getDiaryId));
+        
+        return diaries.stream()
+            .map(diary -> from(diary, attachmentMap.getOrDefault(diary.getId(), Collections.emptyList())))
+            .collect(Collectors.toList());
+    }
 }
@@ -12,7 +12,7 @@ import java.time.LocalDateTime;
  */
 @Data
 @Entity
-@Table(name = "attachments")
+@Table(name = "attachments", indexes = @Index(name = "idx_diary_create", columnList = "diary_id, create_time"))
 public class Attachment {
     
     @Id
@@ -25,6 +25,12 @@ public class Attachment {
     @Column(nullable = false, length = 500)
     private String url;
     
+    /**
+     * 已生成的缩略图宽度，逗号分隔（如 320,640），缩略图地址由原图地址推导
+     */
+    @Column(name = "variant_widths", length = 100)
+    private String variantWidths;
+    
     @Column(name = "create_time", nullable = false)
     @CreationTimestamp
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
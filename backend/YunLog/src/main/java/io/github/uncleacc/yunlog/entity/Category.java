@@ -13,7 +13,10 @@ import java.time.LocalDateTime;
  */
 @Data
 @Entity
-@Table(name = "categories")
+@Table(name = "categories", indexes = {
+    @Index(name = "idx_user_sort", columnList = "user_id, sort_order, create_time"),
+    @Index(name = "idx_user_name", columnList = "user_id, name")
+})
 public class Category {
     
     @Id
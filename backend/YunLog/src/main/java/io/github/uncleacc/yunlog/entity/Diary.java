@@ -13,7 +13,16 @@ import java.time.LocalDateTime;
  */
 @Data
 @Entity
-@Table(name = "diaries")
+@Table(name = "diaries", indexes = {
+    // 时间线、游标分页、统计：user_id + is_deleted 过滤，按 create_time（InnoDB 二级索引隐含主键 id）排序
+    @Index(name = "idx_user_deleted_create", columnList = "user_id, is_deleted, create_time"),
+    // 分类时间线、分类统计、删除分类迁移
+    @Index(name = "idx_user_category_deleted_create", columnList = "user_id, category_id, is_deleted, create_time"),
+    // 垃圾桶列表：按 deleted_time 排序
+    @Index(name = "idx_user_deleted_deleted_time", columnList = "user_id, is_deleted, deleted_time"),
+    // 过期垃圾清理（不区分用户）
+    @Index(name = "idx_deleted_deleted_time", columnList = "is_deleted, deleted_time")
+})
 public class Diary {
     
     @Id
@@ -26,6 +35,18 @@ public class Diary {
     @Column(name = "content_html", columnDefinition = "TEXT")
     private String contentHtml;
     
+    /**
+     * 列表摘要，写入时由正文生成
+     */
+    @Column(length = 200)
+    private String excerpt;
+    
+    /**
+     * 正文字数（不含空白），写入时计算
+     */
+    @Column(name = "word_count")
+    private Integer wordCount;
+    
     @Column(name = "category_id", nullable = false)
     private Long categoryId;
     
@@ -0,0 +1,49 @@
+package io.github.uncleacc.yunlog.entity;
+
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * OSS 对象删除任务（发件箱）
+ * 与业务数据在同一事务中写入，由后台任务批量删除 OSS 对象
+ */
+@Data
+@Entity
+@Table(name = "oss_delete_outbox", indexes = @Index(name = "idx_next_attempt_time", columnList = "next_attempt_time"))
+public class OssDeleteTask {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    /**
+     * 待删除的 OSS 对象名称
+     */
+    @Column(name = "object_name", nullable = false, length = 255)
+    private String objectName;
+    
+    /**
+     * 已尝试次数
+     */
+    @Column(nullable = false)
+    private Integer attempts = 0;
+    
+    /**
+     * 下次尝试时间
+     */
+    @Column(name = "next_attempt_time", nullable = false)
+    private LocalDateTime nextAttemptTime;
+    
+    /**
+     * 最近一次失败原因
+     */
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+    
+    @Column(name = "create_time", nullable = false)
+    @CreationTimestamp
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,70 @@
+package io.github.uncleacc.yunlog.entity;
+
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * OSS 对象索引实体
+ * 按文件内容哈希记录已上传的对象，相同内容的文件共用一个对象；
+ * 引用计数为引用该对象的附件数，上传本身不计入，无引用且超过保留期的对象由定时任务回收
+ */
+@Data
+@Entity
+@Table(name = "oss_objects", indexes = @Index(name = "idx_ref_count_last_used", columnList = "ref_count, last_used_time"))
+public class OssObject {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    /**
+     * 文件内容的 SHA-256 哈希（十六进制）
+     */
+    @Column(name = "content_hash", nullable = false, unique = true, length = 64)
+    private String contentHash;
+    
+    /**
+     * OSS 对象名称
+     */
+    @Column(name = "object_name", nullable = false, unique = true, length = 255)
+    private String objectName;
+    
+    /**
+     * 文件大小（字节）
+     */
+    @Column(nullable = false)
+    private Long size;
+    
+    /**
+     * 引用计数，即引用该对象的附件数：创建附件加一，删除附件减一
+     */
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+    
+    /**
+     * 最近一次上传该内容的用户ID，只有该用户可以丢弃未被附件引用的对象；
+     * 有多次上传时丢弃其中一次会清空，此后只能由定时任务回收
+     */
+    @Column(name = "uploader_id")
+    private Long uploaderId;
+    
+    /**
+     * 尚未丢弃的上传次数：登记时为 1，每次上传命中加一，每次丢弃减一；
+     * 大于 1 时还有其他上传（可能来自其他用户）在使用该对象，丢弃时不删除
+     */
+    @Column(name = "pending_uploads", nullable = false)
+    private Integer pendingUploads;
+    
+    /**
+     * 最近一次上传命中或释放引用的时间，无引用的对象在此之后保留一段时间再回收
+     */
+    @Column(name = "last_used_time", nullable = false)
+    private LocalDateTime lastUsedTime;
+    
+    @Column(name = "create_time", nullable = false)
+    @CreationTimestamp
+    private LocalDateTime createTime;
+}
@@ -1,7 +1,7 @@
 package io.github.uncleacc.yunlog.interceptor;
 
 import io.github.uncleacc.yunlog.context.UserContext;
-import io.github.uncleacc.yunlog.util.JwtUtil;
+import io.github.uncleacc.yunlog.service.TokenService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -18,7 +18,7 @@ import javax.servlet.http.HttpServletResponse;
 @RequiredArgsConstructor
 public class JwtInterceptor implements HandlerInterceptor {
     
-    private final JwtUtil jwtUtil;
+    private final TokenService tokenService;
     
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
@@ -30,27 +30,19 @@ public class JwtInterceptor implements HandlerInterceptor {
         // 获取token
         String token = extractToken(request);
         
-        // 验证token
-        if (token == null || !jwtUtil.validateToken(token)) {
+        // 验证token并解析用户ID（每个请求只验签一次，吊销检查只查本地缓存）
+        Long userId = token == null ? null : tokenService.authenticate(token);
+        if (userId == null) {
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             response.setContentType("application/json;charset=UTF-8");
             response.getWriter().write("{\"error\":\"未授权，请先登录\"}");
             return false;
         }
         
-        // 从token中获取用户ID并设置到上下文
-        try {
-            Long userId = jwtUtil.getUserIdFromToken(token);
-            UserContext.setUserId(userId);
-            log.debug("用户ID {} 通过JWT验证", userId);
-            return true;
-        } catch (Exception e) {
-            log.error("解析token失败", e);
-            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-            response.setContentType("application/json;charset=UTF-8");
-            response.getWriter().write("{\"error\":\"token无效\"}");
-            return false;
-        }
+        // 设置用户上下文
+        UserContext.setUserId(userId);
+        log.debug("用户ID {} 通过JWT验证", userId);
+        return true;
     }
     
     @Override
@@ -0,0 +1,43 @@
+package io.github.uncleacc.yunlog.interceptor;
+
+import io.github.uncleacc.yunlog.metrics.RequestIds;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * 请求ID过滤器 - 沿用上游传入的 X-Request-Id，没有则生成，写入 MDC 并回写到响应头
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestIdFilter extends OncePerRequestFilter {
+    
+    // 上游传入的请求ID最大长度，超出则重新生成
+    private static final int MAX_LENGTH = 64;
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String requestId = request.getHeader(RequestIds.HEADER);
+        if (requestId == null || requestId.isEmpty() || requestId.length() > MAX_LENGTH) {
+            requestId = UUID.randomUUID().toString().replace("-", "");
+        }
+        
+        MDC.put(RequestIds.MDC_KEY, requestId);
+        response.setHeader(RequestIds.HEADER, requestId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(RequestIds.MDC_KEY);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package io.github.uncleacc.yunlog.interceptor;
+
+import io.github.uncleacc.yunlog.metrics.SqlStatementCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 每请求 SQL 语句数统计拦截器
+ * 按接口记录 yunlog.sql.statements.per.request 分布，语句数超过阈值时输出警告，便于发现 N+1 查询
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SqlStatementInterceptor implements HandlerInterceptor {
+    
+    private final SqlStatementCounter sqlStatementCounter;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${yunlog.metrics.sql-warn-threshold:50}")
+    private int warnThreshold;
+    
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        sqlStatementCounter.begin();
+        return true;
+    }
+    
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        int statements = sqlStatementCounter.end();
+        if (statements < 0) {
+            return;
+        }
+        
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        DistributionSummary.builder("yunlog.sql.statements.per.request")
+            .description("每个请求执行的 SQL 语句数")
+            .tag("method", request.getMethod())
+            .tag("uri", uri)
+            .register(meterRegistry)
+            .record(statements);
+        
+        if (statements > warnThreshold) {
+            log.warn("请求执行了 {} 条 SQL: {} {}", statements, request.getMethod(), request.getRequestURI());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package io.github.uncleacc.yunlog.metrics;
+
+import com.aliyun.oss.OSS;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * 为 OSS 客户端的每次调用计时，指标 oss.requests（operation=方法名, outcome=success/error）
+ */
+public class OssClientMetrics implements InvocationHandler {
+    
+    private final OSS target;
+    
+    private final MeterRegistry meterRegistry;
+    
+    private OssClientMetrics(OSS target, MeterRegistry meterRegistry) {
+        this.target = target;
+        this.meterRegistry = meterRegistry;
+    }
+    
+    /**
+     * 包装 OSS 客户端
+     */
+    public static OSS instrument(OSS target, MeterRegistry meterRegistry) {
+        return (OSS) Proxy.newProxyInstance(OSS.class.getClassLoader(),
+            new Class<?>[]{OSS.class}, new OssClientMetrics(target, meterRegistry));
+    }
+    
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class || "shutdown".equals(method.getName())) {
+            return invokeTarget(method, args);
+        }
+        
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return invokeTarget(method, args);
+        } catch (Throwable e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("oss.requests")
+                .description("OSS 请求耗时")
+                .tag("operation", method.getName())
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+        }
+    }
+    
+    private Object invokeTarget(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.uncleacc.yunlog.metrics;
+
+/**
+ * 请求ID常量，由 RequestIdFilter 写入 MDC，日志中通过 %X{requestId} 输出
+ */
+public final class RequestIds {
+    
+    /**
+     * 请求/响应头
+     */
+    public static final String HEADER = "X-Request-Id";
+    
+    /**
+     * MDC 中的 key
+     */
+    public static final String MDC_KEY = "requestId";
+    
+    private RequestIds() {
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.uncleacc.yunlog.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 慢查询监听器
+ * 在执行线程上只做阈值判断和参数拷贝，格式化和写日志交给 slowQueryLogExecutor
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "yunlog.slow-sql.enabled", havingValue = "true", matchIfMissing = true)
+public class SlowQueryListener implements QueryExecutionListener {
+    
+    // 定位调用方时跳过的包（代理、指标本身）
+    private static final String APP_PACKAGE = "io.github.uncleacc.yunlog.";
+    private static final String METRICS_PACKAGE = "io.github.uncleacc.yunlog.metrics.";
+    
+    @Value("${yunlog.slow-sql.threshold-ms:200}")
+    private long thresholdMillis;
+    
+    @Value("${yunlog.slow-sql.sample-rate:0}")
+    private double sampleRate;
+    
+    @Value("${yunlog.slow-sql.max-param-length:100}")
+    private int maxParamLength;
+    
+    private final ThreadPoolTaskExecutor slowQueryLogExecutor;
+    
+    private final Counter slowQueries;
+    
+    public SlowQueryListener(ThreadPoolTaskExecutor slowQueryLogExecutor, MeterRegistry meterRegistry) {
+        this.slowQueryLogExecutor = slowQueryLogExecutor;
+        this.slowQueries = Counter.builder("yunlog.sql.slow")
+            .description("超过阈值的 SQL 语句数")
+            .register(meterRegistry);
+    }
+    
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+    
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsed = execInfo.getElapsedTime();
+        boolean slow = elapsed >= thresholdMillis;
+        if (slow) {
+            slowQueries.increment();
+        } else if (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        
+        // 参数对象在语句关闭后可能被清空，需要在当前线程拷贝
+        String statements = describe(queryInfoList);
+        String requestId = MDC.get(RequestIds.MDC_KEY);
+        String caller = findCaller();
+        boolean success = execInfo.isSuccess();
+        slowQueryLogExecutor.execute(() -> {
+            if (slow) {
+                log.warn("慢SQL {}ms [requestId={}, caller={}, success={}] {}", elapsed, requestId, caller, success, statements);
+            } else {
+                log.info("SQL采样 {}ms [requestId={}, caller={}, success={}] {}", elapsed, requestId, caller, success, statements);
+            }
+        });
+    }
+    
+    private String describe(List<QueryInfo> queryInfoList) {
+        StringBuilder builder = new StringBuilder();
+        for (QueryInfo queryInfo : queryInfoList) {
+            if (builder.length() > 0) {
+                builder.append(" ; ");
+            }
+            builder.append(queryInfo.getQuery());
+            List<List<ParameterSetOperation>> parametersList = queryInfo.getParametersList();
+            for (List<ParameterSetOperation> parameters : parametersList) {
+                builder.append(" [");
+                for (int i = 0; i < parameters.size(); i++) {
+                    Object[] args = parameters.get(i).getArgs();
+                    if (i > 0) {
+                        builder.append(", ");
+                    }
+                    builder.append(args.length > 1 ? truncate(args[1]) : "");
+                }
+                builder.append(']');
+            }
+        }
+        return builder.toString();
+    }
+    
+    private String truncate(Object value) {
+        String text = String.valueOf(value);
+        return text.length() > maxParamLength ? text.substring(0, maxParamLength) + "..." : text;
+    }
+    
+    /**
+     * 调用栈中第一个项目代码的位置（跳过 Spring/Hibernate/代理类）
+     */
+    private String findCaller() {
+        for (StackTraceElement element : Thread.currentThread().getStackTrace()) {
+            String className = element.getClassName();
+            if (className.startsWith(APP_PACKAGE) && !className.startsWith(METRICS_PACKAGE) && !className.contains("$$")) {
+                return className.substring(APP_PACKAGE.length()) + "." + element.getMethodName() + ":" + element.getLineNumber();
+            }
+        }
+        return "unknown";
+    }
+}
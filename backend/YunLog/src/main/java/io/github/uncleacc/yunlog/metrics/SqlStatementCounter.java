@@ -0,0 +1,50 @@
+package io.github.uncleacc.yunlog.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/**
+ * SQL 语句计数
+ * 作为 Hibernate StatementInspector 注册，统计全部语句数，并为当前请求线程单独计数（由 SqlStatementInterceptor 开启和读取）
+ */
+@Component
+public class SqlStatementCounter implements StatementInspector {
+    
+    private static final ThreadLocal<int[]> REQUEST_COUNT = new ThreadLocal<>();
+    
+    private final Counter totalStatements;
+    
+    public SqlStatementCounter(MeterRegistry meterRegistry) {
+        this.totalStatements = Counter.builder("yunlog.sql.statements")
+            .description("执行的 SQL 语句总数")
+            .register(meterRegistry);
+    }
+    
+    @Override
+    public String inspect(String sql) {
+        totalStatements.increment();
+        int[] count = REQUEST_COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+    
+    /**
+     * 开始为当前线程计数
+     */
+    public void begin() {
+        REQUEST_COUNT.set(new int[1]);
+    }
+    
+    /**
+     * 结束当前线程的计数并返回语句数，未开始计数时返回 -1
+     */
+    public int end() {
+        int[] count = REQUEST_COUNT.get();
+        REQUEST_COUNT.remove();
+        return count == null ? -1 : count[0];
+    }
+}
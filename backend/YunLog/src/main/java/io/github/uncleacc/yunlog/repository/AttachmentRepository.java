@@ -2,8 +2,13 @@ package io.github.uncleacc.yunlog.repository;
 
 import io.github.uncleacc.yunlog.entity.Attachment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -17,13 +22,35 @@ public interface AttachmentRepository extends JpaRepository<Attachment, Long> {
      */
     List<Attachment> findByDiaryIdOrderByCreateTimeAsc(Long diaryId);
     
+    /**
+     * 根据多个日记ID批量查找附件（用于列表页一次性加载）
+     */
+    List<Attachment> findByDiaryIdInOrderByCreateTimeAsc(Collection<Long> diaryIds);
+    
     /**
      * 根据日记ID删除所有附件
      */
     void deleteByDiaryId(Long diaryId);
     
+    /**
+     * 根据多个日记ID批量删除附件
+     * 
+     * @return 删除的行数
+     */
+    @Modifying
+    @Query("DELETE FROM Attachment a WHERE a.diaryId IN :diaryIds")
+    int deleteByDiaryIdIn(@Param("diaryIds") Collection<Long> diaryIds);
+    
     /**
      * 统计指定日记的附件数量
      */
     long countByDiaryId(Long diaryId);
+    
+    /**
+     * 记录已生成的缩略图宽度
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Attachment a SET a.variantWidths = :variantWidths WHERE a.id = :id")
+    int updateVariantWidths(@Param("id") Long id, @Param("variantWidths") String variantWidths);
 }
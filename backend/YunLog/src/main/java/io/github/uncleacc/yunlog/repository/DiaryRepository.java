@@ -4,11 +4,13 @@ import io.github.uncleacc.yunlog.entity.Diary;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,6 +30,86 @@ public interface DiaryRepository extends JpaRepository<Diary, Long> {
      */
     Page<Diary> findByUserIdAndCategoryIdAndIsDeletedFalseOrderByCreateTimeDesc(Long userId, Long categoryId, Pageable pageable);
     
+    /**
+     * 游标分页首页（未删除）- 按用户ID过滤，不统计总数
+     */
+    List<Diary> findByUserIdAndIsDeletedFalseOrderByCreateTimeDescIdDesc(Long userId, Pageable pageable);
+    
+    /**
+     * 游标分页首页（未删除）- 按用户ID和分类ID过滤，不统计总数
+     */
+    List<Diary> findByUserIdAndCategoryIdAndIsDeletedFalseOrderByCreateTimeDescIdDesc(Long userId, Long categoryId, Pageable pageable);
+    
+    /**
+     * 游标分页：查询 (createTime, id) 早于游标位置的日记（未删除）
+     */
+    @Query("SELECT d FROM Diary d WHERE d.userId = :userId AND d.isDeleted = false AND " +
+           "(d.createTime < :createTime OR (d.createTime = :createTime AND d.id < :id)) " +
+           "ORDER BY d.createTime DESC, d.id DESC")
+    List<Diary> findTimelineBefore(@Param("userId") Long userId,
+                                   @Param("createTime") LocalDateTime createTime,
+                                   @Param("id") Long id,
+                                   Pageable pageable);
+    
+    /**
+     * 游标分页：查询分类下 (createTime, id) 早于游标位置的日记（未删除）
+     */
+    @Query("SELECT d FROM Diary d WHERE d.userId = :userId AND d.categoryId = :categoryId AND d.isDeleted = false AND " +
+           "(d.createTime < :createTime OR (d.createTime = :createTime AND d.id < :id)) " +
+           "ORDER BY d.createTime DESC, d.id DESC")
+    List<Diary> findCategoryTimelineBefore(@Param("userId") Long userId,
+                                           @Param("categoryId") Long categoryId,
+                                           @Param("createTime") LocalDateTime createTime,
+                                           @Param("id") Long id,
+                                           Pageable pageable);
+    
+    /**
+     * 分页查询日记摘要（未删除）- 按用户ID过滤
+     */
+    Page<DiarySummaryView> findSummaryByUserIdAndIsDeletedFalseOrderByCreateTimeDesc(Long userId, Pageable pageable);
+    
+    /**
+     * 根据分类ID分页查询日记摘要（未删除）- 按用户ID过滤
+     */
+    Page<DiarySummaryView> findSummaryByUserIdAndCategoryIdAndIsDeletedFalseOrderByCreateTimeDesc(Long userId, Long categoryId, Pageable pageable);
+    
+    /**
+     * 游标分页首页的日记摘要（未删除）- 按用户ID过滤
+     */
+    List<DiarySummaryView> findSummaryByUserIdAndIsDeletedFalseOrderByCreateTimeDescIdDesc(Long userId, Pageable pageable);
+    
+    /**
+     * 游标分页首页的日记摘要（未删除）- 按用户ID和分类ID过滤
+     */
+    List<DiarySummaryView> findSummaryByUserIdAndCategoryIdAndIsDeletedFalseOrderByCreateTimeDescIdDesc(Long userId, Long categoryId, Pageable pageable);
+    
+    /**
+     * 游标分页：查询 (createTime, id) 早于游标位置的日记摘要（未删除）
+     */
+    @Query("SELECT d.id AS id, d.categoryId AS categoryId, d.createTime AS createTime, " +
+           "d.excerpt AS excerpt, d.wordCount AS wordCount FROM Diary d " +
+           "WHERE d.userId = :userId AND d.isDeleted = false AND " +
+           "(d.createTime < :createTime OR (d.createTime = :createTime AND d.id < :id)) " +
+           "ORDER BY d.createTime DESC, d.id DESC")
+    List<DiarySummaryView> findSummaryTimelineBefore(@Param("userId") Long userId,
+                                                     @Param("createTime") LocalDateTime createTime,
+                                                     @Param("id") Long id,
+                                                     Pageable pageable);
+    
+    /**
+     * 游标分页：查询分类下 (createTime, id) 早于游标位置的日记摘要（未删除）
+     */
+    @Query("SELECT d.id AS id, d.categoryId AS categoryId, d.createTime AS createTime, " +
+           "d.excerpt AS excerpt, d.wordCount AS wordCount FROM Diary d " +
+           "WHERE d.userId = :userId AND d.categoryId = :categoryId AND d.isDeleted = false AND " +
+           "(d.createTime < :createTime OR (d.createTime = :createTime AND d.id < :id)) " +
+           "ORDER BY d.createTime DESC, d.id DESC")
+    List<DiarySummaryView> findSummaryCategoryTimelineBefore(@Param("userId") Long userId,
+                                                             @Param("categoryId") Long categoryId,
+                                                             @Param("createTime") LocalDateTime createTime,
+                                                             @Param("id") Long id,
+                                                             Pageable pageable);
+    
     /**
      * 根据日记ID查找日记（未删除）
      */
@@ -59,9 +141,57 @@ public interface DiaryRepository extends JpaRepository<Diary, Long> {
     Optional<Diary> findFirstByCategoryIdAndIsDeletedFalseOrderByCreateTimeDesc(Long categoryId);
     
     /**
-     * 根据分类ID查找所有日记（包括已删除和未删除）
+     * 查找用户某分类下最近的日记
+     */
+    Optional<Diary> findFirstByUserIdAndCategoryIdAndIsDeletedFalseOrderByCreateTimeDescIdDesc(Long userId, Long categoryId);
+    
+    /**
+     * 按分类统计用户日记数量（未删除），返回 [分类ID, 数量]
+     */
+    @Query("SELECT d.categoryId, COUNT(d) FROM Diary d WHERE d.userId = :userId AND d.isDeleted = false " +
+           "GROUP BY d.categoryId")
+    List<Object[]> countByCategory(@Param("userId") Long userId);
+    
+    /**
+     * 查询用户指定时间之后的日记分类和时间（未删除），返回 [分类ID, 创建时间]
+     */
+    @Query("SELECT d.categoryId, d.createTime FROM Diary d WHERE d.userId = :userId AND d.isDeleted = false " +
+           "AND d.createTime >= :since")
+    List<Object[]> findCategoryAndCreateTimeSince(@Param("userId") Long userId, @Param("since") LocalDateTime since);
+    
+    /**
+     * 查询用户各分类最近的日记（未删除），返回 [分类ID, 日记ID, 创建时间]
+     */
+    @Query("SELECT d.categoryId, d.id, d.createTime FROM Diary d WHERE d.userId = :userId AND d.isDeleted = false " +
+           "AND d.createTime = (SELECT MAX(d2.createTime) FROM Diary d2 WHERE d2.userId = d.userId " +
+           "AND d2.categoryId = d.categoryId AND d2.isDeleted = false)")
+    List<Object[]> findLatestPerCategory(@Param("userId") Long userId);
+    
+    /**
+     * 将分类下未删除的日记移到垃圾桶并迁移到目标分类，每次最多处理 limit 条
+     * 
+     * @return 更新的行数
+     */
+    @Modifying
+    @Query(value = "UPDATE diaries SET category_id = :targetCategoryId, is_deleted = 1, deleted_time = :now, update_time = :now " +
+                   "WHERE user_id = :userId AND category_id = :categoryId AND is_deleted = 0 LIMIT :limit",
+           nativeQuery = true)
+    int moveCategoryToTrash(@Param("userId") Long userId, @Param("categoryId") Long categoryId,
+                            @Param("targetCategoryId") Long targetCategoryId, @Param("now") LocalDateTime now,
+                            @Param("limit") int limit);
+    
+    /**
+     * 将分类下已在垃圾桶的日记迁移到目标分类，每次最多处理 limit 条
+     * 
+     * @return 更新的行数
      */
-    List<Diary> findByCategoryId(Long categoryId);
+    @Modifying
+    @Query(value = "UPDATE diaries SET category_id = :targetCategoryId, update_time = :now " +
+                   "WHERE user_id = :userId AND category_id = :categoryId AND is_deleted = 1 LIMIT :limit",
+           nativeQuery = true)
+    int moveCategoryTrash(@Param("userId") Long userId, @Param("categoryId") Long categoryId,
+                          @Param("targetCategoryId") Long targetCategoryId, @Param("now") LocalDateTime now,
+                          @Param("limit") int limit);
     
     /**
      * 搜索日记（内容）- 按用户ID过滤
@@ -71,6 +201,18 @@ public interface DiaryRepository extends JpaRepository<Diary, Long> {
            "ORDER BY d.createTime DESC")
     Page<Diary> searchDiaries(@Param("userId") Long userId, @Param("keyword") String keyword, Pageable pageable);
     
+    /**
+     * 全文检索日记（内容）- 按用户ID过滤，按相关度排序
+     * 依赖 diaries.content 上的 ngram 全文索引
+     */
+    @Query(value = "SELECT * FROM diaries d WHERE d.user_id = :userId AND d.is_deleted = 0 AND " +
+                   "MATCH(d.content) AGAINST(:query IN BOOLEAN MODE) " +
+                   "ORDER BY MATCH(d.content) AGAINST(:query IN BOOLEAN MODE) DESC, d.create_time DESC",
+           countQuery = "SELECT COUNT(*) FROM diaries d WHERE d.user_id = :userId AND d.is_deleted = 0 AND " +
+                        "MATCH(d.content) AGAINST(:query IN BOOLEAN MODE)",
+           nativeQuery = true)
+    Page<Diary> fullTextSearchDiaries(@Param("userId") Long userId, @Param("query") String query, Pageable pageable);
+    
     /**
      * 根据时间范围查询日记
      */
@@ -81,8 +223,70 @@ public interface DiaryRepository extends JpaRepository<Diary, Long> {
                                        Pageable pageable);
     
     /**
-     * 清理过期的垃圾桶日记
+     * 按ID顺序分批查询过期的垃圾桶日记ID
+     */
+    @Query("SELECT d.id FROM Diary d WHERE d.isDeleted = true AND d.deletedTime < :expireTime AND d.id > :afterId " +
+           "ORDER BY d.id ASC")
+    List<Long> findExpiredTrashIds(@Param("expireTime") LocalDateTime expireTime,
+                                   @Param("afterId") Long afterId,
+                                   Pageable pageable);
+    
+    /**
+     * 在清理事务中重新校验并锁定仍在垃圾桶且已过期的日记，期间被恢复的日记不在结果中
+     * 锁持有到事务结束，恢复操作需等待清理提交
+     * 
+     * @return 锁定的日记ID（BIGINT 映射为数值类型）
+     */
+    @Query(value = "SELECT id FROM diaries WHERE id IN :ids AND is_deleted = 1 AND deleted_time < :expireTime FOR UPDATE",
+           nativeQuery = true)
+    List<Number> lockExpiredTrashIds(@Param("ids") Collection<Long> ids, @Param("expireTime") LocalDateTime expireTime);
+    
+    /**
+     * 批量删除过期的垃圾桶日记（重新校验过期条件，期间被恢复的日记不会被删除）
+     * 
+     * @return 删除的行数
+     */
+    @Modifying
+    @Query("DELETE FROM Diary d WHERE d.isDeleted = true AND d.deletedTime < :expireTime AND d.id IN :ids")
+    int deleteExpiredTrash(@Param("ids") Collection<Long> ids, @Param("expireTime") LocalDateTime expireTime);
+    
+    /**
+     * 查找删除时间最早的垃圾桶日记
+     */
+    Optional<Diary> findFirstByIsDeletedTrueAndDeletedTimeNotNullOrderByDeletedTimeAsc();
+    
+    /**
+     * 批量移到垃圾桶 - 按用户ID过滤
+     * 
+     * @return 更新的行数
+     */
+    @Modifying
+    @Query("UPDATE Diary d SET d.isDeleted = true, d.deletedTime = :now, d.updateTime = :now " +
+           "WHERE d.userId = :userId AND d.isDeleted = false AND d.id IN :ids")
+    int moveToTrash(@Param("userId") Long userId, @Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
+    /**
+     * 批量从垃圾桶恢复 - 按用户ID过滤
+     * 
+     * @return 更新的行数
+     */
+    @Modifying
+    @Query("UPDATE Diary d SET d.isDeleted = false, d.deletedTime = null, d.updateTime = :now " +
+           "WHERE d.userId = :userId AND d.isDeleted = true AND d.id IN :ids")
+    int restoreFromTrash(@Param("userId") Long userId, @Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
+    /**
+     * 按ID顺序分批查询垃圾桶中的日记ID - 按用户ID过滤
+     */
+    @Query("SELECT d.id FROM Diary d WHERE d.userId = :userId AND d.isDeleted = true AND d.id > :afterId ORDER BY d.id ASC")
+    List<Long> findTrashIds(@Param("userId") Long userId, @Param("afterId") Long afterId, Pageable pageable);
+    
+    /**
+     * 批量永久删除垃圾桶中的日记 - 按用户ID过滤
+     * 
+     * @return 删除的行数
      */
-    @Query("DELETE FROM Diary d WHERE d.isDeleted = true AND d.deletedTime < :expireTime")
-    void deleteExpiredTrashDiaries(@Param("expireTime") LocalDateTime expireTime);
-}
\ No newline at end of file
+    @Modifying
+    @Query("DELETE FROM Diary d WHERE d.userId = :userId AND d.isDeleted = true AND d.id IN :ids")
+    int deleteTrash(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,19 @@
+package io.github.uncleacc.yunlog.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * 日记摘要投影，列表只查询这些列，不读取正文
+ */
+public interface DiarySummaryView {
+    
+    Long getId();
+    
+    Long getCategoryId();
+    
+    LocalDateTime getCreateTime();
+    
+    String getExcerpt();
+    
+    Integer getWordCount();
+}
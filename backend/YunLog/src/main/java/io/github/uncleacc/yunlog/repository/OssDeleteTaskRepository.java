@@ -0,0 +1,44 @@
+package io.github.uncleacc.yunlog.repository;
+
+import io.github.uncleacc.yunlog.entity.OssDeleteTask;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * OSS 删除任务数据访问层
+ */
+@Repository
+public interface OssDeleteTaskRepository extends JpaRepository<OssDeleteTask, Long> {
+    
+    /**
+     * 查找已到执行时间的删除任务
+     */
+    List<OssDeleteTask> findByNextAttemptTimeLessThanEqualOrderByIdAsc(LocalDateTime now, Pageable pageable);
+    
+    /**
+     * 统计失败过的删除任务数量
+     */
+    long countByAttemptsGreaterThan(Integer attempts);
+    
+    /**
+     * 记录删除失败并安排下次重试（只更新重试相关字段）
+     * 
+     * @return 更新的行数
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE OssDeleteTask t SET t.attempts = t.attempts + 1, t.nextAttemptTime = :nextAttemptTime, " +
+           "t.lastError = :lastError WHERE t.id IN :ids")
+    int scheduleRetry(@Param("ids") Collection<Long> ids,
+                      @Param("nextAttemptTime") LocalDateTime nextAttemptTime,
+                      @Param("lastError") String lastError);
+}
@@ -0,0 +1,113 @@
+package io.github.uncleacc.yunlog.repository;
+
+import io.github.uncleacc.yunlog.entity.OssObject;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * OSS 对象索引数据访问层
+ */
+@Repository
+public interface OssObjectRepository extends JpaRepository<OssObject, Long> {
+    
+    /**
+     * 根据内容哈希查找对象
+     */
+    Optional<OssObject> findByContentHash(String contentHash);
+    
+    /**
+     * 根据对象名称查找对象
+     */
+    Optional<OssObject> findByObjectName(String objectName);
+    
+    /**
+     * 根据对象名称批量查找已登记的对象名称
+     */
+    @Query("SELECT o.objectName FROM OssObject o WHERE o.objectName IN :objectNames")
+    List<String> findObjectNamesIn(@Param("objectNames") Collection<String> objectNames);
+    
+    /**
+     * 上传命中已有对象时记录使用者、使用时间并增加未丢弃的上传次数
+     * 与回收任务的删除语句在同一行上互斥，更新成功后对象在保留期内不会被回收
+     * 
+     * @return 更新的行数，0 表示对象不存在或已被回收
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE OssObject o SET o.uploaderId = :uploaderId, o.lastUsedTime = :now, " +
+           "o.pendingUploads = o.pendingUploads + 1 WHERE o.contentHash = :contentHash")
+    int touch(@Param("contentHash") String contentHash, @Param("uploaderId") Long uploaderId, @Param("now") LocalDateTime now);
+    
+    /**
+     * 增加引用计数（创建附件时调用）
+     * 
+     * @return 更新的行数，0 表示对象未登记到索引
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE OssObject o SET o.refCount = o.refCount + 1 WHERE o.objectName = :objectName")
+    int incrementRefCount(@Param("objectName") String objectName);
+    
+    /**
+     * 批量减少引用计数（删除附件时调用），每个对象减少相同的数量，同时刷新使用时间，
+     * 归零的对象从此时开始计算保留期
+     * 
+     * @return 更新的行数
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE OssObject o SET o.refCount = CASE WHEN o.refCount > :count THEN (o.refCount - :count) ELSE 0 END, " +
+           "o.lastUsedTime = :now WHERE o.objectName IN :objectNames AND o.refCount > 0")
+    int decrementRefCounts(@Param("objectNames") Collection<String> objectNames,
+                           @Param("count") int count,
+                           @Param("now") LocalDateTime now);
+    
+    /**
+     * 查找无引用且超过保留期的对象名称
+     */
+    @Query("SELECT o.objectName FROM OssObject o WHERE o.refCount = 0 AND o.lastUsedTime < :expireTime ORDER BY o.id")
+    List<String> findUnreferencedObjectNames(@Param("expireTime") LocalDateTime expireTime, Pageable pageable);
+    
+    /**
+     * 删除无引用且超过保留期的对象记录，查询之后又被引用或上传命中的对象不会删除
+     * 
+     * @return 删除的行数，1 表示调用方需要删除 OSS 对象
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OssObject o WHERE o.objectName = :objectName AND o.refCount = 0 AND o.lastUsedTime < :expireTime")
+    int deleteUnreferenced(@Param("objectName") String objectName, @Param("expireTime") LocalDateTime expireTime);
+    
+    /**
+     * 删除调用者上传、尚未被附件引用、也没有其他未丢弃上传的对象记录
+     * 
+     * @return 删除的行数，1 表示调用方需要删除 OSS 对象
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OssObject o WHERE o.objectName = :objectName AND o.refCount = 0 " +
+           "AND o.pendingUploads <= 1 AND o.uploaderId = :uploaderId")
+    int deleteUnattached(@Param("objectName") String objectName, @Param("uploaderId") Long uploaderId);
+    
+    /**
+     * 丢弃调用者的一次上传但保留对象（还有其他未丢弃的上传）
+     * 同时清空 uploaderId，之后任何人都不能再直接删除，对象无引用时由定时任务回收
+     * 
+     * @return 更新的行数
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE OssObject o SET o.pendingUploads = o.pendingUploads - 1, o.uploaderId = NULL " +
+           "WHERE o.objectName = :objectName AND o.pendingUploads > 1 AND o.uploaderId = :uploaderId")
+    int discardPendingUpload(@Param("objectName") String objectName, @Param("uploaderId") Long uploaderId);
+}
@@ -2,8 +2,12 @@ package io.github.uncleacc.yunlog.repository;
 
 import io.github.uncleacc.yunlog.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 /**
@@ -36,4 +40,26 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * 检查手机号是否已存在
      */
     boolean existsByPhone(String phone);
+    
+    /**
+     * 按手机号插入新用户，唯一键冲突时不修改已有行（id = id）
+     * 手机号已存在（包括并发请求已插入）时调用方重新查询到已有用户；用户名冲突时按手机号查询不到用户，由调用方更换用户名重试。
+     * 与 INSERT IGNORE 不同，数据错误不会被吞掉。驱动默认返回匹配行数，冲突时也返回1，因此不返回影响行数
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user (username, phone, status, create_time, update_time) " +
+                   "VALUES (:username, :phone, 1, :now, :now) ON DUPLICATE KEY UPDATE id = id",
+           nativeQuery = true)
+    void insertByPhone(@Param("username") String username, @Param("phone") String phone,
+                       @Param("now") LocalDateTime now);
+    
+    /**
+     * 按微信OpenID插入新用户，唯一键冲突时不修改已有行，语义同 {@link #insertByPhone}
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user (username, wechat_openid, status, create_time, update_time) " +
+                   "VALUES (:username, :openid, 1, :now, :now) ON DUPLICATE KEY UPDATE id = id",
+           nativeQuery = true)
+    void insertByWechatOpenid(@Param("username") String username, @Param("openid") String openid,
+                              @Param("now") LocalDateTime now);
 }
@@ -5,12 +5,18 @@ import io.github.uncleacc.yunlog.entity.Attachment;
 import io.github.uncleacc.yunlog.exception.BusinessException;
 import io.github.uncleacc.yunlog.repository.AttachmentRepository;
 import io.github.uncleacc.yunlog.repository.DiaryRepository;
+import io.github.uncleacc.yunlog.util.ImageVariants;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 附件服务
@@ -23,6 +29,8 @@ public class AttachmentService {
     private final AttachmentRepository attachmentRepository;
     private final DiaryRepository diaryRepository;
     private final OssService ossService;
+    private final ImageVariantService imageVariantService;
+    private final OssDeleteOutboxService ossDeleteOutboxService;
     
     /**
      * 根据日记ID获取附件列表
@@ -58,7 +66,10 @@ public class AttachmentService {
         attachment.setDiaryId(request.getDiaryId());
         attachment.setUrl(request.getUrl());
         
-        return attachmentRepository.save(attachment);
+        Attachment saved = attachmentRepository.save(attachment);
+        retain(saved.getUrl());
+        imageVariantService.generateAsync(Collections.singletonList(saved));
+        return saved;
     }
     
     /**
@@ -71,7 +82,7 @@ public class AttachmentService {
             throw new BusinessException(404, "日记不存在");
         }
         
-        List<Attachment> attachments = new java.util.ArrayList<>();
+        List<Attachment> attachments = new ArrayList<>();
         for (String url : urls) {
             Attachment attachment = new Attachment();
             attachment.setDiaryId(diaryId);
@@ -79,7 +90,12 @@ public class AttachmentService {
             attachments.add(attachment);
         }
         
-        return attachmentRepository.saveAll(attachments);
+        List<Attachment> saved = attachmentRepository.saveAll(attachments);
+        for (Attachment attachment : saved) {
+            retain(attachment.getUrl());
+        }
+        imageVariantService.generateAsync(saved);
+        return saved;
     }
     
     /**
@@ -89,13 +105,8 @@ public class AttachmentService {
     public void deleteAttachment(Long id) {
         Attachment attachment = getAttachmentById(id);
         
-        // 先从 OSS 删除文件
-        try {
-            ossService.deleteFile(attachment.getUrl());
-        } catch (Exception e) {
-            log.error("删除 OSS 文件失败: {}", attachment.getUrl(), e);
-            // 继续删除数据库记录
-        }
+        // 登记删除 OSS 文件，与数据库记录在同一事务中提交
+        enqueueOssDelete(Collections.singletonList(attachment));
         
         // 再删除数据库记录
         attachmentRepository.delete(attachment);
@@ -106,20 +117,27 @@ public class AttachmentService {
      */
     @Transactional
     public void deleteAttachmentsByDiaryId(Long diaryId) {
+        deleteAttachmentsByDiaryIds(Collections.singletonList(diaryId));
+    }
+    
+    /**
+     * 根据多个日记ID批量删除附件
+     * 
+     * @return 删除的附件数量
+     */
+    @Transactional
+    public int deleteAttachmentsByDiaryIds(Collection<Long> diaryIds) {
         // 先查询所有附件
-        List<Attachment> attachments = attachmentRepository.findByDiaryIdOrderByCreateTimeAsc(diaryId);
-        
-        // 从 OSS 删除所有文件
-        for (Attachment attachment : attachments) {
-            try {
-                ossService.deleteFile(attachment.getUrl());
-            } catch (Exception e) {
-                log.error("删除 OSS 文件失败: {}", attachment.getUrl(), e);
-            }
+        List<Attachment> attachments = attachmentRepository.findByDiaryIdInOrderByCreateTimeAsc(diaryIds);
+        if (attachments.isEmpty()) {
+            return 0;
         }
         
+        // 登记删除 OSS 文件
+        enqueueOssDelete(attachments);
+        
         // 再删除数据库记录
-        attachmentRepository.deleteByDiaryId(diaryId);
+        return attachmentRepository.deleteByDiaryIdIn(diaryIds);
     }
     
     /**
@@ -127,8 +145,47 @@ public class AttachmentService {
      */
     @Transactional
     public void batchDeleteAttachments(List<Long> ids) {
-        for (Long id : ids) {
-            deleteAttachment(id);
+        List<Attachment> attachments = attachmentRepository.findAllById(ids);
+        if (attachments.size() != new HashSet<>(ids).size()) {
+            throw new BusinessException(404, "附件不存在");
+        }
+        
+        enqueueOssDelete(attachments);
+        attachmentRepository.deleteAllInBatch(attachments);
+    }
+    
+    /**
+     * 增加附件对原图的引用；文件已被丢弃或回收时回滚整个事务，避免附件指向已删除的对象
+     */
+    private void retain(String url) {
+        if (ossService.retain(url) == 0) {
+            log.warn("附件引用的文件不存在或已被回收: {}", url);
+            throw new BusinessException(409, "图片已失效，请重新上传");
+        }
+    }
+    
+    /**
+     * 释放附件对原图的引用（批量更新对象索引）；未登记到对象索引的历史文件直接登记删除原图及其缩略图，
+     * 由发件箱异步删除；已登记的对象由 OssService 在无引用且超过保留期后回收
+     */
+    private void enqueueOssDelete(List<Attachment> attachments) {
+        List<String> urls = new ArrayList<>(attachments.size());
+        for (Attachment attachment : attachments) {
+            urls.add(attachment.getUrl());
+        }
+        Set<String> unregistered = ossService.release(urls);
+        
+        List<String> objectNames = new ArrayList<>();
+        for (Attachment attachment : attachments) {
+            String objectName = ossService.extractObjectName(attachment.getUrl());
+            if (!unregistered.contains(objectName)) {
+                continue;
+            }
+            objectNames.add(objectName);
+            for (Integer width : ImageVariants.parseWidths(attachment.getVariantWidths())) {
+                objectNames.add(ImageVariants.variantOf(objectName, width));
+            }
         }
+        ossDeleteOutboxService.enqueue(objectNames);
     }
 }
@@ -22,4 +22,20 @@ public interface AuthService {
      * @return 认证响应（包含token和用户信息）
      */
     AuthResponse wechatLogin(WechatLoginRequest request);
+    
+    /**
+     * 刷新token（旧刷新token立即失效）
+     * 
+     * @param request 刷新token请求
+     * @return 认证响应（包含新的token，不含用户信息）
+     */
+    AuthResponse refreshToken(RefreshTokenRequest request);
+    
+    /**
+     * 退出登录，吊销用户在所有设备上的token
+     * 
+     * @param refreshToken 刷新令牌（可为空）
+     * @param accessToken 访问token（可为空）
+     */
+    void logout(String refreshToken, String accessToken);
 }
@@ -0,0 +1,186 @@
+package io.github.uncleacc.yunlog.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.uncleacc.yunlog.entity.Category;
+import io.github.uncleacc.yunlog.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 分类缓存服务
+ * 按用户缓存分类列表：可选的本地一级缓存 -> Redis -> MySQL，分类变更时整体失效
+ * 
+ * 每个用户另有一个版本号（category:list:gen:{userId}），失效时递增；未命中时先读版本号再查库，
+ * 回填时版本号已变化说明查询期间有分类变更提交，放弃回填，避免旧列表在Redis中保留整个TTL
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CategoryCacheService {
+    
+    // 分类列表在Redis中的key前缀
+    private static final String CATEGORY_LIST_PREFIX = "category:list:";
+    
+    // 分类列表版本号在Redis中的key前缀
+    private static final String GEN_PREFIX = "category:list:gen:";
+    
+    private static final TypeReference<List<Category>> CATEGORY_LIST_TYPE = new TypeReference<List<Category>>() {};
+    
+    /**
+     * 递增版本号（刷新其过期时间）并删除分类列表
+     * KEYS: 分类列表, 版本号；ARGV: 版本号过期时间ms
+     */
+    private static final DefaultRedisScript<Long> EVICT_SCRIPT = new DefaultRedisScript<>(
+        "redis.call('incr', KEYS[2]) redis.call('pexpire', KEYS[2], ARGV[1]) " +
+        "return redis.call('del', KEYS[1])",
+        Long.class);
+    
+    /**
+     * 回填分类列表：版本号仍是查库前读到的值才写入，否则放弃
+     * KEYS: 分类列表, 版本号；ARGV: 查库前的版本号（不存在为 0）, 列表JSON, 过期时间ms
+     */
+    private static final DefaultRedisScript<Long> FILL_SCRIPT = new DefaultRedisScript<>(
+        "if (redis.call('get', KEYS[2]) or '0') ~= ARGV[1] then return 0 end " +
+        "redis.call('set', KEYS[1], ARGV[2], 'PX', ARGV[3]) " +
+        "return 1",
+        Long.class);
+    
+    @Value("${yunlog.cache.category.ttl:30m}")
+    private Duration ttl;
+    
+    @Value("${yunlog.cache.category.local-enabled:false}")
+    private boolean localEnabled;
+    
+    @Value("${yunlog.cache.category.local-ttl:10s}")
+    private Duration localTtl;
+    
+    @Value("${yunlog.cache.category.local-max-size:10000}")
+    private long localMaxSize;
+    
+    private final CategoryRepository categoryRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    
+    private Cache<Long, List<Category>> localCache;
+    
+    @PostConstruct
+    public void init() {
+        if (localEnabled) {
+            localCache = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .build();
+            log.info("分类本地缓存已启用: ttl={}, maxSize={}", localTtl, localMaxSize);
+        }
+    }
+    
+    /**
+     * 获取用户的分类列表（按排序）
+     */
+    public List<Category> getCategories(Long userId) {
+        if (localCache != null) {
+            return localCache.get(userId, this::loadFromRedis);
+        }
+        return loadFromRedis(userId);
+    }
+    
+    /**
+     * 查找属于指定用户的分类
+     * 缓存中没有时回查数据库：其他实例的本地缓存在失效前可能还是旧列表，刚创建的分类不能因此返回不存在
+     */
+    public Optional<Category> findOwned(Long userId, Long categoryId) {
+        Optional<Category> cached = getCategories(userId).stream()
+            .filter(category -> category.getId().equals(categoryId))
+            .findFirst();
+        if (cached.isPresent()) {
+            return cached;
+        }
+        
+        Optional<Category> owned = categoryRepository.findById(categoryId)
+            .filter(category -> category.getUserId().equals(userId));
+        if (owned.isPresent()) {
+            log.debug("分类缓存缺少分类 {}，清除用户 {} 的缓存", categoryId, userId);
+            doEvict(userId);
+        }
+        return owned;
+    }
+    
+    /**
+     * 使用户的分类缓存失效
+     * 在事务中调用时推迟到提交后执行，避免并发读把旧数据重新写回缓存
+     */
+    public void evict(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doEvict(userId);
+                }
+            });
+        } else {
+            doEvict(userId);
+        }
+    }
+    
+    private void doEvict(Long userId) {
+        if (localCache != null) {
+            localCache.invalidate(userId);
+        }
+        try {
+            redisTemplate.execute(EVICT_SCRIPT, keysOf(userId), String.valueOf(ttl.toMillis() * 2));
+        } catch (Exception e) {
+            log.error("清除分类缓存失败，用户ID: {}", userId, e);
+        }
+    }
+    
+    /**
+     * 从Redis读取分类列表，未命中时查库并回填
+     * 先读版本号再查库，查库期间有变更提交时不回填；Redis不可用时直接查库，不影响业务
+     */
+    private List<Category> loadFromRedis(Long userId) {
+        List<String> keys = keysOf(userId);
+        String generation;
+        try {
+            List<String> values = redisTemplate.opsForValue().multiGet(keys);
+            String cached = values != null ? values.get(0) : null;
+            if (cached != null) {
+                return objectMapper.readValue(cached, CATEGORY_LIST_TYPE);
+            }
+            generation = values != null && values.get(1) != null ? values.get(1) : "0";
+        } catch (Exception e) {
+            log.warn("读取分类缓存失败，回退到数据库，用户ID: {}", userId, e);
+            return categoryRepository.findByUserIdOrderBySortOrderAscCreateTimeAsc(userId);
+        }
+        
+        List<Category> categories = categoryRepository.findByUserIdOrderBySortOrderAscCreateTimeAsc(userId);
+        try {
+            Long written = redisTemplate.execute(FILL_SCRIPT, keys,
+                generation, objectMapper.writeValueAsString(categories), String.valueOf(ttl.toMillis()));
+            if (written == null || written == 0) {
+                log.debug("查询用户 {} 的分类期间有变更，放弃回填缓存", userId);
+            }
+        } catch (Exception e) {
+            log.warn("写入分类缓存失败，用户ID: {}", userId, e);
+        }
+        return categories;
+    }
+    
+    private List<String> keysOf(Long userId) {
+        return Arrays.asList(CATEGORY_LIST_PREFIX + userId, GEN_PREFIX + userId);
+    }
+}
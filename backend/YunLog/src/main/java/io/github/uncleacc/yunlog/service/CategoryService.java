@@ -3,8 +3,9 @@ package io.github.uncleacc.yunlog.service;
 import io.github.uncleacc.yunlog.context.UserContext;
 import io.github.uncleacc.yunlog.dto.request.CreateCategoryRequest;
 import io.github.uncleacc.yunlog.dto.request.UpdateCategorySortRequest;
+import io.github.uncleacc.yunlog.dto.response.CategoryDeleteResponse;
+import io.github.uncleacc.yunlog.dto.response.DiaryStatsResponse;
 import io.github.uncleacc.yunlog.entity.Category;
-import io.github.uncleacc.yunlog.entity.Diary;
 import io.github.uncleacc.yunlog.exception.BusinessException;
 import io.github.uncleacc.yunlog.repository.CategoryRepository;
 import io.github.uncleacc.yunlog.repository.DiaryRepository;
@@ -24,15 +25,20 @@ import java.util.List;
 @RequiredArgsConstructor
 public class CategoryService {
     
+    // 删除分类时每条 UPDATE 迁移的最大日记数
+    private static final int BULK_CHUNK_SIZE = 500;
+    
     private final CategoryRepository categoryRepository;
     private final DiaryRepository diaryRepository;
+    private final CategoryCacheService categoryCacheService;
+    private final DiaryStatsService diaryStatsService;
     
     /**
      * 获取分类列表（按排序）
      */
     public List<Category> getCategoryList() {
         Long userId = UserContext.getUserId();
-        return categoryRepository.findByUserIdOrderBySortOrderAscCreateTimeAsc(userId);
+        return categoryCacheService.getCategories(userId);
     }
     
     /**
@@ -68,7 +74,9 @@ public class CategoryService {
         long maxSortOrder = categoryRepository.countByUserId(userId);
         category.setSortOrder((int) maxSortOrder);
         
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        categoryCacheService.evict(userId);
+        return saved;
     }
     
     /**
@@ -97,14 +105,17 @@ public class CategoryService {
         category.setIcon(request.getIcon());
         category.setColor(request.getColor());
         
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        categoryCacheService.evict(userId);
+        return saved;
     }
     
     /**
      * 删除分类
+     * 分类下未删除的日记移到垃圾桶，所有日记迁移到默认分类；按块执行批量 UPDATE，不加载日记内容
      */
     @Transactional
-    public void deleteCategory(Long id) {
+    public CategoryDeleteResponse deleteCategory(Long id) {
         Long userId = UserContext.getUserId();
         Category category = getCategoryById(id);
         
@@ -117,30 +128,31 @@ public class CategoryService {
         Category defaultCategory = categoryRepository.findByUserIdAndIsDefaultTrue(userId)
             .orElseThrow(() -> new BusinessException(500, "默认分类不存在"));
         
-        // 查找该分类下的所有日记（包括已删除和未删除）
-        List<Diary> diaries = diaryRepository.findByCategoryId(id);
-        
-        log.info("删除分类 [{}]，需要处理 {} 条日记", category.getName(), diaries.size());
+        LocalDateTime now = LocalDateTime.now();
         
-        // 更新所有日记的分类为默认分类
-        for (Diary diary : diaries) {
-            diary.setCategoryId(defaultCategory.getId());
-            
-            // 如果日记未被删除，将其移到垃圾桶
-            if (!diary.getIsDeleted()) {
-                diary.setIsDeleted(true);
-                diary.setDeletedTime(LocalDateTime.now());
-            }
-            // 如果日记已在垃圾桶，只更新分类ID
-        }
+        // 未删除的日记移到垃圾桶并迁移到默认分类
+        int movedToTrash = 0;
+        int updated;
+        do {
+            updated = diaryRepository.moveCategoryToTrash(userId, id, defaultCategory.getId(), now, BULK_CHUNK_SIZE);
+            movedToTrash += updated;
+        } while (updated == BULK_CHUNK_SIZE);
         
-        // 批量保存更新后的日记
-        diaryRepository.saveAll(diaries);
+        // 已在垃圾桶的日记只迁移分类
+        int reassigned = 0;
+        do {
+            updated = diaryRepository.moveCategoryTrash(userId, id, defaultCategory.getId(), now, BULK_CHUNK_SIZE);
+            reassigned += updated;
+        } while (updated == BULK_CHUNK_SIZE);
         
         // 删除分类
         categoryRepository.delete(category);
+        categoryCacheService.evict(userId);
+        diaryStatsService.invalidate(userId);
         
-        log.info("分类 [{}] 删除成功，共处理 {} 条日记", category.getName(), diaries.size());
+        log.info("分类 [{}] 删除成功，{} 条日记移到垃圾桶，{} 条垃圾桶日记迁移到默认分类",
+            category.getName(), movedToTrash, reassigned);
+        return new CategoryDeleteResponse(movedToTrash, reassigned);
     }
     
     /**
@@ -153,6 +165,7 @@ public class CategoryService {
             category.setSortOrder(item.getSortOrder());
             categoryRepository.save(category);
         }
+        categoryCacheService.evict(UserContext.getUserId());
         log.info("批量更新分类排序成功，共更新 {} 个分类", sortList.size());
     }
     
@@ -170,6 +183,21 @@ public class CategoryService {
         defaultCategory.setSortOrder(0);
         
         categoryRepository.save(defaultCategory);
+        categoryCacheService.evict(userId);
+    }
+    
+    /**
+     * 用户还没有任何分类时创建默认分类
+     * 
+     * @return 是否创建了默认分类
+     */
+    @Transactional
+    public boolean createDefaultCategoryIfAbsent(Long userId) {
+        if (categoryRepository.countByUserId(userId) > 0) {
+            return false;
+        }
+        createDefaultCategory(userId);
+        return true;
     }
     
     /**
@@ -178,33 +206,24 @@ public class CategoryService {
     public CategoryStatsResponse getCategoryStats(Long id) {
         Long userId = UserContext.getUserId();
         // 验证分类是否存在并属于当前用户
-        getCategoryById(id);
-        
-        long totalCount = diaryRepository.countByUserIdAndCategoryIdAndIsDeletedFalse(userId, id);
-        
-        CategoryStatsResponse stats = new CategoryStatsResponse();
-        stats.setTotalCount(totalCount);
-        stats.setThisMonth(0L); // TODO: 实现本月统计
-        stats.setThisWeek(0L);  // TODO: 实现本周统计
-        
-        // 获取最近的日记
-        diaryRepository.findFirstByCategoryIdAndIsDeletedFalseOrderByCreateTimeDesc(id)
-            .filter(diary -> diary.getUserId().equals(userId))
-            .ifPresent(diary -> {
-                CategoryStatsResponse.RecentDiary recentDiary = new CategoryStatsResponse.RecentDiary();
-                recentDiary.setId(diary.getId());
-                recentDiary.setCreateTime(diary.getCreateTime());
-                stats.setRecentDiary(recentDiary);
-            });
-        
-        return stats;
+        categoryCacheService.findOwned(userId, id)
+            .orElseThrow(() -> new BusinessException(404, "分类不存在"));
+        
+        return diaryStatsService.getStats(userId).getCategories().get(id);
     }
     
+    /**
+     * 获取当前用户的日记统计（汇总 + 各分类）
+     */
+    public DiaryStatsResponse getUserStats() {
+        return diaryStatsService.getStats(UserContext.getUserId());
+    }
     /**
      * 分类统计响应类
      */
     public static class CategoryStatsResponse {
         private Long totalCount;
+        private Long today;
         private Long thisMonth;
         private Long thisWeek;
         private RecentDiary recentDiary;
@@ -213,6 +232,9 @@ public class CategoryService {
         public Long getTotalCount() { return totalCount; }
         public void setTotalCount(Long totalCount) { this.totalCount = totalCount; }
         
+        public Long getToday() { return today; }
+        public void setToday(Long today) { this.today = today; }
+        
         public Long getThisMonth() { return thisMonth; }
         public void setThisMonth(Long thisMonth) { this.thisMonth = thisMonth; }
         
@@ -0,0 +1,93 @@
+package io.github.uncleacc.yunlog.service;
+
+import io.github.uncleacc.yunlog.entity.Diary;
+import io.github.uncleacc.yunlog.repository.DiaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
+
+/**
+ * 日记全文检索服务
+ * 基于 MySQL ngram 全文索引（见 doc/数据库迁移-添加日记全文索引.sql），
+ * 索引由 InnoDB 在日记增删改时自动维护，这里只负责构造检索条件和生成高亮摘要
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DiarySearchService {
+    
+    // 与 MySQL ngram_token_size 默认值保持一致，短于该长度的关键词无法命中全文索引
+    private static final int NGRAM_TOKEN_SIZE = 2;
+    
+    // 高亮摘要中关键词前后保留的字符数
+    private static final int SNIPPET_CONTEXT = 30;
+    
+    private static final String HIGHLIGHT_START = "<em>";
+    private static final String HIGHLIGHT_END = "</em>";
+    
+    private final DiaryRepository diaryRepository;
+    
+    /**
+     * 检索日记，结果按相关度排序
+     */
+    public Page<Diary> search(Long userId, String keyword, Pageable pageable) {
+        String trimmed = keyword.trim();
+        
+        // 单字关键词无法命中 ngram 索引，回退到 LIKE 查询
+        if (trimmed.length() < NGRAM_TOKEN_SIZE) {
+            return diaryRepository.searchDiaries(userId, trimmed, pageable);
+        }
+        
+        return diaryRepository.fullTextSearchDiaries(userId, toPhraseQuery(trimmed), pageable);
+    }
+    
+    /**
+     * 生成包含关键词的高亮摘要
+     * 
+     * @param content 日记纯文本内容
+     * @param keyword 关键词
+     * @return 已转义的摘要，关键词用 em 标签包裹；内容中找不到关键词时返回开头部分
+     */
+    public String highlight(String content, String keyword) {
+        if (content == null || content.isEmpty()) {
+            return "";
+        }
+        
+        String trimmed = keyword.trim();
+        int index = content.toLowerCase().indexOf(trimmed.toLowerCase());
+        if (trimmed.isEmpty() || index < 0) {
+            return HtmlUtils.htmlEscape(abbreviate(content, SNIPPET_CONTEXT * 2));
+        }
+        
+        int start = Math.max(0, index - SNIPPET_CONTEXT);
+        int end = Math.min(content.length(), index + trimmed.length() + SNIPPET_CONTEXT);
+        
+        StringBuilder snippet = new StringBuilder();
+        if (start > 0) {
+            snippet.append("...");
+        }
+        snippet.append(HtmlUtils.htmlEscape(content.substring(start, index)))
+            .append(HIGHLIGHT_START)
+            .append(HtmlUtils.htmlEscape(content.substring(index, index + trimmed.length())))
+            .append(HIGHLIGHT_END)
+            .append(HtmlUtils.htmlEscape(content.substring(index + trimmed.length(), end)));
+        if (end < content.length()) {
+            snippet.append("...");
+        }
+        return snippet.toString();
+    }
+    
+    /**
+     * 构造布尔模式的短语查询，ngram 分词下短语匹配等价于连续子串匹配
+     */
+    private String toPhraseQuery(String keyword) {
+        return "\"" + keyword.replace("\"", " ") + "\"";
+    }
+    
+    private String abbreviate(String content, int length) {
+        return content.length() > length ? content.substring(0, length) + "..." : content;
+    }
+}
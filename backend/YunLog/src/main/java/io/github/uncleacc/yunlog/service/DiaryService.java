@@ -1,16 +1,19 @@
 package io.github.uncleacc.yunlog.service;
 
+import io.github.uncleacc.yunlog.common.DiaryCursor;
 import io.github.uncleacc.yunlog.common.PageResponse;
 import io.github.uncleacc.yunlog.context.UserContext;
 import io.github.uncleacc.yunlog.dto.request.CreateDiaryRequest;
 import io.github.uncleacc.yunlog.dto.request.UpdateDiaryTimeRequest;
+import io.github.uncleacc.yunlog.dto.response.DiarySummaryResponse;
 import io.github.uncleacc.yunlog.dto.response.DiaryWithAttachmentsResponse;
 import io.github.uncleacc.yunlog.entity.Attachment;
 import io.github.uncleacc.yunlog.entity.Diary;
 import io.github.uncleacc.yunlog.exception.BusinessException;
 import io.github.uncleacc.yunlog.repository.AttachmentRepository;
-import io.github.uncleacc.yunlog.repository.CategoryRepository;
 import io.github.uncleacc.yunlog.repository.DiaryRepository;
+import io.github.uncleacc.yunlog.repository.DiarySummaryView;
+import io.github.uncleacc.yunlog.util.DiaryText;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -20,6 +23,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -31,9 +36,15 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class DiaryService {
     
+    // 批量操作每条 SQL 处理的最大日记数
+    private static final int BULK_CHUNK_SIZE = 500;
+    
     private final DiaryRepository diaryRepository;
-    private final CategoryRepository categoryRepository;
+    private final CategoryCacheService categoryCacheService;
     private final AttachmentRepository attachmentRepository;
+    private final DiarySearchService diarySearchService;
+    private final AttachmentService attachmentService;
+    private final DiaryStatsService diaryStatsService;
     
     /**
      * 分页获取日记列表（包含附件）
@@ -45,8 +56,7 @@ public class DiaryService {
         
         if (categoryId != null) {
             // 验证分类是否存在并属于当前用户
-            categoryRepository.findById(categoryId)
-                .filter(category -> category.getUserId().equals(userId))
+            categoryCacheService.findOwned(userId, categoryId)
                 .orElseThrow(() -> new BusinessException(404, "分类不存在"));
             
             diaryPage = diaryRepository.findByUserIdAndCategoryIdAndIsDeletedFalseOrderByCreateTimeDesc(
@@ -56,13 +66,8 @@ public class DiaryService {
                 userId, pageable);
         }
         
-        // 为每个日记加载附件
-        List<DiaryWithAttachmentsResponse> diariesWithAttachments = diaryPage.getContent().stream()
-            .map(diary -> {
-                List<Attachment> attachments = attachmentRepository.findByDiaryIdOrderByCreateTimeAsc(diary.getId());
-                return DiaryWithAttachmentsResponse.from(diary, attachments);
-            })
-            .collect(Collectors.toList());
+        // 一次性加载当前页所有日记的附件
+        List<DiaryWithAttachmentsResponse> diariesWithAttachments = withAttachments(diaryPage.getContent());
         
         return PageResponse.of(
             diariesWithAttachments,
@@ -72,6 +77,117 @@ public class DiaryService {
         );
     }
     
+    /**
+     * 游标分页获取日记列表（包含附件）
+     * 按 (createTime, id) 倒序定位，不走 OFFSET 扫描；只有 withTotal 为 true 时才统计总数
+     */
+    public PageResponse<DiaryWithAttachmentsResponse> getDiaryTimeline(String cursor, Integer limit, Long categoryId, boolean withTotal) {
+        Long userId = UserContext.getUserId();
+        // 多取一条用于判断是否还有下一页
+        Pageable pageable = PageRequest.of(0, limit + 1);
+        DiaryCursor position = (cursor == null || cursor.isEmpty()) ? null : DiaryCursor.decode(cursor);
+        List<Diary> diaries;
+        
+        if (categoryId != null) {
+            // 验证分类是否存在并属于当前用户
+            categoryCacheService.findOwned(userId, categoryId)
+                .orElseThrow(() -> new BusinessException(404, "分类不存在"));
+            
+            diaries = position == null
+                ? diaryRepository.findByUserIdAndCategoryIdAndIsDeletedFalseOrderByCreateTimeDescIdDesc(userId, categoryId, pageable)
+                : diaryRepository.findCategoryTimelineBefore(userId, categoryId, position.getCreateTime(), position.getId(), pageable);
+        } else {
+            diaries = position == null
+                ? diaryRepository.findByUserIdAndIsDeletedFalseOrderByCreateTimeDescIdDesc(userId, pageable)
+                : diaryRepository.findTimelineBefore(userId, position.getCreateTime(), position.getId(), pageable);
+        }
+        
+        String nextCursor = null;
+        if (diaries.size() > limit) {
+            diaries = diaries.subList(0, limit);
+            Diary last = diaries.get(limit - 1);
+            nextCursor = new DiaryCursor(last.getCreateTime(), last.getId()).encode();
+        }
+        
+        Long total = null;
+        if (withTotal) {
+            total = categoryId != null
+                ? diaryRepository.countByUserIdAndCategoryIdAndIsDeletedFalse(userId, categoryId)
+                : diaryRepository.countByUserIdAndIsDeletedFalse(userId);
+        }
+        
+        return PageResponse.ofCursor(withAttachments(diaries), nextCursor, total, limit);
+    }
+    
+    /**
+     * 分页获取日记摘要列表（不含正文，列表卡片用）
+     */
+    public PageResponse<DiarySummaryResponse> getDiarySummaryList(Integer page, Integer limit, Long categoryId) {
+        Long userId = UserContext.getUserId();
+        Pageable pageable = PageRequest.of(page - 1, limit);
+        Page<DiarySummaryView> summaryPage;
+        
+        if (categoryId != null) {
+            // 验证分类是否存在并属于当前用户
+            categoryCacheService.findOwned(userId, categoryId)
+                .orElseThrow(() -> new BusinessException(404, "分类不存在"));
+            
+            summaryPage = diaryRepository.findSummaryByUserIdAndCategoryIdAndIsDeletedFalseOrderByCreateTimeDesc(
+                userId, categoryId, pageable);
+        } else {
+            summaryPage = diaryRepository.findSummaryByUserIdAndIsDeletedFalseOrderByCreateTimeDesc(
+                userId, pageable);
+        }
+        
+        return PageResponse.of(
+            withThumbnails(summaryPage.getContent()),
+            summaryPage.getTotalElements(),
+            page,
+            limit
+        );
+    }
+    
+    /**
+     * 游标分页获取日记摘要列表（不含正文，列表卡片用）
+     */
+    public PageResponse<DiarySummaryResponse> getDiarySummaryTimeline(String cursor, Integer limit, Long categoryId, boolean withTotal) {
+        Long userId = UserContext.getUserId();
+        // 多取一条用于判断是否还有下一页
+        Pageable pageable = PageRequest.of(0, limit + 1);
+        DiaryCursor position = (cursor == null || cursor.isEmpty()) ? null : DiaryCursor.decode(cursor);
+        List<DiarySummaryView> summaries;
+        
+        if (categoryId != null) {
+            // 验证分类是否存在并属于当前用户
+            categoryCacheService.findOwned(userId, categoryId)
+                .orElseThrow(() -> new BusinessException(404, "分类不存在"));
+            
+            summaries = position == null
+                ? diaryRepository.findSummaryByUserIdAndCategoryIdAndIsDeletedFalseOrderByCreateTimeDescIdDesc(userId, categoryId, pageable)
+                : diaryRepository.findSummaryCategoryTimelineBefore(userId, categoryId, position.getCreateTime(), position.getId(), pageable);
+        } else {
+            summaries = position == null
+                ? diaryRepository.findSummaryByUserIdAndIsDeletedFalseOrderByCreateTimeDescIdDesc(userId, pageable)
+                : diaryRepository.findSummaryTimelineBefore(userId, position.getCreateTime(), position.getId(), pageable);
+        }
+        
+        String nextCursor = null;
+        if (summaries.size() > limit) {
+            summaries = summaries.subList(0, limit);
+            DiarySummaryView last = summaries.get(limit - 1);
+            nextCursor = new DiaryCursor(last.getCreateTime(), last.getId()).encode();
+        }
+        
+        Long total = null;
+        if (withTotal) {
+            total = categoryId != null
+                ? diaryRepository.countByUserIdAndCategoryIdAndIsDeletedFalse(userId, categoryId)
+                : diaryRepository.countByUserIdAndIsDeletedFalse(userId);
+        }
+        
+        return PageResponse.ofCursor(withThumbnails(summaries), nextCursor, total, limit);
+    }
+    
     /**
      * 根据ID获取日记详情
      */
@@ -90,18 +206,21 @@ public class DiaryService {
         Long userId = UserContext.getUserId();
         
         // 验证分类是否存在并属于当前用户
-        categoryRepository.findById(request.getCategoryId())
-            .filter(category -> category.getUserId().equals(userId))
+        categoryCacheService.findOwned(userId, request.getCategoryId())
             .orElseThrow(() -> new BusinessException(404, "分类不存在"));
         
         Diary diary = new Diary();
         diary.setContent(request.getContent());
         diary.setContentHtml(request.getContentHtml());
+        diary.setExcerpt(DiaryText.excerpt(request.getContent()));
+        diary.setWordCount(DiaryText.wordCount(request.getContent()));
         diary.setCategoryId(request.getCategoryId());
         diary.setUserId(userId);
         diary.setIsDeleted(false);
         
-        return diaryRepository.save(diary);
+        Diary saved = diaryRepository.save(diary);
+        diaryStatsService.recordAdded(saved);
+        return saved;
     }
     
     /**
@@ -111,17 +230,24 @@ public class DiaryService {
     public Diary updateDiary(Long id, CreateDiaryRequest request) {
         Diary diary = getDiaryById(id);
         
-        // 如果要更换分类,验证新分类是否存在
+        // 如果要更换分类,验证新分类是否存在并属于当前用户
         if (!diary.getCategoryId().equals(request.getCategoryId())) {
-            categoryRepository.findById(request.getCategoryId())
+            categoryCacheService.findOwned(diary.getUserId(), request.getCategoryId())
                 .orElseThrow(() -> new BusinessException(404, "分类不存在"));
         }
         
+        Long oldCategoryId = diary.getCategoryId();
         diary.setContent(request.getContent());
         diary.setContentHtml(request.getContentHtml());
+        diary.setExcerpt(DiaryText.excerpt(request.getContent()));
+        diary.setWordCount(DiaryText.wordCount(request.getContent()));
         diary.setCategoryId(request.getCategoryId());
         
-        return diaryRepository.save(diary);
+        Diary saved = diaryRepository.save(diary);
+        if (!oldCategoryId.equals(saved.getCategoryId())) {
+            diaryStatsService.recordMoved(saved, oldCategoryId);
+        }
+        return saved;
     }
     
     /**
@@ -131,10 +257,14 @@ public class DiaryService {
     public Diary updateDiaryTime(Long id, UpdateDiaryTimeRequest request) {
         Diary diary = getDiaryById(id);
         
+        LocalDateTime oldCreateTime = diary.getCreateTime();
+        
         // 直接设置createTime字段，忽略@CreationTimestamp注解
         diary.setCreateTime(request.getCreateTime());
         
-        return diaryRepository.save(diary);
+        Diary saved = diaryRepository.save(diary);
+        diaryStatsService.recordTimeChanged(saved, oldCreateTime);
+        return saved;
     }
     
     /**
@@ -148,16 +278,31 @@ public class DiaryService {
         diary.setDeletedTime(LocalDateTime.now());
         
         diaryRepository.save(diary);
+        diaryStatsService.recordRemoved(diary);
     }
     
     /**
-     * 批量删除日记
+     * 批量删除日记（移到垃圾桶）
+     * 
+     * @return 移到垃圾桶的日记数量
      */
     @Transactional
-    public void batchDeleteDiaries(List<Long> ids) {
-        for (Long id : ids) {
-            deleteDiary(id);
+    public int batchDeleteDiaries(List<Long> ids) {
+        Long userId = UserContext.getUserId();
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> distinctIds = distinct(ids);
+        
+        int affected = 0;
+        for (List<Long> chunk : chunks(distinctIds)) {
+            affected += diaryRepository.moveToTrash(userId, chunk, now);
+        }
+        
+        // 有日记不存在或不属于当前用户时整体回滚
+        if (affected != distinctIds.size()) {
+            throw new BusinessException(404, "日记不存在");
         }
+        diaryStatsService.invalidate(userId);
+        return affected;
     }
     
     /**
@@ -188,6 +333,31 @@ public class DiaryService {
         diary.setDeletedTime(null);
         
         diaryRepository.save(diary);
+        diaryStatsService.recordAdded(diary);
+    }
+    
+    /**
+     * 批量从垃圾桶恢复日记
+     * 
+     * @return 恢复的日记数量
+     */
+    @Transactional
+    public int batchRestoreFromTrash(List<Long> ids) {
+        Long userId = UserContext.getUserId();
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> distinctIds = distinct(ids);
+        
+        int affected = 0;
+        for (List<Long> chunk : chunks(distinctIds)) {
+            affected += diaryRepository.restoreFromTrash(userId, chunk, now);
+        }
+        
+        // 有日记不在当前用户的垃圾桶中时整体回滚
+        if (affected != distinctIds.size()) {
+            throw new BusinessException(404, "垃圾桶中不存在该日记");
+        }
+        diaryStatsService.invalidate(userId);
+        return affected;
     }
     
     /**
@@ -198,8 +368,8 @@ public class DiaryService {
         Diary diary = diaryRepository.findByIdAndIsDeletedTrue(id)
             .orElseThrow(() -> new BusinessException(404, "垃圾桶中不存在该日记"));
         
-        // 删除日记的所有附件
-        attachmentRepository.deleteByDiaryId(id);
+        // 删除日记的所有附件（OSS 文件由发件箱异步删除）
+        attachmentService.deleteAttachmentsByDiaryId(id);
         
         // 删除日记
         diaryRepository.delete(diary);
@@ -207,37 +377,45 @@ public class DiaryService {
     
     /**
      * 清空垃圾桶
+     * 按ID顺序分批处理，每批一条查询 + 一条删除附件 + 一条删除日记，不把整个垃圾桶加载到内存
+     * 
+     * @return 删除的日记数量
      */
     @Transactional
-    public void clearTrash() {
+    public int clearTrash() {
         Long userId = UserContext.getUserId();
-        Page<Diary> trashDiaries = diaryRepository.findByUserIdAndIsDeletedTrueOrderByDeletedTimeDesc(
-            userId, PageRequest.of(0, Integer.MAX_VALUE));
+        Pageable chunk = PageRequest.of(0, BULK_CHUNK_SIZE);
         
-        // 删除所有垃圾桶中日记的附件
-        for (Diary diary : trashDiaries.getContent()) {
-            attachmentRepository.deleteByDiaryId(diary.getId());
+        int affected = 0;
+        long afterId = 0L;
+        List<Long> ids;
+        while (!(ids = diaryRepository.findTrashIds(userId, afterId, chunk)).isEmpty()) {
+            // 删除这一批日记的附件
+            attachmentService.deleteAttachmentsByDiaryIds(ids);
+            
+            // 删除这一批日记
+            affected += diaryRepository.deleteTrash(userId, ids);
+            afterId = ids.get(ids.size() - 1);
         }
         
-        // 删除所有垃圾桶中的日记
-        diaryRepository.deleteAll(trashDiaries.getContent());
+        log.info("清空垃圾桶完成，用户ID: {}, 删除 {} 条日记", userId, affected);
+        return affected;
     }
     
     /**
-     * 搜索日记（包含附件）
+     * 搜索日记（包含附件和高亮摘要，按相关度排序）
      */
     public PageResponse<DiaryWithAttachmentsResponse> searchDiaries(String keyword, Integer page, Integer limit) {
         Long userId = UserContext.getUserId();
         Pageable pageable = PageRequest.of(page - 1, limit);
-        Page<Diary> diaryPage = diaryRepository.searchDiaries(userId, keyword, pageable);
-        
-        // 为每个日记加载附件
-        List<DiaryWithAttachmentsResponse> diariesWithAttachments = diaryPage.getContent().stream()
-            .map(diary -> {
-                List<Attachment> attachments = attachmentRepository.findByDiaryIdOrderByCreateTimeAsc(diary.getId());
-                return DiaryWithAttachmentsResponse.from(diary, attachments);
-            })
-            .collect(Collectors.toList());
+        Page<Diary> diaryPage = diarySearchService.search(userId, keyword, pageable);
+        
+        // 一次性加载当前页所有日记的附件
+        List<DiaryWithAttachmentsResponse> diariesWithAttachments = withAttachments(diaryPage.getContent());
+        
+        // 生成高亮摘要
+        diariesWithAttachments.forEach(response ->
+            response.setHighlight(diarySearchService.highlight(response.getContent(), keyword)));
         
         return PageResponse.of(
             diariesWithAttachments,
@@ -246,4 +424,54 @@ public class DiaryService {
             limit
         );
     }
-}
\ No newline at end of file
+    
+    /**
+     * 批量加载日记附件，避免每条日记单独查询一次
+     */
+    private List<DiaryWithAttachmentsResponse> withAttachments(List<Diary> diaries) {
+        if (diaries.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        List<Long> diaryIds = diaries.stream()
+            .map(Diary::getId)
+            .collect(Collectors.toList());
+        List<Attachment> attachments = attachmentRepository.findByDiaryIdInOrderByCreateTimeAsc(diaryIds);
+        
+        return DiaryWithAttachmentsResponse.from(diaries, attachments);
+    }
+    
+    /**
+     * 批量加载日记附件，为摘要挑选第一张图片的缩略图
+     */
+    private List<DiarySummaryResponse> withThumbnails(List<DiarySummaryView> summaries) {
+        if (summaries.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        List<Long> diaryIds = summaries.stream()
+            .map(DiarySummaryView::getId)
+            .collect(Collectors.toList());
+        List<Attachment> attachments = attachmentRepository.findByDiaryIdInOrderByCreateTimeAsc(diaryIds);
+        
+        return DiarySummaryResponse.from(summaries, attachments);
+    }
+    
+    /**
+     * ID去重，保持原有顺序
+     */
+    private List<Long> distinct(List<Long> ids) {
+        return ids.stream().distinct().collect(Collectors.toList());
+    }
+    
+    /**
+     * 按 BULK_CHUNK_SIZE 切分ID列表，避免 IN 列表过长
+     */
+    private List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += BULK_CHUNK_SIZE) {
+            chunks.add(ids.subList(i, Math.min(ids.size(), i + BULK_CHUNK_SIZE)));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,438 @@
+package io.github.uncleacc.yunlog.service;
+
+import io.github.uncleacc.yunlog.dto.response.DiaryStatsResponse;
+import io.github.uncleacc.yunlog.entity.Category;
+import io.github.uncleacc.yunlog.entity.Diary;
+import io.github.uncleacc.yunlog.repository.DiaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 日记统计服务
+ * 每个用户一个Redis哈希，按分类保存总数、按天计数和最近一篇日记，日记增删改时增量更新，
+ * 今天/本周/本月由按天计数汇总得出；缓存缺失时从数据库重建，批量操作后直接失效重建
+ * 
+ * 每个用户另有一个版本号（stats:diary:gen:{userId}），所有增量更新和失效都会递增版本号；
+ * 重建开始时递增并记下版本号，写回时版本号已变化说明查询期间有日记变更提交，放弃写回，下次读取重新重建
+ * Redis不可用时直接用数据库聚合结果计算统计，不写缓存
+ * 
+ * 哈希字段：
+ * t:{分类ID} 总数；d:{分类ID}:{yyyyMMdd} 当天数量；l:{分类ID} 最近一篇日记 "毫秒时间戳:日记ID"
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DiaryStatsService {
+    
+    // 统计在Redis中的key前缀
+    private static final String STATS_PREFIX = "stats:diary:";
+    
+    // 统计版本号在Redis中的key前缀
+    private static final String GEN_PREFIX = "stats:diary:gen:";
+    
+    // 标记字段，保证没有日记的用户哈希也存在，增量更新才会生效
+    private static final String MARKER_FIELD = "_";
+    
+    // 按天计数保留的天数（覆盖本月和本周）
+    private static final int DAY_RETENTION = 40;
+    
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    
+    // 递增版本号并刷新其过期时间（KEYS[2] 版本号key，ARGV[1] 过期时间ms），各脚本共用
+    private static final String BUMP_GENERATION =
+        "redis.call('incr', KEYS[2]) redis.call('pexpire', KEYS[2], ARGV[1]) ";
+    
+    /**
+     * 递增版本号；哈希存在时按 (字段, 增量) 依次 HINCRBY，不存在时什么也不做（等待下次读取时重建）
+     * KEYS: 统计哈希, 版本号；ARGV: 版本号过期时间ms, 字段1, 增量1, ...
+     */
+    private static final DefaultRedisScript<Long> INCR_SCRIPT = new DefaultRedisScript<>(
+        BUMP_GENERATION +
+        "if redis.call('exists', KEYS[1]) == 0 then return 0 end " +
+        "for i = 2, #ARGV, 2 do redis.call('hincrby', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+        "return 1",
+        Long.class);
+    
+    /**
+     * 递增版本号；哈希存在且新值的时间更晚时更新最近一篇日记
+     * KEYS: 统计哈希, 版本号；ARGV: 版本号过期时间ms, 字段, 毫秒时间戳, 日记ID
+     */
+    private static final DefaultRedisScript<Long> LAST_SCRIPT = new DefaultRedisScript<>(
+        BUMP_GENERATION +
+        "if redis.call('exists', KEYS[1]) == 0 then return 0 end " +
+        "local current = redis.call('hget', KEYS[1], ARGV[2]) " +
+        "if current and tonumber(string.match(current, '^(%d+)')) > tonumber(ARGV[3]) then return 0 end " +
+        "redis.call('hset', KEYS[1], ARGV[2], ARGV[3] .. ':' .. ARGV[4]) " +
+        "return 1",
+        Long.class);
+    
+    /**
+     * 递增版本号并删除哈希中的字段，不指定字段时删除整个哈希
+     * KEYS: 统计哈希, 版本号；ARGV: 版本号过期时间ms, 字段...
+     */
+    private static final DefaultRedisScript<Long> REMOVE_SCRIPT = new DefaultRedisScript<>(
+        BUMP_GENERATION +
+        "if #ARGV == 1 then return redis.call('del', KEYS[1]) end " +
+        "return redis.call('hdel', KEYS[1], unpack(ARGV, 2))",
+        Long.class);
+    
+    /**
+     * 开始重建：递增并返回版本号
+     * KEYS: 统计哈希, 版本号；ARGV: 版本号过期时间ms
+     */
+    private static final DefaultRedisScript<Long> BEGIN_REBUILD_SCRIPT = new DefaultRedisScript<>(
+        BUMP_GENERATION +
+        "return tonumber(redis.call('get', KEYS[2]))",
+        Long.class);
+    
+    /**
+     * 写回重建结果：版本号仍是重建开始时的值才写入，否则说明期间有变更，放弃写回
+     * KEYS: 统计哈希, 版本号；ARGV: 重建开始时的版本号, 哈希过期时间ms, 字段1, 值1, ...
+     */
+    private static final DefaultRedisScript<Long> COMMIT_REBUILD_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[2]) ~= ARGV[1] then return 0 end " +
+        "redis.call('del', KEYS[1]) " +
+        "for i = 3, #ARGV, 2 do redis.call('hset', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+        "redis.call('pexpire', KEYS[1], ARGV[2]) " +
+        "return 1",
+        Long.class);
+    
+    @Value("${yunlog.stats.ttl:1d}")
+    private Duration ttl;
+    
+    private final DiaryRepository diaryRepository;
+    private final CategoryCacheService categoryCacheService;
+    private final StringRedisTemplate redisTemplate;
+    
+    /**
+     * 记录新增日记（创建或从垃圾桶恢复）
+     */
+    public void recordAdded(Diary diary) {
+        afterCommit(() -> {
+            increment(diary.getUserId(), diary.getCategoryId(), diary.getCreateTime(), 1);
+            updateLast(diary.getUserId(), diary.getCategoryId(), diary.getCreateTime(), diary.getId());
+        });
+    }
+    
+    /**
+     * 记录移除日记（移到垃圾桶）
+     */
+    public void recordRemoved(Diary diary) {
+        afterCommit(() -> {
+            increment(diary.getUserId(), diary.getCategoryId(), diary.getCreateTime(), -1);
+            clearLast(diary.getUserId(), diary.getCategoryId());
+        });
+    }
+    
+    /**
+     * 记录日记更换分类
+     */
+    public void recordMoved(Diary diary, Long oldCategoryId) {
+        afterCommit(() -> {
+            increment(diary.getUserId(), oldCategoryId, diary.getCreateTime(), -1);
+            clearLast(diary.getUserId(), oldCategoryId);
+            increment(diary.getUserId(), diary.getCategoryId(), diary.getCreateTime(), 1);
+            updateLast(diary.getUserId(), diary.getCategoryId(), diary.getCreateTime(), diary.getId());
+        });
+    }
+    
+    /**
+     * 记录日记时间修改
+     */
+    public void recordTimeChanged(Diary diary, LocalDateTime oldCreateTime) {
+        afterCommit(() -> {
+            increment(diary.getUserId(), diary.getCategoryId(), oldCreateTime, -1);
+            increment(diary.getUserId(), diary.getCategoryId(), diary.getCreateTime(), 1);
+            clearLast(diary.getUserId(), diary.getCategoryId());
+        });
+    }
+    
+    /**
+     * 使用户统计失效（批量操作后调用），下次读取时从数据库重建
+     */
+    public void invalidate(Long userId) {
+        afterCommit(() -> remove(userId));
+    }
+    
+    /**
+     * 获取用户全部分类的统计
+     */
+    public DiaryStatsResponse getStats(Long userId) {
+        String key = STATS_PREFIX + userId;
+        Map<String, String> fields = readOrRebuild(userId, key);
+        
+        LocalDate today = LocalDate.now();
+        String todayKey = today.format(DAY_FORMAT);
+        String weekStart = today.with(DayOfWeek.MONDAY).format(DAY_FORMAT);
+        String monthStart = today.withDayOfMonth(1).format(DAY_FORMAT);
+        String retentionStart = today.minusDays(DAY_RETENTION).format(DAY_FORMAT);
+        
+        Map<Long, CategoryService.CategoryStatsResponse> categories = new LinkedHashMap<>();
+        for (Category category : categoryCacheService.getCategories(userId)) {
+            CategoryService.CategoryStatsResponse stats = new CategoryService.CategoryStatsResponse();
+            stats.setTotalCount(0L);
+            stats.setToday(0L);
+            stats.setThisWeek(0L);
+            stats.setThisMonth(0L);
+            categories.put(category.getId(), stats);
+        }
+        
+        List<Object> expiredFields = new ArrayList<>();
+        for (Map.Entry<String, String> entry : fields.entrySet()) {
+            String[] parts = entry.getKey().split(":");
+            if (parts.length < 2) {
+                continue;
+            }
+            CategoryService.CategoryStatsResponse stats = categories.get(Long.parseLong(parts[1]));
+            if (stats == null) {
+                continue;
+            }
+            
+            switch (parts[0]) {
+                case "t":
+                    stats.setTotalCount(Long.parseLong(entry.getValue()));
+                    break;
+                case "d":
+                    String day = parts[2];
+                    long count = Long.parseLong(entry.getValue());
+                    if (day.compareTo(retentionStart) < 0) {
+                        expiredFields.add(entry.getKey());
+                        break;
+                    }
+                    if (day.equals(todayKey)) {
+                        stats.setToday(stats.getToday() + count);
+                    }
+                    if (day.compareTo(weekStart) >= 0) {
+                        stats.setThisWeek(stats.getThisWeek() + count);
+                    }
+                    if (day.compareTo(monthStart) >= 0) {
+                        stats.setThisMonth(stats.getThisMonth() + count);
+                    }
+                    break;
+                case "l":
+                    stats.setRecentDiary(parseLast(entry.getValue()));
+                    break;
+                default:
+                    break;
+            }
+        }
+        
+        // 清理超出保留期的按天计数
+        if (!expiredFields.isEmpty()) {
+            runQuietly(() -> redisTemplate.opsForHash().delete(key, expiredFields.toArray()));
+        }
+        
+        // 最近一篇日记被移除后需要回查数据库
+        for (Map.Entry<Long, CategoryService.CategoryStatsResponse> entry : categories.entrySet()) {
+            CategoryService.CategoryStatsResponse stats = entry.getValue();
+            if (stats.getRecentDiary() == null && stats.getTotalCount() > 0) {
+                diaryRepository.findFirstByUserIdAndCategoryIdAndIsDeletedFalseOrderByCreateTimeDescIdDesc(userId, entry.getKey())
+                    .ifPresent(diary -> {
+                        stats.setRecentDiary(toRecentDiary(diary.getId(), diary.getCreateTime()));
+                        runQuietly(() -> updateLast(userId, entry.getKey(), diary.getCreateTime(), diary.getId()));
+                    });
+            }
+        }
+        
+        return summarize(categories);
+    }
+    
+    /**
+     * 读取统计哈希，不存在时从数据库重建
+     * 重建期间有日记变更提交时不写回Redis，只用于本次返回；Redis不可用时直接从数据库计算
+     */
+    private Map<String, String> readOrRebuild(Long userId, String key) {
+        List<String> keys = Arrays.asList(key, GEN_PREFIX + userId);
+        Long generation;
+        try {
+            Map<Object, Object> cached = redisTemplate.opsForHash().entries(key);
+            if (!cached.isEmpty()) {
+                Map<String, String> fields = new HashMap<>(cached.size());
+                cached.forEach((field, value) -> fields.put((String) field, (String) value));
+                return fields;
+            }
+            
+            // 先记下版本号再查询数据库，查询之后提交的变更会递增版本号
+            generation = redisTemplate.execute(BEGIN_REBUILD_SCRIPT, keys, generationTtlMillis());
+        } catch (Exception e) {
+            log.warn("读取日记统计缓存失败，回退到数据库，用户ID: {}", userId, e);
+            return loadFromDatabase(userId);
+        }
+        
+        Map<String, String> fields = loadFromDatabase(userId);
+        List<String> args = new ArrayList<>(fields.size() * 2 + 2);
+        args.add(String.valueOf(generation));
+        args.add(String.valueOf(ttl.toMillis()));
+        fields.forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        try {
+            Long written = redisTemplate.execute(COMMIT_REBUILD_SCRIPT, keys, args.toArray());
+            if (written != null && written == 1) {
+                log.debug("重建用户 {} 的日记统计，字段数: {}", userId, fields.size());
+            } else {
+                log.debug("重建用户 {} 的日记统计期间有变更，放弃写回", userId);
+            }
+        } catch (Exception e) {
+            log.warn("写入日记统计缓存失败，用户ID: {}", userId, e);
+        }
+        return fields;
+    }
+    
+    /**
+     * 用三个聚合查询计算统计哈希的全部字段
+     */
+    private Map<String, String> loadFromDatabase(Long userId) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put(MARKER_FIELD, "1");
+        
+        // 各分类总数
+        for (Object[] row : diaryRepository.countByCategory(userId)) {
+            fields.put("t:" + row[0], String.valueOf(row[1]));
+        }
+        
+        // 保留期内的按天计数
+        LocalDateTime since = LocalDate.now().minusDays(DAY_RETENTION).atStartOfDay();
+        for (Object[] row : diaryRepository.findCategoryAndCreateTimeSince(userId, since)) {
+            String field = "d:" + row[0] + ":" + ((LocalDateTime) row[1]).format(DAY_FORMAT);
+            fields.merge(field, "1", (a, b) -> String.valueOf(Long.parseLong(a) + 1));
+        }
+        
+        // 各分类最近一篇日记（同一时间取ID最大的一篇）
+        Map<String, Object[]> latest = new HashMap<>();
+        for (Object[] row : diaryRepository.findLatestPerCategory(userId)) {
+            latest.merge("l:" + row[0], row, (a, b) -> (Long) a[1] > (Long) b[1] ? a : b);
+        }
+        latest.forEach((field, row) ->
+            fields.put(field, toMillis((LocalDateTime) row[2]) + ":" + row[1]));
+        return fields;
+    }
+    
+    /**
+     * 汇总各分类统计
+     */
+    private DiaryStatsResponse summarize(Map<Long, CategoryService.CategoryStatsResponse> categories) {
+        DiaryStatsResponse response = new DiaryStatsResponse();
+        long total = 0, today = 0, week = 0, month = 0;
+        LocalDateTime lastDiaryTime = null;
+        for (CategoryService.CategoryStatsResponse stats : categories.values()) {
+            total += stats.getTotalCount();
+            today += stats.getToday();
+            week += stats.getThisWeek();
+            month += stats.getThisMonth();
+            if (stats.getRecentDiary() != null
+                && (lastDiaryTime == null || stats.getRecentDiary().getCreateTime().isAfter(lastDiaryTime))) {
+                lastDiaryTime = stats.getRecentDiary().getCreateTime();
+            }
+        }
+        response.setTotalCount(total);
+        response.setToday(today);
+        response.setThisWeek(week);
+        response.setThisMonth(month);
+        response.setLastDiaryTime(lastDiaryTime);
+        response.setCategories(categories);
+        return response;
+    }
+    
+    private void increment(Long userId, Long categoryId, LocalDateTime createTime, int delta) {
+        List<String> args = new ArrayList<>(5);
+        args.add(generationTtlMillis());
+        args.add("t:" + categoryId);
+        args.add(String.valueOf(delta));
+        if (createTime != null) {
+            args.add("d:" + categoryId + ":" + createTime.format(DAY_FORMAT));
+            args.add(String.valueOf(delta));
+        }
+        redisTemplate.execute(INCR_SCRIPT, keysOf(userId), args.toArray());
+    }
+    
+    private void updateLast(Long userId, Long categoryId, LocalDateTime createTime, Long diaryId) {
+        redisTemplate.execute(LAST_SCRIPT, keysOf(userId), generationTtlMillis(),
+            "l:" + categoryId, String.valueOf(toMillis(createTime)), String.valueOf(diaryId));
+    }
+    
+    private void clearLast(Long userId, Long categoryId) {
+        redisTemplate.execute(REMOVE_SCRIPT, keysOf(userId), generationTtlMillis(), "l:" + categoryId);
+    }
+    
+    private void remove(Long userId) {
+        redisTemplate.execute(REMOVE_SCRIPT, keysOf(userId), generationTtlMillis());
+    }
+    
+    private List<String> keysOf(Long userId) {
+        return Arrays.asList(STATS_PREFIX + userId, GEN_PREFIX + userId);
+    }
+    
+    /**
+     * 版本号比统计哈希多保留一个周期，重建期间不会过期
+     */
+    private String generationTtlMillis() {
+        return String.valueOf(ttl.toMillis() * 2);
+    }
+    
+    private CategoryService.CategoryStatsResponse.RecentDiary parseLast(String value) {
+        int index = value.indexOf(':');
+        LocalDateTime createTime = LocalDateTime.ofInstant(
+            Instant.ofEpochMilli(Long.parseLong(value.substring(0, index))), ZONE);
+        return toRecentDiary(Long.parseLong(value.substring(index + 1)), createTime);
+    }
+    
+    private CategoryService.CategoryStatsResponse.RecentDiary toRecentDiary(Long id, LocalDateTime createTime) {
+        CategoryService.CategoryStatsResponse.RecentDiary recentDiary = new CategoryService.CategoryStatsResponse.RecentDiary();
+        recentDiary.setId(id);
+        recentDiary.setCreateTime(createTime);
+        return recentDiary;
+    }
+    
+    private long toMillis(LocalDateTime time) {
+        return time.atZone(ZONE).toInstant().toEpochMilli();
+    }
+    
+    /**
+     * 在事务提交后执行统计更新；统计更新失败只记录日志，不影响业务，过期后自动重建
+     */
+    private void afterCommit(Runnable action) {
+        Runnable safeAction = () -> runQuietly(action);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safeAction.run();
+                }
+            });
+        } else {
+            safeAction.run();
+        }
+    }
+    
+    private void runQuietly(Runnable action) {
+        try {
+            action.run();
+        } catch (Exception e) {
+            log.warn("更新日记统计失败", e);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package io.github.uncleacc.yunlog.service;
+
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.model.OSSObject;
+import com.aliyun.oss.model.ObjectMetadata;
+import io.github.uncleacc.yunlog.config.OssProperties;
+import io.github.uncleacc.yunlog.entity.Attachment;
+import io.github.uncleacc.yunlog.repository.AttachmentRepository;
+import io.github.uncleacc.yunlog.util.ExifOrientation;
+import io.github.uncleacc.yunlog.util.ImageVariants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 图片缩略图生成服务
+ * 附件创建后异步下载原图，按配置的宽度生成 JPEG 缩略图并上传到原图同目录；
+ * 解码前先读取尺寸，像素数超过上限的图片不处理；重新编码时不写入 EXIF 等元数据，缩放前先按 EXIF 方向旋转
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageVariantService {
+    
+    @Value("${yunlog.image.variant-widths:320,640,1080}")
+    private String variantWidths;
+    
+    @Value("${yunlog.image.jpeg-quality:0.8}")
+    private float jpegQuality;
+    
+    @Value("${yunlog.image.max-pixels:40000000}")
+    private long maxPixels;
+    
+    private final OSS ossClient;
+    private final OssProperties ossProperties;
+    private final OssService ossService;
+    private final AttachmentRepository attachmentRepository;
+    private final ThreadPoolTaskExecutor imageProcessExecutor;
+    
+    /**
+     * 线程池队列已满被拒绝的任务数、因像素数超过上限跳过的图片数
+     */
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong oversizedCount = new AtomicLong();
+    
+    /**
+     * 为附件异步生成缩略图
+     * 在事务中调用时推迟到提交后执行，确保附件记录已可见
+     */
+    public void generateAsync(List<Attachment> attachments) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(attachments);
+                }
+            });
+        } else {
+            submit(attachments);
+        }
+    }
+    
+    /**
+     * 提交到图片处理线程池，队列已满时放弃生成（列表回退到原图）并计数
+     */
+    private void submit(List<Attachment> attachments) {
+        for (Attachment attachment : attachments) {
+            try {
+                imageProcessExecutor.execute(() -> generate(attachment.getId(), attachment.getUrl()));
+            } catch (TaskRejectedException e) {
+                rejectedCount.incrementAndGet();
+                log.warn("图片处理队列已满，跳过缩略图生成: attachmentId={}, url={}", attachment.getId(), attachment.getUrl());
+            }
+        }
+    }
+    
+    /**
+     * 因队列已满被拒绝的缩略图任务数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+    
+    /**
+     * 因像素数超过上限跳过的图片数
+     */
+    public long getOversizedCount() {
+        return oversizedCount.get();
+    }
+    
+    /**
+     * 生成缩略图并记录到附件
+     */
+    void generate(Long attachmentId, String url) {
+        // 只处理本应用 Bucket 中的图片
+        if (url == null || !url.startsWith(ossProperties.getUrlPrefix())) {
+            return;
+        }
+        
+        String objectName = ossService.extractObjectName(url);
+        try {
+            BufferedImage original = readImage(objectName, url);
+            if (original == null) {
+                return;
+            }
+            
+            List<Integer> generated = new ArrayList<>();
+            for (Integer width : ImageVariants.parseWidths(variantWidths)) {
+                // 原图比目标宽度还小时不生成
+                if (width >= original.getWidth()) {
+                    break;
+                }
+                byte[] jpeg = encodeJpeg(resize(original, width));
+                
+                ObjectMetadata metadata = new ObjectMetadata();
+                metadata.setContentType("image/jpeg");
+                metadata.setContentLength(jpeg.length);
+                ossClient.putObject(ossProperties.getBucketName(),
+                    ImageVariants.variantOf(objectName, width),
+                    new ByteArrayInputStream(jpeg),
+                    metadata);
+                generated.add(width);
+            }
+            
+            if (!generated.isEmpty()) {
+                attachmentRepository.updateVariantWidths(attachmentId, ImageVariants.formatWidths(generated));
+            }
+            log.info("缩略图生成完成: {}, 宽度={}", url, generated);
+            
+        } catch (Exception e) {
+            log.error("缩略图生成失败: {}", url, e);
+        }
+    }
+    
+    /**
+     * 读取原图并按 EXIF 方向旋转
+     * 先只读取文件头中的尺寸，像素数超过上限时不解码，避免超大图片（如解压炸弹）占满内存
+     * 
+     * @return 图片，格式不支持或尺寸超过上限时返回null
+     */
+    private BufferedImage readImage(String objectName, String url) throws IOException {
+        OSSObject object = ossClient.getObject(ossProperties.getBucketName(), objectName);
+        try (InputStream inputStream = object.getObjectContent();
+             ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream)) {
+            Iterator<ImageReader> readers = imageInputStream != null
+                ? ImageIO.getImageReaders(imageInputStream)
+                : null;
+            if (readers == null || !readers.hasNext()) {
+                log.info("不支持生成缩略图的图片格式，跳过: {}", url);
+                return null;
+            }
+            
+            int orientation = ExifOrientation.read(imageInputStream);
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInputStream, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    oversizedCount.incrementAndGet();
+                    log.warn("图片像素数超过上限，跳过缩略图生成: {}, {}x{}", url, reader.getWidth(0), reader.getHeight(0));
+                    return null;
+                }
+                
+                BufferedImage image = reader.read(0);
+                return ExifOrientation.apply(image, orientation);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+    
+    /**
+     * 等比缩放到指定宽度，透明背景填充为白色
+     */
+    private BufferedImage resize(BufferedImage source, int width) {
+        int height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+    
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+            writer.setOutput(imageOutputStream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,212 @@
+package io.github.uncleacc.yunlog.service;
+
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.model.DeleteObjectsRequest;
+import com.aliyun.oss.model.DeleteObjectsResult;
+import io.github.uncleacc.yunlog.config.OssProperties;
+import io.github.uncleacc.yunlog.entity.OssDeleteTask;
+import io.github.uncleacc.yunlog.repository.OssDeleteTaskRepository;
+import io.github.uncleacc.yunlog.util.RedisLock;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * OSS 删除发件箱服务
+ * 业务删除时只在同一事务中写入删除任务，后台任务定期批量调用 OSS 多对象删除，
+ * 按响应逐个确认删除结果，未确认的任务按指数退避重试
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OssDeleteOutboxService {
+    
+    // OSS 单次多对象删除的最大 key 数
+    private static final int MAX_KEYS_PER_REQUEST = 1000;
+    
+    private static final String LOCK_NAME = "oss-delete-outbox";
+    
+    @Value("${aliyun.oss.delete-outbox.max-batches-per-run:10}")
+    private int maxBatchesPerRun;
+    
+    @Value("${aliyun.oss.delete-outbox.retry-base-seconds:10}")
+    private long retryBaseSeconds;
+    
+    @Value("${aliyun.oss.delete-outbox.retry-max-seconds:3600}")
+    private long retryMaxSeconds;
+    
+    @Value("${aliyun.oss.delete-outbox.lock-ttl:5m}")
+    private Duration lockTtl;
+    
+    private final OSS ossClient;
+    private final OssProperties ossProperties;
+    private final OssDeleteTaskRepository ossDeleteTaskRepository;
+    private final RedisLock redisLock;
+    
+    /**
+     * 累计删除成功的对象数、累计失败的批次数
+     */
+    private final AtomicLong deletedCount = new AtomicLong();
+    private final AtomicLong failedBatchCount = new AtomicLong();
+    
+    /**
+     * 登记待删除的对象，需在业务事务中调用
+     * 
+     * @param objectNames OSS 对象名称列表
+     */
+    public void enqueue(Collection<String> objectNames) {
+        if (objectNames.isEmpty()) {
+            return;
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<OssDeleteTask> tasks = new ArrayList<>(objectNames.size());
+        for (String objectName : objectNames) {
+            OssDeleteTask task = new OssDeleteTask();
+            task.setObjectName(objectName);
+            task.setNextAttemptTime(now);
+            tasks.add(task);
+        }
+        ossDeleteTaskRepository.saveAll(tasks);
+    }
+    
+    /**
+     * 定期批量删除 OSS 对象
+     * 多实例部署时通过Redis锁保证同一时间只有一个实例执行，避免同一批任务被重复删除和重复安排重试
+     */
+    @Scheduled(fixedDelayString = "${aliyun.oss.delete-outbox.interval-millis:5000}")
+    public void drain() {
+        String token = redisLock.tryLock(LOCK_NAME, lockTtl);
+        if (token == null) {
+            log.debug("OSS 删除发件箱正在其他实例处理，跳过");
+            return;
+        }
+        
+        try {
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                List<OssDeleteTask> tasks = ossDeleteTaskRepository.findByNextAttemptTimeLessThanEqualOrderByIdAsc(
+                    LocalDateTime.now(), PageRequest.of(0, MAX_KEYS_PER_REQUEST));
+                if (tasks.isEmpty()) {
+                    return;
+                }
+                
+                // 有失败时本轮不再继续，等待下次调度
+                if (!deleteBatch(tasks) || tasks.size() < MAX_KEYS_PER_REQUEST) {
+                    return;
+                }
+            }
+        } finally {
+            redisLock.unlock(LOCK_NAME, token);
+        }
+    }
+    
+    /**
+     * 删除一批对象，按 OSS 返回的已删除 key 逐个确认：已删除的任务移除，其余任务安排重试
+     * 
+     * @return 是否全部删除成功
+     */
+    private boolean deleteBatch(List<OssDeleteTask> tasks) {
+        List<String> keys = tasks.stream()
+            .map(OssDeleteTask::getObjectName)
+            .distinct()
+            .collect(Collectors.toList());
+        
+        Set<String> deletedKeys;
+        try {
+            // 非 quiet 模式，响应中列出已删除的 key（对象不存在也算删除成功）
+            DeleteObjectsResult result = ossClient.deleteObjects(new DeleteObjectsRequest(ossProperties.getBucketName())
+                .withKeys(keys)
+                .withQuiet(false));
+            deletedKeys = result.getDeletedObjects() != null
+                ? new HashSet<>(result.getDeletedObjects())
+                : Collections.emptySet();
+        } catch (Exception e) {
+            failedBatchCount.incrementAndGet();
+            log.error("批量删除 OSS 对象失败，数量: {}", keys.size(), e);
+            scheduleRetry(tasks, String.valueOf(e.getMessage()));
+            return false;
+        }
+        
+        List<OssDeleteTask> done = new ArrayList<>(tasks.size());
+        List<OssDeleteTask> failed = new ArrayList<>();
+        for (OssDeleteTask task : tasks) {
+            (deletedKeys.contains(task.getObjectName()) ? done : failed).add(task);
+        }
+        if (!done.isEmpty()) {
+            ossDeleteTaskRepository.deleteAllInBatch(done);
+        }
+        long deleted = keys.stream().filter(deletedKeys::contains).count();
+        deletedCount.addAndGet(deleted);
+        
+        if (failed.isEmpty()) {
+            log.info("批量删除 OSS 对象成功，数量: {}", deleted);
+            return true;
+        }
+        failedBatchCount.incrementAndGet();
+        log.warn("批量删除 OSS 对象部分失败，成功: {}, 未确认删除: {}", deleted, keys.size() - deleted);
+        scheduleRetry(failed, "OSS 未确认删除");
+        return false;
+    }
+    
+    /**
+     * 待处理的删除任务数
+     */
+    public long getBacklog() {
+        return ossDeleteTaskRepository.count();
+    }
+    
+    /**
+     * 失败过、正在等待重试的删除任务数
+     */
+    public long getRetryingCount() {
+        return ossDeleteTaskRepository.countByAttemptsGreaterThan(0);
+    }
+    
+    /**
+     * 累计删除成功的对象数
+     */
+    public long getDeletedCount() {
+        return deletedCount.get();
+    }
+    
+    /**
+     * 累计失败的批次数
+     */
+    public long getFailedBatchCount() {
+        return failedBatchCount.get();
+    }
+    
+    /**
+     * 按指数退避安排重试，只更新重试相关字段；重试次数相同的任务合并为一条更新语句
+     */
+    private void scheduleRetry(List<OssDeleteTask> tasks, String error) {
+        if (error.length() > 500) {
+            error = error.substring(0, 500);
+        }
+        
+        Map<Integer, List<Long>> idsByAttempts = tasks.stream()
+            .collect(Collectors.groupingBy(OssDeleteTask::getAttempts,
+                Collectors.mapping(OssDeleteTask::getId, Collectors.toList())));
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<Integer, List<Long>> entry : idsByAttempts.entrySet()) {
+            int attempts = entry.getKey() + 1;
+            long delaySeconds = Math.min(retryMaxSeconds, retryBaseSeconds << Math.min(attempts - 1, 20));
+            ossDeleteTaskRepository.scheduleRetry(entry.getValue(), now.plusSeconds(delaySeconds), error);
+        }
+    }
+}
@@ -1,39 +1,121 @@
 package io.github.uncleacc.yunlog.service;
 
+import com.aliyun.oss.ClientException;
 import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.model.AbortMultipartUploadRequest;
 import com.aliyun.oss.model.CannedAccessControlList;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
 import com.aliyun.oss.model.CreateBucketRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadRequest;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.PartETag;
 import com.aliyun.oss.model.PutObjectRequest;
+import com.aliyun.oss.model.UploadPartRequest;
 import io.github.uncleacc.yunlog.config.OssProperties;
+import io.github.uncleacc.yunlog.context.UserContext;
+import io.github.uncleacc.yunlog.entity.OssObject;
 import io.github.uncleacc.yunlog.exception.BusinessException;
+import io.github.uncleacc.yunlog.repository.OssObjectRepository;
+import io.github.uncleacc.yunlog.util.BufferPool;
+import io.github.uncleacc.yunlog.util.ImageVariants;
+import io.github.uncleacc.yunlog.util.RedisLock;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.PostConstruct;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * 阿里云 OSS 文件上传服务
+ * 相同内容的文件只存储一份，对象索引按附件数计算引用；上传本身不占用引用，
+ * 无引用且超过保留期的对象由定时任务回收，所有 OSS 对象删除都经过删除发件箱
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class OssService {
     
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    
+    private static final String PURGE_LOCK_NAME = "oss-unreferenced-purge";
+    
+    // 登记到索引时并发冲突的最大重试次数
+    private static final int MAX_REGISTER_ATTEMPTS = 2;
+    
+    private static final int BULK_CHUNK_SIZE = 500;
+    
+    @Value("${aliyun.oss.unreferenced.retention:24h}")
+    private Duration unreferencedRetention;
+    
+    @Value("${aliyun.oss.unreferenced.purge-batch-size:200}")
+    private int purgeBatchSize;
+    
+    @Value("${aliyun.oss.unreferenced.purge-lock-ttl:10m}")
+    private Duration purgeLockTtl;
+    
+    @Value("${yunlog.image.variant-widths:320,640,1080}")
+    private String variantWidths;
+    
     private final OSS ossClient;
     private final OssProperties ossProperties;
+    private final ThreadPoolTaskExecutor ossUploadExecutor;
+    private final OssObjectRepository ossObjectRepository;
+    private final OssDeleteOutboxService ossDeleteOutboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final RedisLock redisLock;
+    
+    /**
+     * 流式上传的分片缓冲池
+     */
+    private BufferPool streamBufferPool;
+    
+    /**
+     * 流式上传统计：累计上传次数、累计字节数、缓冲区占用峰值（字节）
+     */
+    private final AtomicLong streamUploadCount = new AtomicLong();
+    private final AtomicLong streamUploadBytes = new AtomicLong();
+    private final AtomicLong streamBufferPeakBytes = new AtomicLong();
     
     /**
      * 初始化时检查并创建 Bucket
      */
     @PostConstruct
     public void init() {
+        OssProperties.Stream stream = ossProperties.getStream();
+        streamBufferPool = new BufferPool(stream.getPartSize(), stream.getMaxBuffers());
+        
         String bucketName = ossProperties.getBucketName();
         try {
             // 检查 Bucket 是否存在
@@ -63,13 +145,312 @@ public class OssService {
      * @return 文件访问 URL
      */
     public String uploadFile(MultipartFile file) {
+        validateImage(file);
+        return doUpload(file, UserContext.getUserId());
+    }
+    
+    /**
+     * 批量上传文件
+     * 使用上传线程池并行上传，单次请求的并发数受 maxConcurrencyPerRequest 限制；
+     * 任意文件上传失败时丢弃已上传成功的文件（与 discardUpload 规则相同，其他上传仍在使用的对象保留）并抛出异常
+     * 
+     * @param files 上传的文件数组
+     * @return 文件访问 URL 列表（与入参顺序一致）
+     */
+    public List<String> uploadFiles(MultipartFile[] files) {
+        if (files == null || files.length == 0) {
+            throw new BusinessException(400, "上传文件不能为空");
+        }
+        
+        // 先校验全部文件，避免上传到一半才发现非法文件
+        for (MultipartFile file : files) {
+            validateImage(file);
+        }
+        
+        // 用户上下文不会传递到上传线程
+        Long uploaderId = UserContext.getUserId();
+        Semaphore permits = new Semaphore(ossProperties.getUpload().getMaxConcurrencyPerRequest());
+        List<CompletableFuture<String>> futures = new ArrayList<>(files.length);
+        for (MultipartFile file : files) {
+            permits.acquireUninterruptibly();
+            futures.add(CompletableFuture.supplyAsync(() -> doUpload(file, uploaderId), ossUploadExecutor)
+                .whenComplete((url, e) -> permits.release()));
+        }
+        
+        // 按入参顺序收集结果，等待所有任务结束后再统一处理失败
+        List<String> urls = new ArrayList<>(files.length);
+        RuntimeException failure = null;
+        for (CompletableFuture<String> future : futures) {
+            try {
+                urls.add(future.join());
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException
+                        ? (RuntimeException) e.getCause()
+                        : new BusinessException(500, "文件上传失败: " + e.getCause().getMessage());
+                }
+            }
+        }
+        
+        if (failure != null) {
+            int discarded = 0;
+            for (String url : urls) {
+                if (discard(url, uploaderId)) {
+                    discarded++;
+                }
+            }
+            log.warn("批量上传部分失败，已上传 {} 个文件，丢弃 {} 个", urls.size(), discarded);
+            throw failure;
+        }
+        
+        return urls;
+    }
+    
+    /**
+     * 流式上传图片到 OSS
+     * 直接从请求体读取数据，按固定大小分片写入 OSS 分片上传，每个上传只占用一个池化缓冲区，
+     * 不经过 Spring multipart 的磁盘/内存暂存；单个分片失败时从缓冲区重新上传该分片
+     * 
+     * @param inputStream 请求体输入流
+     * @param contentType 文件类型
+     * @param originalFilename 原始文件名（用于确定扩展名，可为空）
+     * @return 文件访问 URL
+     */
+    public String uploadStream(InputStream inputStream, String contentType, String originalFilename) {
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new BusinessException(400, "只支持上传图片文件");
+        }
+        
+        OssProperties.Stream stream = ossProperties.getStream();
+        String bucketName = ossProperties.getBucketName();
+        // 没有文件名时按文件类型确定扩展名，如 image/png -> .png
+        if (originalFilename == null || originalFilename.isEmpty()) {
+            String subtype = contentType.substring("image/".length());
+            int plusIndex = subtype.indexOf('+');
+            originalFilename = "image." + (plusIndex > 0 ? subtype.substring(0, plusIndex) : subtype);
+        }
+        String objectName = ossProperties.getFolder() + generateFileName(originalFilename);
+        
+        byte[] buffer = acquireStreamBuffer(stream.getAcquireTimeoutMillis());
+        String uploadId = null;
+        try {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentType(contentType);
+            uploadId = ossClient.initiateMultipartUpload(
+                new InitiateMultipartUploadRequest(bucketName, objectName, metadata)).getUploadId();
+            
+            List<PartETag> partETags = new ArrayList<>();
+            MessageDigest digest = newDigest();
+            long totalBytes = 0;
+            int length;
+            while ((length = readFully(inputStream, buffer)) > 0) {
+                digest.update(buffer, 0, length);
+                totalBytes += length;
+                if (totalBytes > stream.getMaxObjectSize()) {
+                    throw new BusinessException(400, "文件大小超过限制");
+                }
+                partETags.add(uploadPartWithRetry(objectName, uploadId, partETags.size() + 1, buffer, length));
+            }
+            
+            if (partETags.isEmpty()) {
+                throw new BusinessException(400, "上传文件不能为空");
+            }
+            
+            ossClient.completeMultipartUpload(
+                new CompleteMultipartUploadRequest(bucketName, objectName, uploadId, partETags));
+            
+            streamUploadCount.incrementAndGet();
+            streamUploadBytes.addAndGet(totalBytes);
+            
+            // 流式上传只有传完才知道内容哈希，重复时删除刚上传的对象并复用已有对象
+            String fileUrl = register(toHex(digest.digest()), objectName, totalBytes, UserContext.getUserId());
+            log.info("流式上传成功: {}, 大小={}KB, 分片数={}, 缓冲区占用={}KB",
+                fileUrl, totalBytes / 1024, partETags.size(), buffer.length / 1024);
+            return fileUrl;
+            
+        } catch (IOException e) {
+            abortMultipartUpload(objectName, uploadId);
+            log.error("流式上传读取请求体失败: {}", objectName, e);
+            throw new BusinessException(500, "文件上传失败: " + e.getMessage());
+        } catch (RuntimeException e) {
+            abortMultipartUpload(objectName, uploadId);
+            throw e;
+        } finally {
+            streamBufferPool.release(buffer);
+        }
+    }
+    
+    /**
+     * 流式上传累计次数
+     */
+    public long getStreamUploadCount() {
+        return streamUploadCount.get();
+    }
+    
+    /**
+     * 流式上传累计字节数
+     */
+    public long getStreamUploadBytes() {
+        return streamUploadBytes.get();
+    }
+    
+    /**
+     * 流式上传当前占用的缓冲区字节数
+     */
+    public long getStreamBufferBytesInUse() {
+        return (long) streamBufferPool.getInUse() * streamBufferPool.getBufferSize();
+    }
+    
+    /**
+     * 流式上传缓冲区占用峰值（字节）
+     */
+    public long getStreamBufferPeakBytes() {
+        return streamBufferPeakBytes.get();
+    }
+    
+    /**
+     * 丢弃调用者上传、尚未被附件引用的文件（如编辑器中移除的临时图片）
+     * 只有调用者是唯一未丢弃的上传者时才删除；还有其他上传（包括其他用户的上传命中）时只减少上传次数，
+     * 对象无引用时由定时任务回收；已被附件引用或未登记到对象索引的文件不做处理
+     * 
+     * @param fileUrl 文件 URL
+     * @return 是否已登记删除
+     */
+    public boolean discardUpload(String fileUrl) {
+        if (fileUrl == null || fileUrl.isEmpty()) {
+            return false;
+        }
+        return discard(fileUrl, UserContext.getUserId());
+    }
+    
+    /**
+     * 丢弃指定用户的一次上传，只有该用户是唯一未丢弃的上传者时才登记删除
+     */
+    private boolean discard(String fileUrl, Long userId) {
+        String objectName = extractObjectName(fileUrl);
+        Boolean discarded = transactionTemplate.execute(status -> {
+            if (ossObjectRepository.deleteUnattached(objectName, userId) == 0) {
+                ossObjectRepository.discardPendingUpload(objectName, userId);
+                return false;
+            }
+            enqueueDelete(Collections.singletonList(objectName));
+            return true;
+        });
+        
+        if (Boolean.TRUE.equals(discarded)) {
+            log.info("已丢弃未引用的上传文件: {}", fileUrl);
+            return true;
+        }
+        log.info("文件已被引用、还有其他上传或不属于当前用户，忽略删除: {}", fileUrl);
+        return false;
+    }
+    
+    /**
+     * 增加文件的一个引用（创建附件时调用）
+     * 只更新对象索引，不访问 OSS；在事务中调用时随事务一起提交
+     * 
+     * @param fileUrl 文件 URL
+     * @return 更新的行数，0 表示对象未登记到索引或已被丢弃、回收，调用方不能再引用该文件
+     */
+    public int retain(String fileUrl) {
+        return ossObjectRepository.incrementRefCount(extractObjectName(fileUrl));
+    }
+    
+    /**
+     * 释放文件引用（删除附件时调用），同一文件出现几次释放几个引用
+     * 一次查询找出已登记的对象，按释放数量分组，每组一条更新语句；只更新对象索引，不访问 OSS，
+     * 在事务中调用时随事务一起提交，已登记的对象引用归零后保留一段时间，由定时任务回收
+     * 
+     * @param fileUrls 文件 URL 列表
+     * @return 未登记到索引的历史文件的对象名称，需要调用方直接登记删除
+     */
+    public Set<String> release(Collection<String> fileUrls) {
+        Map<String, Integer> releaseCounts = new HashMap<>();
+        for (String fileUrl : fileUrls) {
+            releaseCounts.merge(extractObjectName(fileUrl), 1, Integer::sum);
+        }
+        
+        Set<String> unregistered = new HashSet<>(releaseCounts.keySet());
+        for (List<String> chunk : chunks(new ArrayList<>(releaseCounts.keySet()))) {
+            unregistered.removeAll(ossObjectRepository.findObjectNamesIn(chunk));
+        }
+        
+        Map<Integer, List<String>> namesByCount = releaseCounts.entrySet().stream()
+            .filter(entry -> !unregistered.contains(entry.getKey()))
+            .collect(Collectors.groupingBy(Map.Entry::getValue,
+                Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<Integer, List<String>> entry : namesByCount.entrySet()) {
+            for (List<String> chunk : chunks(entry.getValue())) {
+                ossObjectRepository.decrementRefCounts(chunk, entry.getKey(), now);
+            }
+        }
+        return unregistered;
+    }
+    
+    /**
+     * 定时回收无引用且超过保留期的对象，连同缩略图登记到删除发件箱
+     * 多实例部署时通过Redis锁保证同一时间只有一个实例执行
+     */
+    @Scheduled(cron = "${aliyun.oss.unreferenced.purge-cron:0 0 4 * * ?}")
+    public void purgeUnreferenced() {
+        String token = redisLock.tryLock(PURGE_LOCK_NAME, purgeLockTtl);
+        if (token == null) {
+            log.info("未引用 OSS 对象回收任务正在其他实例执行，跳过");
+            return;
+        }
+        
+        try {
+            LocalDateTime expireTime = LocalDateTime.now().minus(unreferencedRetention);
+            PageRequest batch = PageRequest.of(0, purgeBatchSize);
+            long purged = 0;
+            List<String> candidates;
+            // 未删除的记录（查询之后又被引用或上传命中）已不满足查询条件，每批都从头查询
+            while (!(candidates = ossObjectRepository.findUnreferencedObjectNames(expireTime, batch)).isEmpty()) {
+                List<String> batchNames = candidates;
+                Integer deleted = transactionTemplate.execute(status -> {
+                    List<String> objectNames = new ArrayList<>();
+                    for (String objectName : batchNames) {
+                        if (ossObjectRepository.deleteUnreferenced(objectName, expireTime) > 0) {
+                            objectNames.add(objectName);
+                        }
+                    }
+                    enqueueDelete(objectNames);
+                    return objectNames.size();
+                });
+                purged += deleted != null ? deleted : 0;
+            }
+            log.info("未引用 OSS 对象回收完成，数量: {}", purged);
+        } finally {
+            redisLock.unlock(PURGE_LOCK_NAME, token);
+        }
+    }
+    
+    /**
+     * 登记删除原图及其可能存在的缩略图，需在事务中调用
+     */
+    private void enqueueDelete(List<String> objectNames) {
+        List<Integer> widths = ImageVariants.parseWidths(variantWidths);
+        List<String> keys = new ArrayList<>(objectNames.size() * (widths.size() + 1));
+        for (String objectName : objectNames) {
+            keys.add(objectName);
+            for (Integer width : widths) {
+                keys.add(ImageVariants.variantOf(objectName, width));
+            }
+        }
+        ossDeleteOutboxService.enqueue(keys);
+    }
+    
+    /**
+     * 校验上传的图片文件
+     */
+    private void validateImage(MultipartFile file) {
         if (file == null || file.isEmpty()) {
             throw new BusinessException(400, "上传文件不能为空");
         }
         
         // 获取原始文件名
-        String originalFilename = file.getOriginalFilename();
-        if (originalFilename == null) {
+        if (file.getOriginalFilename() == null) {
             throw new BusinessException(400, "文件名不能为空");
         }
         
@@ -84,8 +465,23 @@ public class OssService {
         if (file.getSize() > maxSize) {
             throw new BusinessException(400, "文件大小不能超过 10MB");
         }
+    }
+    
+    /**
+     * 将已校验的文件上传到 OSS
+     */
+    private String doUpload(MultipartFile file, Long uploaderId) {
+        String originalFilename = file.getOriginalFilename();
         
         try {
+            // 相同内容的文件已上传过时直接复用，跳过上传
+            String contentHash = hash(file);
+            String existingUrl = reuseExisting(contentHash, uploaderId);
+            if (existingUrl != null) {
+                log.info("文件内容已存在，复用对象: {} -> {}", originalFilename, existingUrl);
+                return existingUrl;
+            }
+            
             // 生成唯一文件名
             String fileName = generateFileName(originalFilename);
             
@@ -93,17 +489,18 @@ public class OssService {
             String objectName = ossProperties.getFolder() + fileName;
             
             // 上传文件到 OSS
-            InputStream inputStream = file.getInputStream();
-            PutObjectRequest putObjectRequest = new PutObjectRequest(
-                ossProperties.getBucketName(), 
-                objectName, 
-                inputStream
-            );
-            
-            ossClient.putObject(putObjectRequest);
+            try (InputStream inputStream = file.getInputStream()) {
+                PutObjectRequest putObjectRequest = new PutObjectRequest(
+                    ossProperties.getBucketName(), 
+                    objectName, 
+                    inputStream
+                );
+                
+                ossClient.putObject(putObjectRequest);
+            }
             
-            // 构建文件访问 URL
-            String fileUrl = ossProperties.getUrlPrefix() + objectName;
+            // 登记到对象索引，返回文件访问 URL
+            String fileUrl = register(contentHash, objectName, file.getSize(), uploaderId);
             
             log.info("文件上传成功: {} -> {}", originalFilename, fileUrl);
             
@@ -116,70 +513,192 @@ public class OssService {
     }
     
     /**
-     * 批量上传文件
+     * 查找相同内容的已有对象，记录本次使用，使其在保留期内不被回收
      * 
-     * @param files 上传的文件数组
-     * @return 文件访问 URL 列表
+     * @return 已有对象的访问 URL，不存在或已被回收时返回null
      */
-    public java.util.List<String> uploadFiles(MultipartFile[] files) {
-        if (files == null || files.length == 0) {
-            throw new BusinessException(400, "上传文件不能为空");
+    private String reuseExisting(String contentHash, Long uploaderId) {
+        if (ossObjectRepository.touch(contentHash, uploaderId, LocalDateTime.now()) == 0) {
+            return null;
         }
-        
-        java.util.List<String> urls = new java.util.ArrayList<>();
-        for (MultipartFile file : files) {
-            String url = uploadFile(file);
-            urls.add(url);
+        return ossObjectRepository.findByContentHash(contentHash)
+            .map(existing -> ossProperties.getUrlPrefix() + existing.getObjectName())
+            .orElse(null);
+    }
+    
+    /**
+     * 将新上传的对象登记到对象索引，此时还没有附件引用
+     * 并发上传相同内容时只有一个能登记成功，其余登记删除自己上传的对象并复用已登记的对象
+     * 
+     * @return 最终使用的文件访问 URL
+     */
+    private String register(String contentHash, String objectName, long size, Long uploaderId) {
+        for (int attempt = 0; attempt < MAX_REGISTER_ATTEMPTS; attempt++) {
+            OssObject ossObject = new OssObject();
+            ossObject.setContentHash(contentHash);
+            ossObject.setObjectName(objectName);
+            ossObject.setSize(size);
+            ossObject.setRefCount(0);
+            ossObject.setPendingUploads(1);
+            ossObject.setUploaderId(uploaderId);
+            ossObject.setLastUsedTime(LocalDateTime.now());
+            try {
+                ossObjectRepository.save(ossObject);
+                return ossProperties.getUrlPrefix() + objectName;
+            } catch (DataIntegrityViolationException e) {
+                // 已登记的对象恰好在此时被回收时重新登记
+                String existingUrl = reuseExisting(contentHash, uploaderId);
+                if (existingUrl != null) {
+                    transactionTemplate.executeWithoutResult(status -> enqueueDelete(Collections.singletonList(objectName)));
+                    log.info("相同内容的对象已被并发登记，登记删除重复对象: {}", objectName);
+                    return existingUrl;
+                }
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> enqueueDelete(Collections.singletonList(objectName)));
+        throw new BusinessException(500, "文件登记失败，请重试");
+    }
+    
+    /**
+     * 计算文件内容的 SHA-256 哈希
+     */
+    private String hash(MultipartFile file) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[8192];
+        try (InputStream inputStream = file.getInputStream()) {
+            int read;
+            while ((read = inputStream.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest.digest());
+    }
+    
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前JVM不支持SHA-256", e);
+        }
+    }
+    
+    private String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+    
+    /**
+     * 从缓冲池获取分片缓冲区，并更新占用峰值
+     */
+    private byte[] acquireStreamBuffer(long timeoutMillis) {
+        byte[] buffer;
+        try {
+            buffer = streamBufferPool.acquire(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(503, "上传服务繁忙，请稍后重试");
+        }
+        if (buffer == null) {
+            throw new BusinessException(503, "上传服务繁忙，请稍后重试");
         }
         
-        return urls;
+        long inUse = getStreamBufferBytesInUse();
+        streamBufferPeakBytes.accumulateAndGet(inUse, Math::max);
+        return buffer;
     }
     
     /**
-     * 删除 OSS 文件
-     * 
-     * @param fileUrl 文件 URL
+     * 上传单个分片，可重试的失败从缓冲区重新上传该分片，其他失败直接放弃（由调用方取消分片上传）
      */
-    public void deleteFile(String fileUrl) {
-        if (fileUrl == null || fileUrl.isEmpty()) {
+    private PartETag uploadPartWithRetry(String objectName, String uploadId, int partNumber, byte[] buffer, int length) {
+        int maxRetries = ossProperties.getStream().getMaxPartRetries();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                UploadPartRequest request = new UploadPartRequest(
+                    ossProperties.getBucketName(),
+                    objectName,
+                    uploadId,
+                    partNumber,
+                    new ByteArrayInputStream(buffer, 0, length),
+                    length
+                );
+                return ossClient.uploadPart(request).getPartETag();
+            } catch (RuntimeException e) {
+                if (attempt >= maxRetries || !isRetryable(e)) {
+                    log.error("分片上传失败: {}, 分片={}, 已重试{}次", objectName, partNumber, attempt, e);
+                    throw new BusinessException(500, "文件上传失败: " + e.getMessage());
+                }
+                log.warn("分片上传失败，准备重试: {}, 分片={}, 第{}次", objectName, partNumber, attempt + 1);
+            }
+        }
+    }
+    
+    /**
+     * 网络错误和 OSS 的内部错误、请求超时可以重试；其他 OSS 错误（如上传已取消、无权限）重试也不会成功
+     */
+    private boolean isRetryable(RuntimeException e) {
+        if (e instanceof ClientException) {
+            return true;
+        }
+        if (e instanceof OSSException) {
+            String errorCode = ((OSSException) e).getErrorCode();
+            return OSSErrorCode.INTERNAL_ERROR.equals(errorCode) || OSSErrorCode.REQUEST_TIMEOUT.equals(errorCode);
+        }
+        return false;
+    }
+    
+    /**
+     * 取消分片上传，释放 OSS 上已上传的分片
+     */
+    private void abortMultipartUpload(String objectName, String uploadId) {
+        if (uploadId == null) {
             return;
         }
-        
         try {
-            // 从 URL 中提取对象名称
-            String objectName = extractObjectName(fileUrl);
-            
-            // 删除文件
-            ossClient.deleteObject(ossProperties.getBucketName(), objectName);
-            
-            log.info("文件删除成功: {}", fileUrl);
-            
+            ossClient.abortMultipartUpload(
+                new AbortMultipartUploadRequest(ossProperties.getBucketName(), objectName, uploadId));
         } catch (Exception e) {
-            log.error("文件删除失败: {}", fileUrl, e);
-            // 删除失败不抛异常，只记录日志
+            log.error("取消分片上传失败: {}, uploadId={}", objectName, uploadId, e);
         }
     }
     
     /**
-     * 批量删除文件
+     * 从输入流读满缓冲区，直到缓冲区满或流结束
      * 
-     * @param fileUrls 文件 URL 列表
+     * @return 实际读取的字节数，流已结束返回0
      */
-    public void deleteFiles(java.util.List<String> fileUrls) {
-        if (fileUrls == null || fileUrls.isEmpty()) {
-            return;
+    private int readFully(InputStream inputStream, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = inputStream.read(buffer, total, buffer.length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
         }
-        
-        for (String fileUrl : fileUrls) {
-            deleteFile(fileUrl);
+        return total;
+    }
+    
+    /**
+     * 按 BULK_CHUNK_SIZE 切分对象名称列表，避免 IN 列表过长
+     */
+    private List<List<String>> chunks(List<String> objectNames) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < objectNames.size(); i += BULK_CHUNK_SIZE) {
+            chunks.add(objectNames.subList(i, Math.min(objectNames.size(), i + BULK_CHUNK_SIZE)));
         }
+        return chunks;
     }
     
     /**
      * 生成唯一文件名
      * 格式: yyyyMMdd/UUID.扩展名
      */
-    private String generateFileName(String originalFilename) {
+    String generateFileName(String originalFilename) {
         // 获取文件扩展名
         String extension = "";
         int dotIndex = originalFilename.lastIndexOf(".");
@@ -200,7 +719,7 @@ public class OssService {
     /**
      * 从 URL 中提取对象名称
      */
-    private String extractObjectName(String fileUrl) {
+    String extractObjectName(String fileUrl) {
         String urlPrefix = ossProperties.getUrlPrefix();
         if (fileUrl.startsWith(urlPrefix)) {
             return fileUrl.substring(urlPrefix.length());
@@ -0,0 +1,164 @@
+package io.github.uncleacc.yunlog.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 短信验证码存储
+ * 签发和校验各由一个Lua脚本完成，单次往返且原子：
+ * 签发时检查手机号冷却期和IP令牌桶，校验时比较并删除，错误次数达到上限后作废验证码
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SmsCodeStore {
+    
+    // 验证码在Redis中的key前缀（哈希：code 验证码, attempts 错误次数）
+    private static final String CODE_PREFIX = "sms:code:";
+    
+    // 手机号发送冷却key前缀
+    private static final String COOLDOWN_PREFIX = "sms:cooldown:";
+    
+    // IP令牌桶key前缀（哈希：tokens 剩余令牌, ts 上次补充时间）
+    private static final String BUCKET_PREFIX = "sms:bucket:";
+    
+    /**
+     * 签发验证码
+     * KEYS: 验证码key, 冷却key, 令牌桶key
+     * ARGV: 验证码, 验证码有效期ms, 冷却时间ms, 桶容量, 每秒补充令牌数, 当前时间ms
+     * 返回 {状态, 剩余等待ms}：1 成功，-1 冷却中，-2 IP限流
+     */
+    private static final DefaultRedisScript<List> ISSUE_SCRIPT = new DefaultRedisScript<>(
+        "local cooldown = redis.call('pttl', KEYS[2]) " +
+        "if cooldown > 0 then return {-1, cooldown} end " +
+        "local capacity = tonumber(ARGV[4]) " +
+        "local rate = tonumber(ARGV[5]) " +
+        "local now = tonumber(ARGV[6]) " +
+        "local bucket = redis.call('hmget', KEYS[3], 'tokens', 'ts') " +
+        "local tokens = tonumber(bucket[1]) or capacity " +
+        "local ts = tonumber(bucket[2]) or now " +
+        "tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate / 1000) " +
+        "if tokens < 1 then return {-2, math.ceil((1 - tokens) * 1000 / rate)} end " +
+        "redis.call('hmset', KEYS[3], 'tokens', tostring(tokens - 1), 'ts', ARGV[6]) " +
+        "redis.call('pexpire', KEYS[3], math.ceil(capacity * 1000 / rate)) " +
+        "redis.call('set', KEYS[2], '1', 'PX', ARGV[3]) " +
+        "redis.call('del', KEYS[1]) " +
+        "redis.call('hmset', KEYS[1], 'code', ARGV[1], 'attempts', '0') " +
+        "redis.call('pexpire', KEYS[1], ARGV[2]) " +
+        "return {1, 0}",
+        List.class);
+    
+    /**
+     * 校验并消费验证码
+     * KEYS: 验证码key
+     * ARGV: 待校验的验证码, 最大错误次数
+     * 返回：1 匹配（已删除），0 不存在或已过期，-1 不匹配，-2 错误次数达到上限（已作废）
+     */
+    private static final DefaultRedisScript<Long> VERIFY_SCRIPT = new DefaultRedisScript<>(
+        "local stored = redis.call('hget', KEYS[1], 'code') " +
+        "if not stored then return 0 end " +
+        "if stored == ARGV[1] then redis.call('del', KEYS[1]) return 1 end " +
+        "local attempts = redis.call('hincrby', KEYS[1], 'attempts', 1) " +
+        "if attempts >= tonumber(ARGV[2]) then redis.call('del', KEYS[1]) return -2 end " +
+        "return -1",
+        Long.class);
+    
+    @Value("${yunlog.sms.code-ttl:5m}")
+    private Duration codeTtl;
+    
+    @Value("${yunlog.sms.cooldown:60s}")
+    private Duration cooldown;
+    
+    @Value("${yunlog.sms.max-attempts:5}")
+    private int maxAttempts;
+    
+    @Value("${yunlog.sms.ip-bucket-capacity:10}")
+    private int ipBucketCapacity;
+    
+    @Value("${yunlog.sms.ip-refill-per-minute:5}")
+    private double ipRefillPerMinute;
+    
+    private final StringRedisTemplate redisTemplate;
+    
+    /**
+     * 签发结果
+     */
+    public enum IssueStatus {
+        ISSUED, COOLDOWN, RATE_LIMITED
+    }
+    
+    /**
+     * 签发结果及需要等待的时间
+     */
+    public static class IssueResult {
+        private final IssueStatus status;
+        private final long retryAfterMillis;
+        
+        IssueResult(IssueStatus status, long retryAfterMillis) {
+            this.status = status;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+        
+        public IssueStatus getStatus() { return status; }
+        public long getRetryAfterMillis() { return retryAfterMillis; }
+    }
+    
+    /**
+     * 校验结果
+     */
+    public enum VerifyResult {
+        MATCHED, MISSING, MISMATCH, EXHAUSTED
+    }
+    
+    /**
+     * 签发验证码：手机号不在冷却期且IP还有令牌时保存验证码（覆盖旧验证码并清零错误次数）
+     */
+    public IssueResult issue(String phone, String code, String clientIp) {
+        List<?> result = redisTemplate.execute(ISSUE_SCRIPT,
+            Arrays.asList(CODE_PREFIX + phone, COOLDOWN_PREFIX + phone, BUCKET_PREFIX + clientIp),
+            code,
+            String.valueOf(codeTtl.toMillis()),
+            String.valueOf(cooldown.toMillis()),
+            String.valueOf(ipBucketCapacity),
+            String.valueOf(ipRefillPerMinute / 60),
+            String.valueOf(System.currentTimeMillis()));
+        
+        long status = ((Number) result.get(0)).longValue();
+        long retryAfter = ((Number) result.get(1)).longValue();
+        if (status == 1) {
+            return new IssueResult(IssueStatus.ISSUED, 0);
+        }
+        return new IssueResult(status == -1 ? IssueStatus.COOLDOWN : IssueStatus.RATE_LIMITED, retryAfter);
+    }
+    
+    /**
+     * 校验验证码，匹配时立即删除，保证同一验证码只能使用一次
+     */
+    public VerifyResult verify(String phone, String code) {
+        Long result = redisTemplate.execute(VERIFY_SCRIPT,
+            Collections.singletonList(CODE_PREFIX + phone), code, String.valueOf(maxAttempts));
+        if (result == null || result == 0) {
+            return VerifyResult.MISSING;
+        }
+        if (result == 1) {
+            return VerifyResult.MATCHED;
+        }
+        return result == -2 ? VerifyResult.EXHAUSTED : VerifyResult.MISMATCH;
+    }
+    
+    /**
+     * 作废验证码和冷却期（短信发送失败时调用，允许用户立即重试）
+     */
+    public void discard(String phone) {
+        redisTemplate.delete(Arrays.asList(CODE_PREFIX + phone, COOLDOWN_PREFIX + phone));
+    }
+}
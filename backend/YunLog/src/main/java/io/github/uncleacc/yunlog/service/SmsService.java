@@ -8,14 +8,16 @@ public interface SmsService {
     
     /**
      * 发送验证码短信
+     * 同一手机号在冷却期内、或同一IP请求过于频繁时抛出 BusinessException(429)
      * @param phone 手机号
      * @param code 验证码
+     * @param clientIp 请求方IP，用于限流
      * @return 是否发送成功
      */
-    boolean sendVerifyCode(String phone, String code);
+    boolean sendVerifyCode(String phone, String code, String clientIp);
     
     /**
-     * 验证验证码
+     * 验证验证码，验证成功后验证码立即失效；错误次数达到上限时验证码作废并抛出 BusinessException(401)
      * @param phone 手机号
      * @param code 验证码
      * @return 是否验证成功
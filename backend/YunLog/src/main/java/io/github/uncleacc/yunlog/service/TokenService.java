@@ -0,0 +1,231 @@
+package io.github.uncleacc.yunlog.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.github.uncleacc.yunlog.dto.auth.AuthResponse;
+import io.github.uncleacc.yunlog.exception.BusinessException;
+import io.github.uncleacc.yunlog.util.JwtUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 令牌服务：签发访问token和刷新token、刷新时轮换、按用户吊销
+ * 吊销使用每个用户一个递增的版本号（Redis auth:epoch:{userId}），token中记录签发时的版本号，
+ * 版本号小于当前值的token全部失效；当前版本号在本地缓存 local-ttl，拦截器热路径只做一次内存查询
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TokenService {
+    
+    // 用户吊销版本号key前缀
+    private static final String EPOCH_PREFIX = "auth:epoch:";
+    
+    // 刷新token key前缀（哈希：epoch 签发时的版本号, username 用户名），key中只保存token随机部分的摘要
+    private static final String REFRESH_PREFIX = "auth:refresh:";
+    
+    private static final int REFRESH_TOKEN_BYTES = 32;
+    
+    /**
+     * 签发刷新token
+     * KEYS: 版本号key, 刷新token key
+     * ARGV: 用户名, 有效期ms
+     * 返回当前版本号
+     */
+    private static final DefaultRedisScript<Long> ISSUE_SCRIPT = new DefaultRedisScript<>(
+        "local epoch = redis.call('get', KEYS[1]) or '0' " +
+        "redis.call('hmset', KEYS[2], 'epoch', epoch, 'username', ARGV[1]) " +
+        "redis.call('pexpire', KEYS[2], ARGV[2]) " +
+        "return tonumber(epoch)",
+        Long.class);
+    
+    /**
+     * 轮换刷新token：旧token删除，版本号未变化时以同样内容写入新token
+     * 同一个刷新token并发使用时只有一个请求成功
+     * KEYS: 旧刷新token key, 新刷新token key, 版本号key
+     * ARGV: 有效期ms
+     * 返回 {版本号, 用户名}，旧token不存在或已被吊销时返回nil
+     */
+    private static final DefaultRedisScript<List> ROTATE_SCRIPT = new DefaultRedisScript<>(
+        "local stored = redis.call('hmget', KEYS[1], 'epoch', 'username') " +
+        "if not stored[1] then return nil end " +
+        "redis.call('del', KEYS[1]) " +
+        "local epoch = redis.call('get', KEYS[3]) or '0' " +
+        "if tonumber(stored[1]) < tonumber(epoch) then return nil end " +
+        "redis.call('hmset', KEYS[2], 'epoch', epoch, 'username', stored[2]) " +
+        "redis.call('pexpire', KEYS[2], ARGV[1]) " +
+        "return {tonumber(epoch), stored[2]}",
+        List.class);
+    
+    @Value("${jwt.refresh.ttl:30d}")
+    private Duration refreshTtl;
+    
+    @Value("${jwt.revocation.local-ttl:5s}")
+    private Duration revocationLocalTtl;
+    
+    @Value("${jwt.revocation.local-max-size:100000}")
+    private long revocationLocalMaxSize;
+    
+    private final JwtUtil jwtUtil;
+    private final StringRedisTemplate redisTemplate;
+    
+    private final SecureRandom secureRandom = new SecureRandom();
+    
+    /**
+     * 用户ID -> 当前吊销版本号
+     */
+    private LoadingCache<Long, Long> epochs;
+    
+    @PostConstruct
+    public void init() {
+        epochs = Caffeine.newBuilder()
+            .maximumSize(revocationLocalMaxSize)
+            .expireAfterWrite(revocationLocalTtl)
+            .build(this::loadEpoch);
+    }
+    
+    /**
+     * 登录成功后签发访问token和刷新token
+     */
+    public AuthResponse issue(Long userId, String username) {
+        String secretPart = randomToken();
+        Long epoch = redisTemplate.execute(ISSUE_SCRIPT,
+            Arrays.asList(EPOCH_PREFIX + userId, refreshKey(userId, secretPart)),
+            username, String.valueOf(refreshTtl.toMillis()));
+        return buildResponse(userId, username, epoch != null ? epoch : 0L, userId + "." + secretPart);
+    }
+    
+    /**
+     * 使用刷新token换取新的访问token和刷新token，旧刷新token立即失效
+     */
+    public AuthResponse refresh(String refreshToken) {
+        Long userId = parseUserId(refreshToken);
+        if (userId == null) {
+            throw new BusinessException(401, "刷新令牌无效或已过期");
+        }
+        
+        String newSecretPart = randomToken();
+        List<?> result = redisTemplate.execute(ROTATE_SCRIPT,
+            Arrays.asList(refreshKey(userId, refreshToken.substring(refreshToken.indexOf('.') + 1)),
+                refreshKey(userId, newSecretPart), EPOCH_PREFIX + userId),
+            String.valueOf(refreshTtl.toMillis()));
+        if (result == null || result.size() < 2) {
+            throw new BusinessException(401, "刷新令牌无效或已过期");
+        }
+        
+        long epoch = ((Number) result.get(0)).longValue();
+        return buildResponse(userId, (String) result.get(1), epoch, userId + "." + newSecretPart);
+    }
+    
+    /**
+     * 校验刷新token（不轮换），用于访问token过期时的登出
+     * 
+     * @return 用户ID，刷新token无效、已使用或已吊销时返回null
+     */
+    public Long verifyRefreshToken(String refreshToken) {
+        Long userId = parseUserId(refreshToken);
+        if (userId == null) {
+            return null;
+        }
+        
+        Object stored = redisTemplate.opsForHash()
+            .get(refreshKey(userId, refreshToken.substring(refreshToken.indexOf('.') + 1)), "epoch");
+        String current = redisTemplate.opsForValue().get(EPOCH_PREFIX + userId);
+        if (stored == null || Long.parseLong((String) stored) < (current != null ? Long.parseLong(current) : 0L)) {
+            return null;
+        }
+        return userId;
+    }
+    
+    /**
+     * 吊销用户的全部访问token和刷新token（退出登录）
+     * 本实例立即生效，其他实例在本地缓存过期后生效
+     */
+    public void revokeAll(Long userId) {
+        long epoch = redisTemplate.opsForValue().increment(EPOCH_PREFIX + userId);
+        epochs.put(userId, epoch);
+        log.info("已吊销用户的全部token，用户ID: {}, 版本号: {}", userId, epoch);
+    }
+    
+    /**
+     * 验证访问token，返回用户ID
+     * 
+     * @return 用户ID，token无效、已过期或已吊销时返回null
+     */
+    public Long authenticate(String token) {
+        JwtUtil.VerifiedToken verified = jwtUtil.authenticate(token);
+        if (verified == null || verified.getEpoch() < epochs.get(verified.getUserId())) {
+            return null;
+        }
+        return verified.getUserId();
+    }
+    
+    /**
+     * 从Redis读取版本号，Redis不可用时不做吊销检查，不影响业务
+     */
+    private Long loadEpoch(Long userId) {
+        try {
+            String epoch = redisTemplate.opsForValue().get(EPOCH_PREFIX + userId);
+            return epoch != null ? Long.parseLong(epoch) : 0L;
+        } catch (Exception e) {
+            log.warn("读取token吊销版本号失败，跳过吊销检查，用户ID: {}", userId, e);
+            return 0L;
+        }
+    }
+    
+    /**
+     * 从刷新token（{userId}.{随机部分}）中解析用户ID，格式错误时返回null
+     */
+    private Long parseUserId(String refreshToken) {
+        int dot = refreshToken.indexOf('.');
+        if (dot <= 0 || dot >= refreshToken.length() - 1) {
+            return null;
+        }
+        try {
+            return Long.parseLong(refreshToken.substring(0, dot));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    private AuthResponse buildResponse(Long userId, String username, long epoch, String refreshToken) {
+        return AuthResponse.builder()
+            .token(jwtUtil.generateToken(userId, username, epoch))
+            .refreshToken(refreshToken)
+            .expiresIn(jwtUtil.getExpiration())
+            .build();
+    }
+    
+    private String randomToken() {
+        byte[] bytes = new byte[REFRESH_TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+    
+    /**
+     * Redis中只保存刷新token的摘要
+     */
+    private String refreshKey(Long userId, String secretPart) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] digest = messageDigest.digest(secretPart.getBytes(StandardCharsets.UTF_8));
+            return REFRESH_PREFIX + userId + ":" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前JVM不支持SHA-256", e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package io.github.uncleacc.yunlog.service;
+
+import io.github.uncleacc.yunlog.repository.DiaryRepository;
+import io.github.uncleacc.yunlog.util.RedisLock;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 垃圾桶过期清理服务
+ * 定期永久删除超过保留天数的垃圾桶日记及其附件；按ID顺序小批量删除，每批单独提交以缩短行锁时间，
+ * 多实例部署时通过Redis锁保证同一时间只有一个实例执行
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrashPurgeService {
+    
+    private static final String LOCK_NAME = "trash-purge";
+    
+    @Value("${yunlog.trash.retention-days:30}")
+    private int retentionDays;
+    
+    @Value("${yunlog.trash.purge-batch-size:200}")
+    private int batchSize;
+    
+    @Value("${yunlog.trash.purge-lock-ttl:30m}")
+    private Duration lockTtl;
+    
+    private final DiaryRepository diaryRepository;
+    private final AttachmentService attachmentService;
+    private final TransactionTemplate transactionTemplate;
+    private final RedisLock redisLock;
+    
+    /**
+     * 上次执行的统计：删除的日记数、耗时（毫秒）、执行后最早一条过期日记的滞后时间（秒）
+     */
+    private volatile long lastPurgedCount;
+    private volatile long lastDurationMillis;
+    private volatile long lastLagSeconds;
+    
+    /**
+     * 定时清理过期的垃圾桶日记
+     */
+    @Scheduled(cron = "${yunlog.trash.purge-cron:0 30 3 * * ?}")
+    public void purgeExpiredTrash() {
+        String token = redisLock.tryLock(LOCK_NAME, lockTtl);
+        if (token == null) {
+            log.info("垃圾桶清理任务正在其他实例执行，跳过");
+            return;
+        }
+        
+        try {
+            purge(LocalDateTime.now().minusDays(retentionDays));
+        } finally {
+            redisLock.unlock(LOCK_NAME, token);
+        }
+    }
+    
+    /**
+     * 删除 expireTime 之前进入垃圾桶的日记
+     * 
+     * @return 删除的日记数量
+     */
+    public long purge(LocalDateTime expireTime) {
+        long start = System.currentTimeMillis();
+        PageRequest batch = PageRequest.of(0, batchSize);
+        
+        long purged = 0;
+        long afterId = 0L;
+        List<Long> ids;
+        while (!(ids = diaryRepository.findExpiredTrashIds(expireTime, afterId, batch)).isEmpty()) {
+            List<Long> batchIds = ids;
+            Integer deleted = transactionTemplate.execute(status -> {
+                // 查询之后可能已被恢复，在事务中重新校验并加锁，只删除仍然过期的日记及其附件
+                List<Long> lockedIds = diaryRepository.lockExpiredTrashIds(batchIds, expireTime).stream()
+                    .map(Number::longValue)
+                    .collect(Collectors.toList());
+                if (lockedIds.isEmpty()) {
+                    return 0;
+                }
+                // 附件的 OSS 文件由发件箱异步删除
+                attachmentService.deleteAttachmentsByDiaryIds(lockedIds);
+                return diaryRepository.deleteExpiredTrash(lockedIds, expireTime);
+            });
+            purged += deleted != null ? deleted : 0;
+            afterId = ids.get(ids.size() - 1);
+        }
+        
+        long duration = System.currentTimeMillis() - start;
+        long lagSeconds = diaryRepository.findFirstByIsDeletedTrueAndDeletedTimeNotNullOrderByDeletedTimeAsc()
+            .filter(diary -> diary.getDeletedTime().isBefore(expireTime))
+            .map(diary -> Duration.between(diary.getDeletedTime(), expireTime).getSeconds())
+            .orElse(0L);
+        
+        lastPurgedCount = purged;
+        lastDurationMillis = duration;
+        lastLagSeconds = lagSeconds;
+        
+        log.info("垃圾桶清理完成: 删除 {} 条日记, 耗时 {}ms, 速率 {} 条/秒, 滞后 {} 秒",
+            purged, duration, duration > 0 ? purged * 1000 / duration : purged, lagSeconds);
+        return purged;
+    }
+    
+    public long getLastPurgedCount() {
+        return lastPurgedCount;
+    }
+    
+    public long getLastDurationMillis() {
+        return lastDurationMillis;
+    }
+    
+    public long getLastLagSeconds() {
+        return lastLagSeconds;
+    }
+}
@@ -0,0 +1,140 @@
+package io.github.uncleacc.yunlog.service;
+
+import io.github.uncleacc.yunlog.entity.User;
+import io.github.uncleacc.yunlog.exception.BusinessException;
+import io.github.uncleacc.yunlog.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * 登录身份解析
+ * 按手机号或微信OpenID找到用户，不存在时创建：Redis -> MySQL -> INSERT ... ON DUPLICATE KEY UPDATE 后重新查询
+ * 同一身份并发首次登录时，后到的请求在唯一索引上等待先插入的事务提交，之后查询到同一个用户，默认分类只创建一次
+ * Redis中只缓存用户ID，每次登录按主键加载用户并检查状态，禁用用户立即生效
+ * 不能在外层事务中调用，否则重新查询读到的是事务开始时的快照
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserIdentityService {
+    
+    // 手机号 -> 用户ID 在Redis中的key前缀
+    private static final String PHONE_PREFIX = "user:identity:phone:";
+    
+    // 微信OpenID -> 用户ID 在Redis中的key前缀
+    private static final String OPENID_PREFIX = "user:identity:openid:";
+    
+    // 默认用户名冲突时最多尝试的用户名个数（第一个不带后缀）
+    private static final int MAX_USERNAME_ATTEMPTS = 3;
+    
+    // 用户状态：禁用
+    private static final int STATUS_DISABLED = 0;
+    
+    @Value("${yunlog.cache.identity.ttl:1h}")
+    private Duration ttl;
+    
+    private final UserRepository userRepository;
+    private final CategoryService categoryService;
+    private final TransactionTemplate transactionTemplate;
+    private final StringRedisTemplate redisTemplate;
+    
+    /**
+     * 按手机号解析用户，不存在时创建
+     */
+    public User resolveByPhone(String phone) {
+        // 使用手机号后4位生成用户名
+        String username = "user_" + phone.substring(7);
+        return resolve(PHONE_PREFIX + phone, username,
+            () -> userRepository.findByPhone(phone),
+            (name, now) -> userRepository.insertByPhone(name, phone, now));
+    }
+    
+    /**
+     * 按微信OpenID解析用户，不存在时创建
+     */
+    public User resolveByWechatOpenid(String openid) {
+        // 生成默认用户名，避免substring越界
+        String username = "wx_" + (openid.length() >= 8 ? openid.substring(0, 8) : openid);
+        return resolve(OPENID_PREFIX + openid, username,
+            () -> userRepository.findByWechatOpenid(openid),
+            (name, now) -> userRepository.insertByWechatOpenid(name, openid, now));
+    }
+    
+    private User resolve(String cacheKey, String username, Supplier<Optional<User>> finder,
+                         BiConsumer<String, LocalDateTime> inserter) {
+        Long cachedId = readCache(cacheKey);
+        User user = cachedId != null ? userRepository.findById(cachedId).orElse(null) : null;
+        if (user == null) {
+            user = finder.get().orElseGet(() -> create(username, finder, inserter));
+            writeCache(cacheKey, user.getId());
+        }
+        
+        if (user.getStatus() != null && user.getStatus() == STATUS_DISABLED) {
+            log.warn("已禁用的用户尝试登录，用户ID: {}", user.getId());
+            throw new BusinessException(403, "账号已被禁用");
+        }
+        return user;
+    }
+    
+    /**
+     * 插入用户并在同一个事务中重新查询
+     * 身份已存在时插入不修改任何行，但会锁住已有行，等待其事务提交；默认分类在持有该行锁时按需创建，只会创建一次
+     * 查询不到用户说明冲突发生在用户名上，更换用户名重试
+     */
+    private User create(String username, Supplier<Optional<User>> finder, BiConsumer<String, LocalDateTime> inserter) {
+        for (int attempt = 0; attempt < MAX_USERNAME_ATTEMPTS; attempt++) {
+            String candidate = attempt == 0 ? username : username + "_" + randomSuffix();
+            User user = transactionTemplate.execute(status -> {
+                inserter.accept(candidate, LocalDateTime.now());
+                Optional<User> found = finder.get();
+                found.ifPresent(created -> {
+                    if (categoryService.createDefaultCategoryIfAbsent(created.getId())) {
+                        log.info("创建新用户，用户ID: {}", created.getId());
+                    }
+                });
+                return found.orElse(null);
+            });
+            if (user != null) {
+                return user;
+            }
+            log.info("默认用户名已被占用，更换用户名重试: {}", candidate);
+        }
+        throw new BusinessException(500, "创建用户失败");
+    }
+    
+    private String randomSuffix() {
+        return Integer.toString(ThreadLocalRandom.current().nextInt(0x100000, 0x1000000), 16);
+    }
+    
+    /**
+     * Redis不可用或数据损坏时返回null，回退到数据库
+     */
+    private Long readCache(String key) {
+        try {
+            String cached = redisTemplate.opsForValue().get(key);
+            return cached != null ? Long.valueOf(cached) : null;
+        } catch (Exception e) {
+            log.warn("读取登录身份缓存失败，回退到数据库，key: {}", key, e);
+            return null;
+        }
+    }
+    
+    private void writeCache(String key, Long userId) {
+        try {
+            redisTemplate.opsForValue().set(key, String.valueOf(userId), ttl);
+        } catch (Exception e) {
+            log.warn("写入登录身份缓存失败，key: {}", key, e);
+        }
+    }
+}
@@ -1,14 +1,16 @@
 package io.github.uncleacc.yunlog.service.impl;
 
+import io.github.uncleacc.yunlog.exception.BusinessException;
+import io.github.uncleacc.yunlog.service.SmsCodeStore;
 import io.github.uncleacc.yunlog.service.SmsService;
+import io.github.uncleacc.yunlog.util.VerifyCodeGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
-import java.util.Random;
-import java.util.concurrent.TimeUnit;
 
 /**
  * 阿里云短信服务实现
@@ -19,12 +21,6 @@ public class AliyunSmsServiceImpl implements SmsService {
     
     private static final Logger log = LoggerFactory.getLogger(AliyunSmsServiceImpl.class);
     
-    // 验证码在Redis中的key前缀
-    private static final String SMS_CODE_PREFIX = "sms:code:";
-    
-    // 验证码有效期（分钟）
-    private static final int CODE_EXPIRE_MINUTES = 5;
-    
     // 阿里云短信配置
     @Value("${aliyun.sms.access-key-id:}")
     private String accessKeyId;
@@ -41,27 +37,50 @@ public class AliyunSmsServiceImpl implements SmsService {
     @Value("${aliyun.sms.enabled:false}")
     private boolean smsEnabled;
     
-    private final StringRedisTemplate redisTemplate;
+    private final SmsCodeStore smsCodeStore;
+    
+    private final VerifyCodeGenerator verifyCodeGenerator;
+    
+    private final Timer storeTimer;
+    private final Timer verifyTimer;
     
-    public AliyunSmsServiceImpl(StringRedisTemplate redisTemplate) {
-        this.redisTemplate = redisTemplate;
+    public AliyunSmsServiceImpl(SmsCodeStore smsCodeStore, VerifyCodeGenerator verifyCodeGenerator,
+                                MeterRegistry meterRegistry) {
+        this.smsCodeStore = smsCodeStore;
+        this.verifyCodeGenerator = verifyCodeGenerator;
+        this.storeTimer = Timer.builder("sms.redis")
+            .description("短信验证码 Redis 操作耗时")
+            .tag("operation", "store")
+            .register(meterRegistry);
+        this.verifyTimer = Timer.builder("sms.redis")
+            .description("短信验证码 Redis 操作耗时")
+            .tag("operation", "verify")
+            .register(meterRegistry);
     }
     
     @Override
-    public boolean sendVerifyCode(String phone, String code) {
+    public boolean sendVerifyCode(String phone, String code, String clientIp) {
+        // 冷却期、IP限流检查和验证码保存在同一个脚本中原子完成
+        SmsCodeStore.IssueResult result = storeTimer.record(() -> smsCodeStore.issue(phone, code, clientIp));
+        if (result.getStatus() == SmsCodeStore.IssueStatus.COOLDOWN) {
+            long seconds = (result.getRetryAfterMillis() + 999) / 1000;
+            throw new BusinessException(429, "验证码发送过于频繁，请" + seconds + "秒后重试");
+        }
+        if (result.getStatus() == SmsCodeStore.IssueStatus.RATE_LIMITED) {
+            log.warn("短信发送触发IP限流，IP: {}, 手机号: {}", clientIp, phone);
+            throw new BusinessException(429, "请求过于频繁，请稍后重试");
+        }
+        
         try {
             // 如果短信服务未启用，则使用模拟模式（仅存储验证码）
             if (!smsEnabled) {
                 log.info("短信服务未启用，使用模拟模式。手机号: {}, 验证码: {}", phone, code);
-                // 将验证码存入Redis
-                String key = SMS_CODE_PREFIX + phone;
-                redisTemplate.opsForValue().set(key, code, CODE_EXPIRE_MINUTES, TimeUnit.MINUTES);
                 return true;
             }
             
             // TODO: 集成阿里云短信SDK
             // 1. 引入阿里云短信SDK依赖
-            // 2. 使用以下代码发送短信：
+            // 2. 使用以下代码发送短信（验证码已保存，发送失败时由下方 catch 作废）：
             /*
             DefaultProfile profile = DefaultProfile.getProfile(
                 "cn-hangzhou",  // 地域ID
@@ -78,63 +97,54 @@ public class AliyunSmsServiceImpl implements SmsService {
             
             SendSmsResponse response = client.getAcsResponse(request);
             
-            if ("OK".equals(response.getCode())) {
-                // 发送成功，将验证码存入Redis
-                String key = SMS_CODE_PREFIX + phone;
-                redisTemplate.opsForValue().set(key, code, CODE_EXPIRE_MINUTES, TimeUnit.MINUTES);
-                log.info("短信发送成功，手机号: {}", phone);
-                return true;
-            } else {
-                log.error("短信发送失败，手机号: {}, 错误: {}", phone, response.getMessage());
-                return false;
+            if (!"OK".equals(response.getCode())) {
+                throw new IllegalStateException(response.getMessage());
             }
+            log.info("短信发送成功，手机号: {}", phone);
+            return true;
             */
             
-            // 临时实现：仅存储验证码到Redis
-            String key = SMS_CODE_PREFIX + phone;
-            redisTemplate.opsForValue().set(key, code, CODE_EXPIRE_MINUTES, TimeUnit.MINUTES);
+            // 临时实现：验证码已存入Redis，不实际发送
             log.info("验证码已生成（模拟发送），手机号: {}, 验证码: {}", phone, code);
             return true;
             
         } catch (Exception e) {
             log.error("发送短信验证码失败，手机号: {}", phone, e);
+            // 作废本次验证码和冷却期，允许用户立即重试
+            smsCodeStore.discard(phone);
             return false;
         }
     }
     
     @Override
     public boolean verifyCode(String phone, String code) {
+        SmsCodeStore.VerifyResult result;
         try {
-            String key = SMS_CODE_PREFIX + phone;
-            String storedCode = redisTemplate.opsForValue().get(key);
-            
-            if (storedCode == null) {
-                log.warn("验证码不存在或已过期，手机号: {}", phone);
-                return false;
-            }
-            
-            boolean isValid = storedCode.equals(code);
-            
-            if (isValid) {
-                // 验证成功后删除验证码
-                redisTemplate.delete(key);
-                log.info("验证码验证成功，手机号: {}", phone);
-            } else {
-                log.warn("验证码错误，手机号: {}", phone);
-            }
-            
-            return isValid;
-            
+            // 比较和删除在同一个脚本中完成，同一验证码只能成功使用一次
+            result = verifyTimer.record(() -> smsCodeStore.verify(phone, code));
         } catch (Exception e) {
             log.error("验证验证码失败，手机号: {}", phone, e);
             return false;
         }
+        
+        switch (result) {
+            case MATCHED:
+                log.info("验证码验证成功，手机号: {}", phone);
+                return true;
+            case MISSING:
+                log.warn("验证码不存在或已过期，手机号: {}", phone);
+                return false;
+            case EXHAUSTED:
+                log.warn("验证码错误次数达到上限，已作废，手机号: {}", phone);
+                throw new BusinessException(401, "验证码错误次数过多，请重新获取");
+            default:
+                log.warn("验证码错误，手机号: {}", phone);
+                return false;
+        }
     }
     
     @Override
     public String generateCode() {
-        Random random = new Random();
-        int code = 100000 + random.nextInt(900000);
-        return String.valueOf(code);
+        return verifyCodeGenerator.generate();
     }
 }
@@ -2,74 +2,210 @@ package io.github.uncleacc.yunlog.service.impl;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.uncleacc.yunlog.config.WechatProperties;
 import io.github.uncleacc.yunlog.exception.BusinessException;
 import io.github.uncleacc.yunlog.service.WechatService;
+import io.github.uncleacc.yunlog.util.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
 /**
  * 微信服务实现类
+ * 调用 jscode2session 时依次经过并发限制、熔断器和有限重试，微信接口变慢时快速失败，不占满 Tomcat 工作线程
  */
 @Slf4j
 @Service
 public class WechatServiceImpl implements WechatService {
     
-    @Value("${wechat.appid}")
-    private String appid;
+    private static final String JSCODE2SESSION_PATH = "/sns/jscode2session?appid={appid}&secret={secret}&js_code={code}&grant_type=authorization_code";
     
-    @Value("${wechat.secret}")
-    private String secret;
+    // 微信“系统繁忙”错误码，可重试
+    private static final int ERRCODE_BUSY = -1;
     
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final WechatProperties wechatProperties;
+    private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MeterRegistry meterRegistry;
+    
+    private final Semaphore concurrencyLimit;
+    private final CircuitBreaker circuitBreaker;
+    private final Counter retryCounter;
     
-    private static final String WECHAT_API_URL = "https://api.weixin.qq.com/sns/jscode2session?appid={appid}&secret={secret}&js_code={code}&grant_type=authorization_code";
+    public WechatServiceImpl(WechatProperties wechatProperties,
+                             @Qualifier("wechatRestTemplate") RestTemplate restTemplate,
+                             MeterRegistry meterRegistry) {
+        this.wechatProperties = wechatProperties;
+        this.restTemplate = restTemplate;
+        this.meterRegistry = meterRegistry;
+        this.concurrencyLimit = new Semaphore(wechatProperties.getClient().getMaxConcurrent());
+        this.circuitBreaker = new CircuitBreaker(
+            wechatProperties.getCircuitBreaker().getFailureThreshold(),
+            wechatProperties.getCircuitBreaker().getOpenDuration());
+        this.retryCounter = Counter.builder("wechat.jscode2session.retries")
+            .description("微信 jscode2session 重试次数")
+            .register(meterRegistry);
+        Gauge.builder("wechat.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+            .description("微信接口熔断器状态（0 关闭，1 打开，2 半开）")
+            .register(meterRegistry);
+    }
     
     @Override
     public String getOpenidByCode(String code) {
+        // 检查配置
+        String appid = wechatProperties.getAppid();
+        if ("your-wechat-appid".equals(appid) || appid == null || appid.isEmpty()) {
+            log.warn("微信AppID未配置，使用模拟登录");
+            // 开发环境返回模拟openid
+            return "mock_openid_" + System.currentTimeMillis();
+        }
+        
+        JsonNode jsonNode = callJscode2session(code);
+        
+        // 检查是否有错误（code 无效、已使用等业务错误）
+        int errcode = jsonNode.path("errcode").asInt(0);
+        if (errcode != 0) {
+            String errmsg = jsonNode.path("errmsg").asText();
+            log.error("微信登录失败: errcode={}, errmsg={}", errcode, errmsg);
+            throw new BusinessException(500, "微信登录失败: " + errmsg);
+        }
+        
+        // 获取openid（响应中的 session_key 不记录日志）
+        if (jsonNode.hasNonNull("openid")) {
+            return jsonNode.get("openid").asText();
+        }
+        throw new BusinessException(500, "获取openid失败");
+    }
+    
+    /**
+     * 在并发限制和熔断器保护下调用 jscode2session
+     * 业务错误码视为调用成功，只有网络异常、5xx 和系统繁忙计入熔断
+     */
+    private JsonNode callJscode2session(String code) {
+        if (!acquireConcurrency()) {
+            rejected("bulkhead");
+            throw new BusinessException(503, "微信登录繁忙，请稍后重试");
+        }
         try {
-            // 检查配置
-            if ("your-wechat-appid".equals(appid) || appid == null || appid.isEmpty()) {
-                log.warn("微信AppID未配置，使用模拟登录");
-                // 开发环境返回模拟openid
-                return "mock_openid_" + System.currentTimeMillis();
+            if (!circuitBreaker.tryAcquire()) {
+                rejected("circuit_open");
+                throw new BusinessException(503, "微信服务暂不可用，请稍后重试");
             }
-            
-            // 调用微信API
-            String url = WECHAT_API_URL
-                    .replace("{appid}", appid)
-                    .replace("{secret}", secret)
-                    .replace("{code}", code);
-            
-            String response = restTemplate.getForObject(url, String.class);
-            log.info("微信登录响应: {}", response);
-            
-            // 解析响应
-            JsonNode jsonNode = objectMapper.readTree(response);
-            
-            // 检查是否有错误
-            if (jsonNode.has("errcode")) {
-                int errcode = jsonNode.get("errcode").asInt();
-                if (errcode != 0) {
-                    String errmsg = jsonNode.get("errmsg").asText();
-                    log.error("微信登录失败: errcode={}, errmsg={}", errcode, errmsg);
-                    throw new BusinessException(500, "微信登录失败: " + errmsg);
-                }
+            try {
+                JsonNode result = executeWithRetry(code);
+                circuitBreaker.onSuccess();
+                return result;
+            } catch (RuntimeException e) {
+                circuitBreaker.onFailure();
+                throw e;
             }
-            
-            // 获取openid
-            if (jsonNode.has("openid")) {
-                return jsonNode.get("openid").asText();
-            } else {
-                throw new BusinessException(500, "获取openid失败");
+        } finally {
+            concurrencyLimit.release();
+        }
+    }
+    
+    private boolean acquireConcurrency() {
+        try {
+            return concurrencyLimit.tryAcquire(
+                wechatProperties.getClient().getAcquireTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    /**
+     * 调用 jscode2session，连接失败、获取连接池连接超时、5xx 和系统繁忙时重试
+     * 读超时、无响应等请求发出后的失败不重试：请求可能已到达微信，code 只能使用一次
+     */
+    private JsonNode executeWithRetry(String code) {
+        WechatProperties.Client client = wechatProperties.getClient();
+        for (int attempt = 0; ; attempt++) {
+            boolean canRetry = attempt < client.getMaxRetries();
+            try {
+                JsonNode result = objectMapper.readTree(timedJscode2session(code));
+                if (result.path("errcode").asInt(0) != ERRCODE_BUSY) {
+                    return result;
+                }
+                log.warn("微信接口系统繁忙，第 {} 次调用", attempt + 1);
+                if (!canRetry) {
+                    throw new BusinessException(503, "微信服务繁忙，请稍后重试");
+                }
+            } catch (ResourceAccessException | HttpServerErrorException e) {
+                if (!canRetry || !isRetryable(e)) {
+                    log.error("调用微信接口失败，第 {} 次调用", attempt + 1, e);
+                    throw new BusinessException(503, "微信服务暂不可用，请稍后重试");
+                }
+                log.warn("调用微信接口失败，准备重试: {}", e.getMessage());
+            } catch (IOException e) {
+                log.error("解析微信接口响应失败", e);
+                throw new BusinessException(503, "微信服务响应异常，请稍后重试");
             }
-        } catch (BusinessException e) {
+            retryCounter.increment();
+            backoff(client);
+        }
+    }
+    
+    /**
+     * 只有请求发出之前的失败（建立连接失败、从连接池获取连接超时）可以安全重试
+     * 5xx 和系统繁忙表示微信未处理该 code
+     */
+    private boolean isRetryable(RuntimeException e) {
+        if (e instanceof HttpServerErrorException) {
+            return true;
+        }
+        Throwable cause = e.getCause();
+        return cause instanceof ConnectException
+            || cause instanceof ConnectTimeoutException
+            || cause instanceof ConnectionPoolTimeoutException;
+    }
+    
+    private void backoff(WechatProperties.Client client) {
+        try {
+            Thread.sleep(client.getRetryBackoff().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(503, "微信登录被中断");
+        }
+    }
+    
+    private void rejected(String reason) {
+        log.warn("微信接口调用被拒绝: {}", reason);
+        meterRegistry.counter("wechat.jscode2session.rejected", "reason", reason).increment();
+    }
+    
+    /**
+     * 调用 jscode2session 并记录耗时（wechat.jscode2session，outcome=success/error）
+     */
+    private String timedJscode2session(String code) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return restTemplate.getForObject(wechatProperties.getApiUrl() + JSCODE2SESSION_PATH, String.class,
+                wechatProperties.getAppid(), wechatProperties.getSecret(), code);
+        } catch (RuntimeException e) {
+            outcome = "error";
             throw e;
-        } catch (Exception e) {
-            log.error("微信登录异常", e);
-            throw new BusinessException(500, "微信登录失败: " + e.getMessage());
+        } finally {
+            sample.stop(Timer.builder("wechat.jscode2session")
+                .description("微信 jscode2session 接口耗时")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
         }
     }
 }
@@ -0,0 +1,67 @@
+package io.github.uncleacc.yunlog.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 固定大小的字节缓冲池
+ * 缓冲区按需创建、用完归还，总数不超过 maxBuffers，从而限制流式上传占用的总内存
+ */
+public class BufferPool {
+    
+    private final int bufferSize;
+    private final int maxBuffers;
+    private final BlockingQueue<byte[]> idle;
+    private final AtomicInteger created = new AtomicInteger();
+    
+    public BufferPool(int bufferSize, int maxBuffers) {
+        this.bufferSize = bufferSize;
+        this.maxBuffers = maxBuffers;
+        this.idle = new ArrayBlockingQueue<>(maxBuffers);
+    }
+    
+    /**
+     * 获取缓冲区，池已耗尽时最多等待 timeoutMillis
+     * 
+     * @return 缓冲区，超时返回null
+     */
+    public byte[] acquire(long timeoutMillis) throws InterruptedException {
+        byte[] buffer = idle.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        
+        // 未达到上限时直接创建新缓冲区
+        int count = created.get();
+        while (count < maxBuffers) {
+            if (created.compareAndSet(count, count + 1)) {
+                return new byte[bufferSize];
+            }
+            count = created.get();
+        }
+        
+        return idle.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * 归还缓冲区
+     */
+    public void release(byte[] buffer) {
+        if (buffer != null && buffer.length == bufferSize) {
+            idle.offer(buffer);
+        }
+    }
+    
+    public int getBufferSize() {
+        return bufferSize;
+    }
+    
+    /**
+     * 当前被占用的缓冲区数量
+     */
+    public int getInUse() {
+        return created.get() - idle.size();
+    }
+}
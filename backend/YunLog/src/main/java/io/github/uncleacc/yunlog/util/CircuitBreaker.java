@@ -0,0 +1,73 @@
+package io.github.uncleacc.yunlog.util;
+
+import java.time.Duration;
+
+/**
+ * 简单熔断器
+ * 连续失败达到阈值后进入 OPEN，openDuration 内拒绝所有调用；
+ * 到期后进入 HALF_OPEN 只放行一个探测调用，成功则恢复 CLOSED，失败则重新 OPEN
+ * 每次 tryAcquire 成功后必须调用 onSuccess 或 onFailure
+ */
+public class CircuitBreaker {
+    
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+    
+    private final int failureThreshold;
+    
+    private final long openMillis;
+    
+    private State state = State.CLOSED;
+    
+    private int consecutiveFailures;
+    
+    private long openedAt;
+    
+    private boolean probing;
+    
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openDuration.toMillis();
+    }
+    
+    /**
+     * 是否允许本次调用
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMillis) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probing = false;
+        }
+        if (probing) {
+            return false;
+        }
+        probing = true;
+        return true;
+    }
+    
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probing = false;
+    }
+    
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            probing = false;
+        }
+    }
+    
+    public synchronized State getState() {
+        return state;
+    }
+}
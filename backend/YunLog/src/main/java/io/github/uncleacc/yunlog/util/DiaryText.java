@@ -0,0 +1,67 @@
+package io.github.uncleacc.yunlog.util;
+
+/**
+ * 日记正文工具，写入时预先计算列表卡片用的摘要和字数
+ */
+public final class DiaryText {
+    
+    /**
+     * 摘要最多保留的字符数（按码点计算，不拆分表情等代理对）
+     */
+    public static final int EXCERPT_LENGTH = 120;
+    
+    private DiaryText() {
+    }
+    
+    /**
+     * 生成摘要：连续空白（含换行）合并为一个空格，超出长度截断并追加省略号
+     */
+    public static String excerpt(String content) {
+        if (content == null) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder(Math.min(content.length(), EXCERPT_LENGTH + 1));
+        int count = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < content.length(); ) {
+            int codePoint = content.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.isWhitespace(codePoint)) {
+                pendingSpace = builder.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                if (count == EXCERPT_LENGTH) {
+                    return builder.append('…').toString();
+                }
+                builder.append(' ');
+                count++;
+                pendingSpace = false;
+            }
+            if (count == EXCERPT_LENGTH) {
+                return builder.append('…').toString();
+            }
+            builder.appendCodePoint(codePoint);
+            count++;
+        }
+        return builder.toString();
+    }
+    
+    /**
+     * 统计字数：不含空白的字符数（按码点计算）
+     */
+    public static int wordCount(String content) {
+        if (content == null) {
+            return 0;
+        }
+        int count = 0;
+        for (int i = 0; i < content.length(); ) {
+            int codePoint = content.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (!Character.isWhitespace(codePoint)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,191 @@
+package io.github.uncleacc.yunlog.util;
+
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * EXIF 方向（Orientation，标签 0x0112）工具
+ * 手机照片通常以传感器方向存储像素，再用 EXIF 方向标记显示方向；重新编码时不写入 EXIF，
+ * 因此缩放前需要先按方向旋转/翻转像素
+ */
+public final class ExifOrientation {
+    
+    /**
+     * 正常方向
+     */
+    public static final int NORMAL = 1;
+    
+    // JPEG 段标记：图像开始、APP1（EXIF）、扫描开始、图像结束
+    private static final int SOI_MARKER = 0xFFD8;
+    private static final int APP1_MARKER = 0xFFE1;
+    private static final int SOS_MARKER = 0xFFDA;
+    private static final int EOI_MARKER = 0xFFD9;
+    
+    private static final int ORIENTATION_TAG = 0x0112;
+    
+    // "Exif\0\0" 头长度
+    private static final int EXIF_HEADER_LENGTH = 6;
+    
+    private ExifOrientation() {
+    }
+    
+    /**
+     * 从 JPEG 文件头的 APP1 段中解析 EXIF 方向，读取后流回到原位置
+     * 直接扫描段标记而不使用 ImageIO 的 JPEG 元数据（APP1 在 JFIF APP0 之前等情况下会解析失败）
+     * 
+     * @return 方向值 1-8，非 JPEG、没有 EXIF 或格式不正确时返回 {@link #NORMAL}
+     */
+    public static int read(ImageInputStream in) throws IOException {
+        in.mark();
+        try {
+            if (in.readUnsignedShort() != SOI_MARKER) {
+                return NORMAL;
+            }
+            while (true) {
+                int marker = in.readUnsignedShort();
+                // 到达图像数据或遇到非法标记时结束
+                if ((marker & 0xFF00) != 0xFF00 || marker == SOS_MARKER || marker == EOI_MARKER) {
+                    return NORMAL;
+                }
+                int length = in.readUnsignedShort();
+                if (length < 2) {
+                    return NORMAL;
+                }
+                if (marker != APP1_MARKER) {
+                    in.skipBytes(length - 2);
+                    continue;
+                }
+                
+                // APP1 也可能是 XMP，只处理 Exif
+                byte[] data = new byte[length - 2];
+                in.readFully(data);
+                if (isExif(data)) {
+                    return parse(data);
+                }
+            }
+        } catch (EOFException e) {
+            return NORMAL;
+        } finally {
+            in.reset();
+        }
+    }
+    
+    /**
+     * 从 APP1 段数据（"Exif\0\0" + TIFF）中解析第一个 IFD 的方向标签
+     * 
+     * @return 方向值 1-8，格式不正确时返回 {@link #NORMAL}
+     */
+    public static int parse(byte[] app1) {
+        if (!isExif(app1) || app1.length < EXIF_HEADER_LENGTH + 8) {
+            return NORMAL;
+        }
+        
+        int tiff = EXIF_HEADER_LENGTH;
+        boolean littleEndian;
+        if (app1[tiff] == 'I' && app1[tiff + 1] == 'I') {
+            littleEndian = true;
+        } else if (app1[tiff] == 'M' && app1[tiff + 1] == 'M') {
+            littleEndian = false;
+        } else {
+            return NORMAL;
+        }
+        
+        long ifdOffset = readInt(app1, tiff + 4, littleEndian);
+        if (ifdOffset < 8 || tiff + ifdOffset + 2 > app1.length) {
+            return NORMAL;
+        }
+        int ifd = (int) (tiff + ifdOffset);
+        int entries = readShort(app1, ifd, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > app1.length) {
+                break;
+            }
+            if (readShort(app1, entry, littleEndian) == ORIENTATION_TAG) {
+                int orientation = readShort(app1, entry + 8, littleEndian);
+                return orientation >= 1 && orientation <= 8 ? orientation : NORMAL;
+            }
+        }
+        return NORMAL;
+    }
+    
+    /**
+     * 按 EXIF 方向旋转/翻转图片，得到正常显示方向的像素
+     * 方向 5-8 会交换宽高
+     */
+    public static BufferedImage apply(BufferedImage image, int orientation) {
+        if (orientation <= NORMAL || orientation > 8) {
+            return image;
+        }
+        
+        int width = image.getWidth();
+        int height = image.getHeight();
+        AffineTransform transform = new AffineTransform();
+        switch (orientation) {
+            case 2: // 水平翻转
+                transform.translate(width, 0);
+                transform.scale(-1, 1);
+                break;
+            case 3: // 旋转180°
+                transform.translate(width, height);
+                transform.rotate(Math.PI);
+                break;
+            case 4: // 垂直翻转
+                transform.translate(0, height);
+                transform.scale(1, -1);
+                break;
+            case 5: // 沿左上-右下对角线翻转
+                transform.rotate(-Math.PI / 2);
+                transform.scale(-1, 1);
+                break;
+            case 6: // 顺时针旋转90°
+                transform.translate(height, 0);
+                transform.rotate(Math.PI / 2);
+                break;
+            case 7: // 沿右上-左下对角线翻转
+                transform.translate(height, width);
+                transform.rotate(Math.PI / 2);
+                transform.scale(-1, 1);
+                break;
+            default: // 8: 逆时针旋转90°
+                transform.translate(0, width);
+                transform.rotate(-Math.PI / 2);
+                break;
+        }
+        
+        boolean swap = orientation >= 5;
+        BufferedImage target = new BufferedImage(swap ? height : width, swap ? width : height,
+            image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+    
+    private static boolean isExif(byte[] app1) {
+        return app1.length >= EXIF_HEADER_LENGTH
+            && app1[0] == 'E' && app1[1] == 'x' && app1[2] == 'i' && app1[3] == 'f' && app1[4] == 0 && app1[5] == 0;
+    }
+    
+    private static int readShort(byte[] data, int offset, boolean littleEndian) {
+        int b0 = data[offset] & 0xFF;
+        int b1 = data[offset + 1] & 0xFF;
+        return littleEndian ? (b1 << 8) | b0 : (b0 << 8) | b1;
+    }
+    
+    private static long readInt(byte[] data, int offset, boolean littleEndian) {
+        long value = 0;
+        for (int i = 0; i < 4; i++) {
+            int b = data[offset + (littleEndian ? 3 - i : i)] & 0xFF;
+            value = (value << 8) | b;
+        }
+        return value;
+    }
+}
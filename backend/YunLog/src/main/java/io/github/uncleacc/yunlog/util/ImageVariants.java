@@ -0,0 +1,71 @@
+package io.github.uncleacc.yunlog.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 图片缩略图规格工具
+ * 缩略图与原图放在同一目录，命名为 原文件名_w宽度.jpg，例如 abc.png -> abc_w320.jpg
+ */
+public final class ImageVariants {
+    
+    /**
+     * 列表卡片默认展示宽度（像素），用于挑选合适的缩略图
+     */
+    public static final int CARD_WIDTH = 640;
+    
+    private ImageVariants() {
+    }
+    
+    /**
+     * 根据原图地址（URL 或对象名）生成指定宽度缩略图的地址
+     */
+    public static String variantOf(String original, int width) {
+        int slashIndex = original.lastIndexOf('/');
+        int dotIndex = original.lastIndexOf('.');
+        String base = dotIndex > slashIndex ? original.substring(0, dotIndex) : original;
+        return base + "_w" + width + ".jpg";
+    }
+    
+    /**
+     * 解析逗号分隔的缩略图宽度，结果升序
+     */
+    public static List<Integer> parseWidths(String widths) {
+        if (widths == null || widths.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Integer> result = new ArrayList<>();
+        for (String width : widths.split(",")) {
+            result.add(Integer.parseInt(width.trim()));
+        }
+        Collections.sort(result);
+        return result;
+    }
+    
+    /**
+     * 将缩略图宽度格式化为逗号分隔的字符串
+     */
+    public static String formatWidths(List<Integer> widths) {
+        StringBuilder builder = new StringBuilder();
+        for (Integer width : widths) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(width);
+        }
+        return builder.toString();
+    }
+    
+    /**
+     * 选出不小于展示宽度的最小缩略图，没有合适的缩略图时返回原图
+     */
+    public static String fit(String originalUrl, String widths, int displayWidth) {
+        for (Integer width : parseWidths(widths)) {
+            if (width >= displayWidth) {
+                return variantOf(originalUrl, width);
+            }
+        }
+        return originalUrl;
+    }
+}
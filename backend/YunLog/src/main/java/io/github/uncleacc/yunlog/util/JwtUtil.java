@@ -1,15 +1,25 @@
 package io.github.uncleacc.yunlog.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JWT工具类
@@ -17,17 +27,44 @@ import java.util.Date;
 @Component
 public class JwtUtil {
     
+    // 吊销版本号在token中的claim名
+    private static final String EPOCH_CLAIM = "epoch";
+    
     @Value("${jwt.secret}")
     private String secret;
     
     @Value("${jwt.expiration}")
     private Long expiration;
     
+    @Value("${jwt.verified-cache.max-size:10000}")
+    private long verifiedCacheMaxSize;
+    
+    @Value("${jwt.verified-cache.ttl:10m}")
+    private Duration verifiedCacheTtl;
+    
+    /**
+     * 签名密钥和解析器只构建一次，二者都是线程安全的
+     */
+    private SecretKey secretKey;
+    
+    private JwtParser jwtParser;
+    
     /**
-     * 生成密钥
+     * 最近验证通过的token摘要 -> 用户信息，过期时间取token剩余有效期和缓存TTL中较小者
+     * 缓存只省去验签，吊销检查由调用方在命中后进行
      */
-    private SecretKey getSecretKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    private Cache<ByteBuffer, VerifiedToken> verifiedTokens;
+    
+    @PostConstruct
+    public void init() {
+        secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(secretKey)
+                .build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaxSize)
+                .expireAfter(new VerifiedTokenExpiry(verifiedCacheTtl.toNanos()))
+                .build();
     }
     
     /**
@@ -35,21 +72,58 @@ public class JwtUtil {
      * 
      * @param userId 用户ID
      * @param username 用户名
+     * @param epoch 签发时用户的吊销版本号，版本号增加后此token失效
      * @return JWT token
      */
-    public String generateToken(Long userId, String username) {
+    public String generateToken(Long userId, String username, long epoch) {
         Date now = new Date();
         Date expirationDate = new Date(now.getTime() + expiration * 1000);
         
         return Jwts.builder()
                 .setSubject(userId.toString())
                 .claim("username", username)
+                .claim(EPOCH_CLAIM, epoch)
                 .setIssuedAt(now)
                 .setExpiration(expirationDate)
-                .signWith(getSecretKey(), SignatureAlgorithm.HS256)
+                .signWith(secretKey, SignatureAlgorithm.HS256)
                 .compact();
     }
     
+    /**
+     * 验证token并返回用户ID，每个请求只需调用一次
+     * 最近验证过的token直接命中缓存，不再重复验签
+     * 
+     * @param token JWT token
+     * @return 用户ID和签发时的吊销版本号，token无效或已过期时返回null
+     */
+    public VerifiedToken authenticate(String token) {
+        ByteBuffer digest = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null && cached.getExpiresAt() > System.currentTimeMillis()) {
+            return cached;
+        }
+        
+        try {
+            Claims claims = parseToken(token);
+            Long userId = Long.parseLong(claims.getSubject());
+            // 没有版本号的旧token视为版本0
+            Number epoch = claims.get(EPOCH_CLAIM, Number.class);
+            long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+            VerifiedToken verified = new VerifiedToken(userId, epoch != null ? epoch.longValue() : 0L, expiresAt);
+            verifiedTokens.put(digest, verified);
+            return verified;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+    
+    /**
+     * 访问token有效期（秒）
+     */
+    public long getExpiration() {
+        return expiration;
+    }
+    
     /**
      * 从token中获取用户ID
      * 
@@ -73,18 +147,13 @@ public class JwtUtil {
     }
     
     /**
-     * 验证token是否有效
+     * 验证token签名和有效期是否有效（不检查吊销，吊销检查见 TokenService）
      * 
      * @param token JWT token
      * @return 是否有效
      */
     public boolean validateToken(String token) {
-        try {
-            parseToken(token);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        return authenticate(token) != null;
     }
     
     /**
@@ -94,10 +163,66 @@ public class JwtUtil {
      * @return Claims
      */
     private Claims parseToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSecretKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return jwtParser.parseClaimsJws(token).getBody();
+    }
+    
+    /**
+     * 计算token的SHA-256摘要，缓存中不保存token原文
+     */
+    private ByteBuffer digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前JVM不支持SHA-256", e);
+        }
+    }
+    
+    /**
+     * 已验证的token信息
+     */
+    public static final class VerifiedToken {
+        private final Long userId;
+        private final long epoch;
+        private final long expiresAt;
+        
+        VerifiedToken(Long userId, long epoch, long expiresAt) {
+            this.userId = userId;
+            this.epoch = epoch;
+            this.expiresAt = expiresAt;
+        }
+        
+        public Long getUserId() { return userId; }
+        
+        public long getEpoch() { return epoch; }
+        
+        public long getExpiresAt() { return expiresAt; }
+    }
+    
+    /**
+     * 缓存项在token过期或达到TTL时失效，以先到者为准
+     */
+    private static final class VerifiedTokenExpiry implements Expiry<ByteBuffer, VerifiedToken> {
+        private final long maxTtlNanos;
+        
+        VerifiedTokenExpiry(long maxTtlNanos) {
+            this.maxTtlNanos = maxTtlNanos;
+        }
+        
+        @Override
+        public long expireAfterCreate(ByteBuffer key, VerifiedToken value, long currentTime) {
+            long remainingNanos = TimeUnit.MILLISECONDS.toNanos(value.getExpiresAt() - System.currentTimeMillis());
+            return Math.max(0, Math.min(maxTtlNanos, remainingNanos));
+        }
+        
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+        
+        @Override
+        public long expireAfterRead(ByteBuffer key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
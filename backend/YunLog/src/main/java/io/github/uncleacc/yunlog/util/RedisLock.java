@@ -0,0 +1,57 @@
+package io.github.uncleacc.yunlog.util;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * 基于Redis的简单分布式锁
+ * 加锁使用 SET NX PX，解锁时校验持有者，避免误删其他实例的锁
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisLock {
+    
+    // 分布式锁在Redis中的key前缀
+    private static final String LOCK_PREFIX = "lock:";
+    
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+        Long.class);
+    
+    private final StringRedisTemplate redisTemplate;
+    
+    /**
+     * 尝试加锁
+     * 
+     * @param name 锁名称
+     * @param ttl 锁的最长持有时间，持有者异常退出时到期自动释放
+     * @return 持有者标识，加锁失败返回null
+     */
+    public String tryLock(String name, Duration ttl) {
+        String token = UUID.randomUUID().toString();
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(LOCK_PREFIX + name, token, ttl);
+        return Boolean.TRUE.equals(locked) ? token : null;
+    }
+    
+    /**
+     * 释放锁（只释放自己持有的锁）
+     * 
+     * @param name 锁名称
+     * @param token 加锁时返回的持有者标识
+     */
+    public void unlock(String name, String token) {
+        try {
+            redisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(LOCK_PREFIX + name), token);
+        } catch (Exception e) {
+            log.warn("释放分布式锁失败: {}", name, e);
+        }
+    }
+}
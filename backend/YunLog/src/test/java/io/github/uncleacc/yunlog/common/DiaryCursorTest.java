@@ -0,0 +1,74 @@
+package io.github.uncleacc.yunlog.common;
+
+import io.github.uncleacc.yunlog.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 日记时间线游标的编码、解码和非法输入
+ */
+class DiaryCursorTest {
+    
+    @Test
+    void roundTripKeepsNanosecondPrecision() {
+        DiaryCursor cursor = new DiaryCursor(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123456789), 42L);
+        
+        assertThat(DiaryCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+    
+    @Test
+    void roundTripWithZeroSeconds() {
+        // LocalDateTime.toString 在秒为0时省略秒
+        DiaryCursor cursor = new DiaryCursor(LocalDateTime.of(2024, 5, 1, 12, 30), Long.MAX_VALUE);
+        
+        assertThat(DiaryCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+    
+    @Test
+    void encodedCursorIsUrlSafe() {
+        for (long id = 0; id < 200; id++) {
+            String encoded = new DiaryCursor(LocalDateTime.of(2024, 5, 1, 12, 30, 15, (int) id * 7919), id).encode();
+            assertThat(encoded).matches("[A-Za-z0-9_-]+");
+        }
+    }
+    
+    @ParameterizedTest
+    @ValueSource(strings = {"", "!!!", "2024-05-01T12:00|1", "bm90LWEtY3Vyc29y"})
+    void malformedCursorIsRejected(String cursor) {
+        assertBadCursor(cursor);
+    }
+    
+    @Test
+    void cursorWithoutIdIsRejected() {
+        assertBadCursor(encodeRaw("2024-05-01T12:00|"));
+    }
+    
+    @Test
+    void cursorWithNonNumericIdIsRejected() {
+        assertBadCursor(encodeRaw("2024-05-01T12:00|abc"));
+    }
+    
+    @Test
+    void cursorWithInvalidTimeIsRejected() {
+        assertBadCursor(encodeRaw("2024-13-01T12:00|1"));
+    }
+    
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static void assertBadCursor(String cursor) {
+        assertThatThrownBy(() -> DiaryCursor.decode(cursor))
+            .isInstanceOf(BusinessException.class)
+            .extracting(e -> ((BusinessException) e).getCode())
+            .isEqualTo(400);
+    }
+}
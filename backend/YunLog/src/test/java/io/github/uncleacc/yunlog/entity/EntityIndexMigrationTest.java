@@ -0,0 +1,94 @@
+package io.github.uncleacc.yunlog.entity;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+
+import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 实体类 @Table(indexes = ...) 声明的索引必须在 doc 下的数据库迁移脚本中以相同的列顺序创建
+ * 生产库不使用 ddl-auto 建索引，两边不一致时查询会退回全表扫描或 filesort
+ */
+class EntityIndexMigrationTest {
+    
+    private static final Pattern TABLE_PATTERN = Pattern.compile(
+        "(?i)(?:ALTER\\s+TABLE|CREATE\\s+TABLE(?:\\s+IF\\s+NOT\\s+EXISTS)?)\\s+`?(\\w+)`?");
+    
+    private static final Pattern INDEX_PATTERN = Pattern.compile(
+        "(?i)(?:ADD\\s+)?(?:UNIQUE\\s+)?(?:INDEX|KEY)\\s+`?(\\w+)`?\\s*\\(([^)]*)\\)");
+    
+    /**
+     * 表名.索引名 -> 列（逗号分隔，去掉反引号和空格）
+     */
+    private static Map<String, String> migrationIndexes;
+    
+    @BeforeAll
+    static void loadMigrations() throws IOException {
+        migrationIndexes = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get("doc"), "*.sql")) {
+            for (Path file : files) {
+                String sql = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).replaceAll("--[^\\n]*", "");
+                for (String statement : sql.split(";")) {
+                    Matcher table = TABLE_PATTERN.matcher(statement);
+                    if (!table.find()) {
+                        continue;
+                    }
+                    Matcher index = INDEX_PATTERN.matcher(statement);
+                    while (index.find()) {
+                        migrationIndexes.put(table.group(1) + "." + index.group(1), normalize(index.group(2)));
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    void migrationsParsed() {
+        assertThat(migrationIndexes).containsEntry("diaries.idx_user_deleted_create", "user_id,is_deleted,create_time");
+    }
+    
+    @Test
+    void everyEntityIndexIsCreatedByAMigration() throws ClassNotFoundException {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Entity.class));
+        
+        List<String> declared = new ArrayList<>();
+        for (BeanDefinition definition : scanner.findCandidateComponents(getClass().getPackage().getName())) {
+            Table table = Class.forName(definition.getBeanClassName()).getAnnotation(Table.class);
+            if (table == null) {
+                continue;
+            }
+            for (Index index : table.indexes()) {
+                String key = table.name() + "." + index.name();
+                declared.add(key);
+                assertThat(migrationIndexes)
+                    .as("实体索引 %s 需要在数据库迁移脚本中以相同列顺序创建", key)
+                    .containsEntry(key, normalize(index.columnList()));
+            }
+        }
+        assertThat(declared).isNotEmpty();
+    }
+    
+    private static String normalize(String columns) {
+        return columns.replaceAll("[`\\s]", "");
+    }
+}
@@ -0,0 +1,149 @@
+package io.github.uncleacc.yunlog.service;
+
+import io.github.uncleacc.yunlog.entity.Category;
+import io.github.uncleacc.yunlog.repository.CategoryRepository;
+import io.github.uncleacc.yunlog.support.EmbeddedRedisSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 分类缓存的版本号保护：查库期间有变更提交时不回填旧列表；缓存缺少分类时回查数据库
+ */
+class CategoryCacheServiceTest extends EmbeddedRedisSupport {
+    
+    private static final Long USER_ID = 10001L;
+    
+    private static final String LIST_KEY = "category:list:" + USER_ID;
+    
+    private CategoryRepository categoryRepository;
+    
+    private CategoryCacheService cacheService;
+    
+    private List<Category> table;
+    
+    @BeforeEach
+    void setUp() {
+        table = new ArrayList<>();
+        table.add(category(1L, USER_ID, "日常"));
+        categoryRepository = mock(CategoryRepository.class);
+        when(categoryRepository.findByUserIdOrderBySortOrderAscCreateTimeAsc(USER_ID))
+            .thenAnswer(inv -> ownedBy(USER_ID));
+        when(categoryRepository.findById(anyLong())).thenAnswer(inv -> table.stream()
+            .filter(category -> category.getId().equals(inv.getArgument(0)))
+            .findFirst());
+        cacheService = newCacheService(false);
+    }
+    
+    @Test
+    void missIsFilledAndServedFromRedis() {
+        assertThat(cacheService.getCategories(USER_ID)).extracting(Category::getName).containsExactly("日常");
+        assertThat(redisTemplate.hasKey(LIST_KEY)).isTrue();
+        
+        assertThat(cacheService.getCategories(USER_ID)).extracting(Category::getName).containsExactly("日常");
+        verify(categoryRepository, times(1)).findByUserIdOrderBySortOrderAscCreateTimeAsc(USER_ID);
+    }
+    
+    @Test
+    void evictionDuringLoadSkipsWriteBack() {
+        // 读请求查到旧列表后、回填前，另一个事务新增分类并在提交后失效缓存
+        when(categoryRepository.findByUserIdOrderBySortOrderAscCreateTimeAsc(USER_ID)).thenAnswer(inv -> {
+            List<Category> stale = ownedBy(USER_ID);
+            table.add(category(2L, USER_ID, "工作"));
+            cacheService.evict(USER_ID);
+            return stale;
+        });
+        
+        assertThat(cacheService.getCategories(USER_ID)).extracting(Category::getName).containsExactly("日常");
+        
+        assertThat(redisTemplate.hasKey(LIST_KEY)).isFalse();
+    }
+    
+    @Test
+    void writeBackAfterEvictionOfEarlierLoadIsKept() {
+        cacheService.getCategories(USER_ID);
+        table.add(category(2L, USER_ID, "工作"));
+        cacheService.evict(USER_ID);
+        
+        assertThat(cacheService.getCategories(USER_ID)).extracting(Category::getName).containsExactly("日常", "工作");
+        assertThat(redisTemplate.opsForValue().get(LIST_KEY)).contains("工作");
+    }
+    
+    @Test
+    void findOwnedFallsBackToDatabaseAndEvictsStaleList() {
+        CategoryCacheService otherInstance = newCacheService(true);
+        otherInstance.getCategories(USER_ID);
+        // 本实例创建分类，其他实例的本地缓存还是旧列表
+        table.add(category(2L, USER_ID, "工作"));
+        cacheService.evict(USER_ID);
+        
+        Optional<Category> found = otherInstance.findOwned(USER_ID, 2L);
+        
+        assertThat(found).map(Category::getName).hasValue("工作");
+        assertThat(otherInstance.getCategories(USER_ID)).extracting(Category::getName).containsExactly("日常", "工作");
+    }
+    
+    @Test
+    void findOwnedRejectsCategoryOfOtherUser() {
+        table.add(category(3L, 20002L, "别人的"));
+        
+        assertThat(cacheService.findOwned(USER_ID, 3L)).isEmpty();
+        assertThat(cacheService.findOwned(USER_ID, 4L)).isEmpty();
+    }
+    
+    @Test
+    void cachedCategoryIsFoundWithoutDatabaseLookup() {
+        assertThat(cacheService.findOwned(USER_ID, 1L)).isPresent();
+        
+        verify(categoryRepository, never()).findById(anyLong());
+    }
+    
+    @Test
+    void unreadableCacheFallsBackToDatabase() {
+        redisTemplate.opsForValue().set(LIST_KEY, "not-json");
+        
+        assertThat(cacheService.getCategories(USER_ID)).extracting(Category::getName).containsExactly("日常");
+        assertThat(redisTemplate.opsForValue().get(LIST_KEY)).isEqualTo("not-json");
+    }
+    
+    private CategoryCacheService newCacheService(boolean localEnabled) {
+        CategoryCacheService service = new CategoryCacheService(categoryRepository, redisTemplate,
+            Jackson2ObjectMapperBuilder.json().build());
+        ReflectionTestUtils.setField(service, "ttl", Duration.ofMinutes(30));
+        ReflectionTestUtils.setField(service, "localEnabled", localEnabled);
+        ReflectionTestUtils.setField(service, "localTtl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(service, "localMaxSize", 1000L);
+        service.init();
+        return service;
+    }
+    
+    private List<Category> ownedBy(Long userId) {
+        return table.stream().filter(category -> category.getUserId().equals(userId)).collect(Collectors.toList());
+    }
+    
+    private static Category category(Long id, Long userId, String name) {
+        Category category = new Category();
+        category.setId(id);
+        category.setUserId(userId);
+        category.setName(name);
+        category.setSortOrder(id.intValue());
+        category.setCreateTime(LocalDateTime.of(2026, 1, 1, 0, 0));
+        return category;
+    }
+}
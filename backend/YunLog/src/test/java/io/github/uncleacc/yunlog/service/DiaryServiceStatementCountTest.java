@@ -0,0 +1,165 @@
+package io.github.uncleacc.yunlog.service;
+
+import io.github.uncleacc.yunlog.common.PageResponse;
+import io.github.uncleacc.yunlog.context.UserContext;
+import io.github.uncleacc.yunlog.dto.response.DiaryWithAttachmentsResponse;
+import io.github.uncleacc.yunlog.entity.Attachment;
+import io.github.uncleacc.yunlog.entity.Category;
+import io.github.uncleacc.yunlog.entity.Diary;
+import io.github.uncleacc.yunlog.metrics.SqlStatementCounter;
+import io.github.uncleacc.yunlog.repository.AttachmentRepository;
+import io.github.uncleacc.yunlog.repository.DiaryRepository;
+import io.github.uncleacc.yunlog.support.SqlStatementCountingConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * 日记列表每页执行的 SQL 语句数固定，与页大小和附件数量无关（附件按页一次 IN 查询，不是每篇一次）
+ * 全文搜索依赖 MySQL FULLTEXT，内嵌数据库无法执行，由 DiaryServiceTest 覆盖
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({DiaryService.class, SqlStatementCountingConfig.class})
+class DiaryServiceStatementCountTest {
+    
+    private static final Long USER_ID = 10001L;
+    
+    private static final Long CATEGORY_ID = 1L;
+    
+    private static final int DIARY_COUNT = 45;
+    
+    private static final int ATTACHMENTS_PER_DIARY = 3;
+    
+    @MockBean
+    private CategoryCacheService categoryCacheService;
+    
+    @MockBean
+    private DiarySearchService diarySearchService;
+    
+    @MockBean
+    private AttachmentService attachmentService;
+    
+    @MockBean
+    private DiaryStatsService diaryStatsService;
+    
+    @Autowired
+    private DiaryService diaryService;
+    
+    @Autowired
+    private DiaryRepository diaryRepository;
+    
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+    
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+    
+    @BeforeEach
+    void setUp() {
+        UserContext.setUserId(USER_ID);
+        Category category = new Category();
+        category.setId(CATEGORY_ID);
+        category.setUserId(USER_ID);
+        when(categoryCacheService.findOwned(USER_ID, CATEGORY_ID)).thenReturn(Optional.of(category));
+        
+        List<Diary> diaries = new ArrayList<>();
+        for (int i = 0; i < DIARY_COUNT; i++) {
+            Diary diary = new Diary();
+            diary.setContent("日记" + i);
+            diary.setCategoryId(CATEGORY_ID);
+            diary.setUserId(USER_ID);
+            diaries.add(diary);
+        }
+        List<Attachment> attachments = new ArrayList<>();
+        for (Diary diary : diaryRepository.saveAll(diaries)) {
+            for (int i = 0; i < ATTACHMENTS_PER_DIARY; i++) {
+                Attachment attachment = new Attachment();
+                attachment.setDiaryId(diary.getId());
+                attachment.setUrl("https://yunlog-test.oss.local/diary-images/" + diary.getId() + "-" + i + ".jpg");
+                attachments.add(attachment);
+            }
+        }
+        attachmentRepository.saveAll(attachments);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        UserContext.clear();
+        attachmentRepository.deleteAll();
+        diaryRepository.deleteAll();
+    }
+    
+    @ParameterizedTest
+    @ValueSource(ints = {5, 20})
+    void diaryListPageRunsThreeStatements(int limit) {
+        // 查询当前页、统计总数、按页加载附件
+        PageResponse<DiaryWithAttachmentsResponse> page = count(3, () -> diaryService.getDiaryList(1, limit, null));
+        
+        assertThat(page.getList()).hasSize(limit)
+            .allSatisfy(diary -> assertThat(diary.getAttachments()).hasSize(ATTACHMENTS_PER_DIARY));
+        assertThat(page.getTotal()).isEqualTo((long) DIARY_COUNT);
+    }
+    
+    @Test
+    void categoryDiaryListPageRunsThreeStatements() {
+        PageResponse<DiaryWithAttachmentsResponse> page = count(3, () -> diaryService.getDiaryList(2, 20, CATEGORY_ID));
+        
+        assertThat(page.getList()).hasSize(20);
+    }
+    
+    @ParameterizedTest
+    @ValueSource(ints = {5, 20})
+    void timelinePagesRunTwoStatements(int limit) {
+        // 多取一条的当前页、按页加载附件；带游标的后续页同样如此
+        PageResponse<DiaryWithAttachmentsResponse> first = count(2, () -> diaryService.getDiaryTimeline(null, limit, null, false));
+        PageResponse<DiaryWithAttachmentsResponse> second = count(2, () ->
+            diaryService.getDiaryTimeline(first.getNextCursor(), limit, CATEGORY_ID, false));
+        
+        assertThat(first.getList()).hasSize(limit);
+        assertThat(second.getList()).hasSize(limit)
+            .allSatisfy(diary -> assertThat(diary.getAttachments()).hasSize(ATTACHMENTS_PER_DIARY));
+    }
+    
+    @Test
+    void timelineWithTotalAddsOneCountStatement() {
+        PageResponse<DiaryWithAttachmentsResponse> page = count(3, () -> diaryService.getDiaryTimeline(null, 20, null, true));
+        
+        assertThat(page.getTotal()).isEqualTo((long) DIARY_COUNT);
+    }
+    
+    @Test
+    void partialPageSkipsCountAndEmptyPageSkipsAttachments() {
+        // 45 篇第 3 页只剩 5 篇：分页查询能推算总数，不再执行 COUNT
+        count(2, () -> diaryService.getDiaryList(3, 20, null));
+        // 超出范围的页为空，不加载附件
+        count(2, () -> diaryService.getDiaryList(10, 20, null));
+    }
+    
+    private <T> T count(int expectedStatements, Supplier<T> call) {
+        sqlStatementCounter.begin();
+        T result = call.get();
+        assertThat(sqlStatementCounter.end()).isEqualTo(expectedStatements);
+        return result;
+    }
+}
@@ -0,0 +1,195 @@
+package io.github.uncleacc.yunlog.service;
+
+import io.github.uncleacc.yunlog.common.DiaryCursor;
+import io.github.uncleacc.yunlog.common.PageResponse;
+import io.github.uncleacc.yunlog.context.UserContext;
+import io.github.uncleacc.yunlog.dto.response.AttachmentResponse;
+import io.github.uncleacc.yunlog.dto.response.DiaryWithAttachmentsResponse;
+import io.github.uncleacc.yunlog.entity.Attachment;
+import io.github.uncleacc.yunlog.entity.Diary;
+import io.github.uncleacc.yunlog.repository.AttachmentRepository;
+import io.github.uncleacc.yunlog.repository.DiaryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 日记列表组装：当前页的附件一次查询加载，按日记分组；时间线游标分页多取一条判断下一页
+ */
+@ExtendWith(MockitoExtension.class)
+class DiaryServiceTest {
+    
+    private static final Long USER_ID = 10001L;
+    
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 5, 1, 12, 0);
+    
+    @Mock
+    private DiaryRepository diaryRepository;
+    
+    @Mock
+    private CategoryCacheService categoryCacheService;
+    
+    @Mock
+    private AttachmentRepository attachmentRepository;
+    
+    @Mock
+    private DiarySearchService diarySearchService;
+    
+    @Mock
+    private AttachmentService attachmentService;
+    
+    @Mock
+    private DiaryStatsService diaryStatsService;
+    
+    @InjectMocks
+    private DiaryService diaryService;
+    
+    @BeforeEach
+    void setUp() {
+        UserContext.setUserId(USER_ID);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        UserContext.clear();
+    }
+    
+    @Test
+    void diaryListLoadsAttachmentsOfThePageInOneQuery() {
+        List<Diary> diaries = Arrays.asList(diary(3L, 0), diary(2L, 1), diary(1L, 2));
+        when(diaryRepository.findByUserIdAndIsDeletedFalseOrderByCreateTimeDesc(eq(USER_ID), any(Pageable.class)))
+            .thenReturn(new PageImpl<>(diaries, PageRequest.of(0, 3), 7));
+        when(attachmentRepository.findByDiaryIdInOrderByCreateTimeAsc(Arrays.asList(3L, 2L, 1L)))
+            .thenReturn(Arrays.asList(attachment(31L, 3L), attachment(11L, 1L), attachment(32L, 3L)));
+        
+        PageResponse<DiaryWithAttachmentsResponse> response = diaryService.getDiaryList(1, 3, null);
+        
+        assertThat(response.getTotal()).isEqualTo(7L);
+        assertThat(response.getList()).extracting(DiaryWithAttachmentsResponse::getId).containsExactly(3L, 2L, 1L);
+        assertThat(attachmentIds(response.getList().get(0))).containsExactly(31L, 32L);
+        assertThat(attachmentIds(response.getList().get(1))).isEmpty();
+        assertThat(attachmentIds(response.getList().get(2))).containsExactly(11L);
+        verify(attachmentRepository).findByDiaryIdInOrderByCreateTimeAsc(Arrays.asList(3L, 2L, 1L));
+        verifyNoMoreInteractions(attachmentRepository);
+    }
+    
+    @Test
+    void emptyDiaryPageSkipsAttachmentQuery() {
+        when(diaryRepository.findByUserIdAndIsDeletedFalseOrderByCreateTimeDesc(eq(USER_ID), any(Pageable.class)))
+            .thenReturn(new PageImpl<>(Collections.emptyList(), PageRequest.of(0, 10), 0));
+        
+        PageResponse<DiaryWithAttachmentsResponse> response = diaryService.getDiaryList(1, 10, null);
+        
+        assertThat(response.getList()).isEmpty();
+        verifyNoInteractions(attachmentRepository);
+    }
+    
+    @Test
+    void searchResultsLoadAttachmentsInOneQuery() {
+        List<Diary> diaries = Arrays.asList(diary(5L, 0), diary(4L, 1));
+        when(diarySearchService.search(eq(USER_ID), eq("旅行"), any(Pageable.class)))
+            .thenReturn(new PageImpl<>(diaries, PageRequest.of(0, 2), 2));
+        when(attachmentRepository.findByDiaryIdInOrderByCreateTimeAsc(Arrays.asList(5L, 4L)))
+            .thenReturn(Collections.singletonList(attachment(41L, 4L)));
+        
+        PageResponse<DiaryWithAttachmentsResponse> response = diaryService.searchDiaries("旅行", 1, 2);
+        
+        assertThat(attachmentIds(response.getList().get(0))).isEmpty();
+        assertThat(attachmentIds(response.getList().get(1))).containsExactly(41L);
+        verify(attachmentRepository).findByDiaryIdInOrderByCreateTimeAsc(Arrays.asList(5L, 4L));
+        verifyNoMoreInteractions(attachmentRepository);
+    }
+    
+    @Test
+    void timelineFetchesOneExtraRowAndReturnsCursorOfLastKeptDiary() {
+        List<Diary> diaries = Arrays.asList(diary(5L, 0), diary(4L, 1), diary(3L, 2));
+        when(diaryRepository.findByUserIdAndIsDeletedFalseOrderByCreateTimeDescIdDesc(USER_ID, PageRequest.of(0, 3)))
+            .thenReturn(diaries);
+        when(attachmentRepository.findByDiaryIdInOrderByCreateTimeAsc(Arrays.asList(5L, 4L)))
+            .thenReturn(Collections.emptyList());
+        
+        PageResponse<DiaryWithAttachmentsResponse> response = diaryService.getDiaryTimeline(null, 2, null, false);
+        
+        assertThat(response.getList()).extracting(DiaryWithAttachmentsResponse::getId).containsExactly(5L, 4L);
+        assertThat(response.getNextCursor()).isNotNull();
+        DiaryCursor next = DiaryCursor.decode(response.getNextCursor());
+        assertThat(next.getId()).isEqualTo(4L);
+        assertThat(next.getCreateTime()).isEqualTo(BASE_TIME.minusMinutes(1));
+        assertThat(response.getTotal()).isNull();
+        verify(diaryRepository, never()).countByUserIdAndIsDeletedFalse(anyLong());
+    }
+    
+    @Test
+    void timelineLastPageHasNoCursor() {
+        DiaryCursor position = new DiaryCursor(BASE_TIME, 9L);
+        when(diaryRepository.findTimelineBefore(USER_ID, BASE_TIME, 9L, PageRequest.of(0, 3)))
+            .thenReturn(Arrays.asList(diary(8L, 1), diary(7L, 1)));
+        when(attachmentRepository.findByDiaryIdInOrderByCreateTimeAsc(Arrays.asList(8L, 7L)))
+            .thenReturn(Collections.emptyList());
+        when(diaryRepository.countByUserIdAndIsDeletedFalse(USER_ID)).thenReturn(11L);
+        
+        PageResponse<DiaryWithAttachmentsResponse> response = diaryService.getDiaryTimeline(position.encode(), 2, null, true);
+        
+        assertThat(response.getList()).extracting(DiaryWithAttachmentsResponse::getId).containsExactly(8L, 7L);
+        assertThat(response.getNextCursor()).isNull();
+        assertThat(response.getTotal()).isEqualTo(11L);
+    }
+    
+    @Test
+    void emptyTimelineHasNoCursor() {
+        when(diaryRepository.findByUserIdAndIsDeletedFalseOrderByCreateTimeDescIdDesc(USER_ID, PageRequest.of(0, 21)))
+            .thenReturn(Collections.emptyList());
+        
+        PageResponse<DiaryWithAttachmentsResponse> response = diaryService.getDiaryTimeline("", 20, null, false);
+        
+        assertThat(response.getList()).isEmpty();
+        assertThat(response.getNextCursor()).isNull();
+    }
+    
+    static Diary diary(Long id, int minutesAgo) {
+        Diary diary = new Diary();
+        diary.setId(id);
+        diary.setUserId(USER_ID);
+        diary.setContent("日记" + id);
+        diary.setCreateTime(BASE_TIME.minusMinutes(minutesAgo));
+        return diary;
+    }
+    
+    private static Attachment attachment(Long id, Long diaryId) {
+        Attachment attachment = new Attachment();
+        attachment.setId(id);
+        attachment.setDiaryId(diaryId);
+        attachment.setUrl("https://bucket.oss-cn-hangzhou.aliyuncs.com/diary/" + id + ".jpg");
+        attachment.setCreateTime(BASE_TIME);
+        return attachment;
+    }
+    
+    private static List<Long> attachmentIds(DiaryWithAttachmentsResponse response) {
+        return response.getAttachments().stream()
+            .map(AttachmentResponse::getId)
+            .collect(Collectors.toList());
+    }
+}
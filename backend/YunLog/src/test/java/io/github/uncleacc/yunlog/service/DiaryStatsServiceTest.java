@@ -0,0 +1,324 @@
+package io.github.uncleacc.yunlog.service;
+
+import io.github.uncleacc.yunlog.dto.response.DiaryStatsResponse;
+import io.github.uncleacc.yunlog.entity.Category;
+import io.github.uncleacc.yunlog.entity.Diary;
+import io.github.uncleacc.yunlog.repository.DiaryRepository;
+import io.github.uncleacc.yunlog.support.EmbeddedRedisSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 日记统计：增量更新与从数据库重建结果一致、今天/本周/本月边界、重建与提交并发时不写回旧结果、Redis不可用时回退到数据库
+ * MySQL 不可用，用内存中的日记列表实现三个聚合查询
+ */
+class DiaryStatsServiceTest extends EmbeddedRedisSupport {
+    
+    private static final Long USER_ID = 10001L;
+    
+    private static final Long LIFE = 1L;
+    
+    private static final Long WORK = 2L;
+    
+    private static final String STATS_KEY = "stats:diary:" + USER_ID;
+    
+    private final AtomicLong ids = new AtomicLong();
+    
+    private List<Diary> diaries;
+    
+    private DiaryRepository diaryRepository;
+    
+    private DiaryStatsService statsService;
+    
+    private LocalDate today;
+    
+    @BeforeEach
+    void setUp() {
+        diaries = new ArrayList<>();
+        today = LocalDate.now();
+        diaryRepository = mock(DiaryRepository.class);
+        when(diaryRepository.countByCategory(USER_ID)).thenAnswer(inv -> countByCategory());
+        when(diaryRepository.findCategoryAndCreateTimeSince(any(), any())).thenAnswer(inv ->
+            live().filter(diary -> !diary.getCreateTime().isBefore(inv.getArgument(1)))
+                .map(diary -> new Object[]{diary.getCategoryId(), diary.getCreateTime()})
+                .collect(Collectors.toList()));
+        when(diaryRepository.findLatestPerCategory(USER_ID)).thenAnswer(inv -> latestPerCategory());
+        when(diaryRepository.findFirstByUserIdAndCategoryIdAndIsDeletedFalseOrderByCreateTimeDescIdDesc(any(), anyLong()))
+            .thenAnswer(inv -> latest(inv.getArgument(1)));
+        statsService = newStatsService(redisTemplate);
+    }
+    
+    @Test
+    void rebuildsFromDatabaseOnceAndServesFromRedis() {
+        insert(LIFE, today.atTime(9, 0));
+        insert(WORK, today.minusDays(60).atTime(9, 0));
+        
+        DiaryStatsResponse stats = statsService.getStats(USER_ID);
+        statsService.getStats(USER_ID);
+        
+        assertThat(stats.getTotalCount()).isEqualTo(2);
+        assertThat(stats.getToday()).isEqualTo(1);
+        assertThat(stats.getCategories().get(WORK).getThisMonth()).isZero();
+        assertThat(redisTemplate.hasKey(STATS_KEY)).isTrue();
+        verify(diaryRepository, times(1)).countByCategory(USER_ID);
+    }
+    
+    @Test
+    void addedDiaryIsCountedIncrementally() {
+        insert(LIFE, today.atTime(9, 0));
+        statsService.getStats(USER_ID);
+        
+        Diary added = insert(LIFE, today.atTime(21, 0));
+        statsService.recordAdded(added);
+        
+        DiaryStatsResponse stats = statsService.getStats(USER_ID);
+        CategoryService.CategoryStatsResponse life = stats.getCategories().get(LIFE);
+        assertThat(life.getTotalCount()).isEqualTo(2);
+        assertThat(life.getToday()).isEqualTo(2);
+        assertThat(life.getRecentDiary().getId()).isEqualTo(added.getId());
+        verify(diaryRepository, times(1)).countByCategory(USER_ID);
+        assertMatchesRebuild(stats);
+    }
+    
+    @Test
+    void removedDiaryIsUncountedAndRecentDiaryFallsBackToDatabase() {
+        Diary older = insert(LIFE, today.atTime(8, 0));
+        Diary newer = insert(LIFE, today.atTime(9, 0));
+        statsService.getStats(USER_ID);
+        
+        newer.setIsDeleted(true);
+        statsService.recordRemoved(newer);
+        
+        DiaryStatsResponse stats = statsService.getStats(USER_ID);
+        CategoryService.CategoryStatsResponse life = stats.getCategories().get(LIFE);
+        assertThat(life.getTotalCount()).isEqualTo(1);
+        assertThat(life.getToday()).isEqualTo(1);
+        assertThat(life.getRecentDiary().getId()).isEqualTo(older.getId());
+        assertMatchesRebuild(stats);
+    }
+    
+    @Test
+    void movedDiaryChangesBothCategories() {
+        insert(LIFE, today.atTime(8, 0));
+        Diary moved = insert(LIFE, today.atTime(9, 0));
+        statsService.getStats(USER_ID);
+        
+        moved.setCategoryId(WORK);
+        statsService.recordMoved(moved, LIFE);
+        
+        DiaryStatsResponse stats = statsService.getStats(USER_ID);
+        assertThat(stats.getCategories().get(LIFE).getTotalCount()).isEqualTo(1);
+        assertThat(stats.getCategories().get(WORK).getTotalCount()).isEqualTo(1);
+        assertThat(stats.getCategories().get(WORK).getToday()).isEqualTo(1);
+        assertThat(stats.getCategories().get(WORK).getRecentDiary().getId()).isEqualTo(moved.getId());
+        assertThat(stats.getTotalCount()).isEqualTo(2);
+        assertMatchesRebuild(stats);
+    }
+    
+    @Test
+    void timeChangeMovesDiaryBetweenDays() {
+        Diary diary = insert(LIFE, today.atTime(9, 0));
+        statsService.getStats(USER_ID);
+        
+        LocalDateTime oldCreateTime = diary.getCreateTime();
+        diary.setCreateTime(today.minusMonths(2).atTime(9, 0));
+        statsService.recordTimeChanged(diary, oldCreateTime);
+        
+        DiaryStatsResponse stats = statsService.getStats(USER_ID);
+        assertThat(stats.getTotalCount()).isEqualTo(1);
+        assertThat(stats.getToday()).isZero();
+        assertThat(stats.getThisWeek()).isZero();
+        assertThat(stats.getThisMonth()).isZero();
+        assertThat(stats.getLastDiaryTime()).isEqualTo(diary.getCreateTime());
+        assertMatchesRebuild(stats);
+    }
+    
+    @Test
+    void weekAndMonthStartAreInclusive() {
+        LocalDate weekStart = today.with(DayOfWeek.MONDAY);
+        LocalDate monthStart = today.withDayOfMonth(1);
+        List<LocalDateTime> times = Arrays.asList(
+            weekStart.atStartOfDay(),
+            weekStart.minusDays(1).atTime(LocalTime.MAX),
+            monthStart.atStartOfDay(),
+            monthStart.minusDays(1).atTime(LocalTime.MAX),
+            today.atStartOfDay(),
+            today.minusDays(1).atTime(LocalTime.MAX));
+        statsService.getStats(USER_ID);
+        
+        // 全部通过增量更新写入，最后与从数据库重建的结果比较，两条路径的边界一致
+        for (int i = 0; i < times.size(); i++) {
+            Diary diary = insert(i % 2 == 0 ? LIFE : WORK, times.get(i));
+            statsService.recordAdded(diary);
+        }
+        
+        DiaryStatsResponse stats = statsService.getStats(USER_ID);
+        assertThat(stats.getToday()).isEqualTo(countSince(times, today));
+        assertThat(stats.getThisWeek()).isEqualTo(countSince(times, weekStart));
+        assertThat(stats.getThisMonth()).isEqualTo(countSince(times, monthStart));
+        assertThat(stats.getTotalCount()).isEqualTo(times.size());
+        assertMatchesRebuild(stats);
+    }
+    
+    @Test
+    void dayCountsOutsideRetentionAreDropped() {
+        statsService.getStats(USER_ID);
+        Diary old = insert(LIFE, today.minusDays(90).atTime(9, 0));
+        statsService.recordAdded(old);
+        String oldDayField = "d:" + LIFE + ":" + old.getCreateTime().toLocalDate().toString().replace("-", "");
+        assertThat(redisTemplate.opsForHash().hasKey(STATS_KEY, oldDayField)).isTrue();
+        
+        DiaryStatsResponse stats = statsService.getStats(USER_ID);
+        
+        assertThat(stats.getTotalCount()).isEqualTo(1);
+        assertThat(stats.getThisMonth()).isZero();
+        assertThat(redisTemplate.opsForHash().hasKey(STATS_KEY, oldDayField)).isFalse();
+    }
+    
+    @Test
+    void rebuildRacingCommitIsNotWrittenBack() {
+        insert(LIFE, today.atTime(8, 0));
+        // 重建查询完总数之后，另一个事务提交了新日记
+        when(diaryRepository.countByCategory(USER_ID)).thenAnswer(inv -> {
+            List<Object[]> counts = countByCategory();
+            Diary committed = insert(LIFE, today.atTime(9, 0));
+            statsService.recordAdded(committed);
+            return counts;
+        }).thenAnswer(inv -> countByCategory());
+        
+        DiaryStatsResponse racing = statsService.getStats(USER_ID);
+        
+        assertThat(racing.getTotalCount()).isEqualTo(1);
+        assertThat(redisTemplate.hasKey(STATS_KEY)).isFalse();
+        DiaryStatsResponse next = statsService.getStats(USER_ID);
+        assertThat(next.getTotalCount()).isEqualTo(2);
+        assertThat(next.getToday()).isEqualTo(2);
+        assertThat(redisTemplate.hasKey(STATS_KEY)).isTrue();
+    }
+    
+    @Test
+    void invalidateForcesRebuild() {
+        insert(LIFE, today.atTime(8, 0));
+        statsService.getStats(USER_ID);
+        insert(WORK, today.atTime(9, 0));
+        
+        statsService.invalidate(USER_ID);
+        
+        assertThat(statsService.getStats(USER_ID).getTotalCount()).isEqualTo(2);
+        verify(diaryRepository, times(2)).countByCategory(USER_ID);
+    }
+    
+    @Test
+    void unavailableRedisFallsBackToDatabase() {
+        Diary older = insert(LIFE, today.atTime(8, 0));
+        Diary newer = insert(WORK, today.atTime(9, 0));
+        StringRedisTemplate brokenRedis = mock(StringRedisTemplate.class, inv -> {
+            throw new RedisConnectionFailureException("Unable to connect to Redis");
+        });
+        DiaryStatsService service = newStatsService(brokenRedis);
+        
+        DiaryStatsResponse stats = service.getStats(USER_ID);
+        service.recordAdded(older);
+        
+        assertThat(stats.getTotalCount()).isEqualTo(2);
+        assertThat(stats.getToday()).isEqualTo(2);
+        assertThat(stats.getCategories().get(LIFE).getRecentDiary().getId()).isEqualTo(older.getId());
+        assertThat(stats.getLastDiaryTime()).isEqualTo(newer.getCreateTime());
+    }
+    
+    /**
+     * 增量维护的结果应与清空缓存后从数据库重建的结果一致
+     */
+    private void assertMatchesRebuild(DiaryStatsResponse incremental) {
+        clearInvocations(diaryRepository);
+        redisTemplate.delete(STATS_KEY);
+        
+        DiaryStatsResponse rebuilt = statsService.getStats(USER_ID);
+        
+        verify(diaryRepository, times(1)).countByCategory(USER_ID);
+        assertThat(incremental).usingRecursiveComparison().isEqualTo(rebuilt);
+    }
+    
+    private DiaryStatsService newStatsService(StringRedisTemplate redis) {
+        CategoryCacheService categoryCacheService = mock(CategoryCacheService.class);
+        when(categoryCacheService.getCategories(USER_ID)).thenReturn(Arrays.asList(category(LIFE), category(WORK)));
+        DiaryStatsService service = new DiaryStatsService(diaryRepository, categoryCacheService, redis);
+        ReflectionTestUtils.setField(service, "ttl", Duration.ofDays(1));
+        return service;
+    }
+    
+    private Diary insert(Long categoryId, LocalDateTime createTime) {
+        Diary diary = new Diary();
+        diary.setId(ids.incrementAndGet());
+        diary.setUserId(USER_ID);
+        diary.setCategoryId(categoryId);
+        diary.setCreateTime(createTime);
+        diaries.add(diary);
+        return diary;
+    }
+    
+    private Stream<Diary> live() {
+        return diaries.stream().filter(diary -> !diary.getIsDeleted());
+    }
+    
+    private List<Object[]> countByCategory() {
+        Map<Long, Long> counts = live().collect(Collectors.groupingBy(Diary::getCategoryId, Collectors.counting()));
+        return counts.entrySet().stream()
+            .map(entry -> new Object[]{entry.getKey(), entry.getValue()})
+            .collect(Collectors.toList());
+    }
+    
+    private List<Object[]> latestPerCategory() {
+        Map<Long, LocalDateTime> latestTime = new HashMap<>();
+        live().forEach(diary -> latestTime.merge(diary.getCategoryId(), diary.getCreateTime(),
+            (a, b) -> a.isAfter(b) ? a : b));
+        return live().filter(diary -> diary.getCreateTime().equals(latestTime.get(diary.getCategoryId())))
+            .map(diary -> new Object[]{diary.getCategoryId(), diary.getId(), diary.getCreateTime()})
+            .collect(Collectors.toList());
+    }
+    
+    private Optional<Diary> latest(Long categoryId) {
+        return live().filter(diary -> diary.getCategoryId().equals(categoryId))
+            .max(Comparator.comparing(Diary::getCreateTime).thenComparing(Diary::getId));
+    }
+    
+    private static long countSince(List<LocalDateTime> times, LocalDate start) {
+        return times.stream().filter(time -> !time.toLocalDate().isBefore(start)).count();
+    }
+    
+    private static Category category(Long id) {
+        Category category = new Category();
+        category.setId(id);
+        category.setUserId(USER_ID);
+        category.setName("分类" + id);
+        return category;
+    }
+}
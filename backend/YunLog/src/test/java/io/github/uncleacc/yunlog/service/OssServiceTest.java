@@ -0,0 +1,334 @@
+package io.github.uncleacc.yunlog.service;
+
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.model.PutObjectRequest;
+import com.aliyun.oss.model.PutObjectResult;
+import io.github.uncleacc.yunlog.config.OssProperties;
+import io.github.uncleacc.yunlog.config.OssUploadExecutorConfig;
+import io.github.uncleacc.yunlog.context.UserContext;
+import io.github.uncleacc.yunlog.dto.request.CreateAttachmentRequest;
+import io.github.uncleacc.yunlog.entity.Diary;
+import io.github.uncleacc.yunlog.entity.OssDeleteTask;
+import io.github.uncleacc.yunlog.entity.OssObject;
+import io.github.uncleacc.yunlog.exception.BusinessException;
+import io.github.uncleacc.yunlog.metrics.SqlStatementCounter;
+import io.github.uncleacc.yunlog.repository.AttachmentRepository;
+import io.github.uncleacc.yunlog.repository.DiaryRepository;
+import io.github.uncleacc.yunlog.repository.OssDeleteTaskRepository;
+import io.github.uncleacc.yunlog.repository.OssObjectRepository;
+import io.github.uncleacc.yunlog.support.SqlStatementCountingConfig;
+import io.github.uncleacc.yunlog.util.RedisLock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * 上传去重与对象引用：丢弃上传和创建附件的竞争不会删除仍在使用的对象，批量上传失败时丢弃已上传的文件，
+ * 删除附件时批量释放引用
+ * 对象索引、附件和删除发件箱使用内嵌数据库，每个操作在自己的事务中提交
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OssService.class, OssDeleteOutboxService.class, AttachmentService.class, OssUploadExecutorConfig.class,
+    SqlStatementCountingConfig.class})
+class OssServiceTest {
+    
+    private static final Long USER_A = 10001L;
+    
+    private static final Long USER_B = 10002L;
+    
+    // 默认缩略图宽度 320,640,1080，删除原图时一并登记
+    private static final int VARIANT_COUNT = 3;
+    
+    @TestConfiguration
+    @EnableConfigurationProperties(OssProperties.class)
+    static class Config {
+    }
+    
+    @MockBean
+    private OSS ossClient;
+    
+    @MockBean
+    private RedisLock redisLock;
+    
+    @MockBean
+    private ImageVariantService imageVariantService;
+    
+    @Autowired
+    private OssService ossService;
+    
+    @Autowired
+    private AttachmentService attachmentService;
+    
+    @Autowired
+    private OssObjectRepository ossObjectRepository;
+    
+    @Autowired
+    private OssDeleteTaskRepository ossDeleteTaskRepository;
+    
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+    
+    @Autowired
+    private DiaryRepository diaryRepository;
+    
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    private Long diaryId;
+    
+    @BeforeEach
+    void setUp() {
+        when(redisLock.tryLock(anyString(), any())).thenReturn("token");
+        diaryId = newDiary();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        UserContext.clear();
+        attachmentRepository.deleteAll();
+        diaryRepository.deleteAll();
+        ossObjectRepository.deleteAll();
+        ossDeleteTaskRepository.deleteAll();
+    }
+    
+    @Test
+    void discardAfterAnotherUserHitTheObjectKeepsIt() {
+        String url = upload(USER_A, "image-x");
+        assertThat(upload(USER_B, "image-x")).isEqualTo(url);
+        
+        // B 在编辑器中移除图片，A 还未保存
+        assertThat(discard(USER_B, url)).isFalse();
+        
+        assertThat(queuedDeletes()).isEmpty();
+        createAttachment(USER_A, url);
+        assertThat(object(url).getRefCount()).isEqualTo(1);
+    }
+    
+    @Test
+    void discardByFirstUploaderAfterAnotherHitKeepsIt() {
+        String url = upload(USER_A, "image-x");
+        upload(USER_B, "image-x");
+        
+        assertThat(discard(USER_A, url)).isFalse();
+        
+        assertThat(queuedDeletes()).isEmpty();
+        createAttachment(USER_B, url);
+        assertThat(object(url).getRefCount()).isEqualTo(1);
+    }
+    
+    @Test
+    void repeatedDiscardCannotConsumeOtherUploads() {
+        String url = upload(USER_A, "image-x");
+        upload(USER_B, "image-x");
+        
+        discard(USER_B, url);
+        assertThat(discard(USER_B, url)).isFalse();
+        
+        assertThat(queuedDeletes()).isEmpty();
+        assertThat(object(url).getPendingUploads()).isEqualTo(1);
+    }
+    
+    @Test
+    void soleUploaderCanDiscard() {
+        String url = upload(USER_A, "image-x");
+        
+        assertThat(discard(USER_A, url)).isTrue();
+        
+        assertThat(ossObjectRepository.count()).isZero();
+        assertThat(queuedDeletes()).contains(objectName(url));
+    }
+    
+    @Test
+    void attachingDiscardedUploadIsRejected() {
+        String url = upload(USER_A, "image-x");
+        discard(USER_A, url);
+        
+        assertAttachRejected(url);
+    }
+    
+    @Test
+    void attachingPurgedUploadIsRejected() {
+        // 草稿超过保留期才保存
+        String url = upload(USER_A, "image-x");
+        OssObject object = object(url);
+        object.setLastUsedTime(LocalDateTime.now().minusDays(2));
+        ossObjectRepository.save(object);
+        ossService.purgeUnreferenced();
+        assertThat(queuedDeletes()).contains(objectName(url));
+        
+        assertAttachRejected(url);
+    }
+    
+    @Test
+    void attachedObjectIsNotDiscarded() {
+        String url = upload(USER_A, "image-x");
+        createAttachment(USER_A, url);
+        
+        assertThat(discard(USER_A, url)).isFalse();
+        
+        assertThat(queuedDeletes()).isEmpty();
+    }
+    
+    @Test
+    void failedBatchUploadDiscardsFilesThatLanded() {
+        when(ossClient.putObject(any(PutObjectRequest.class))).thenAnswer(invocation -> {
+            PutObjectRequest request = invocation.getArgument(0);
+            if (Arrays.equals(StreamUtils.copyToByteArray(request.getInputStream()), bytes("broken"))) {
+                throw new ClientException("connection reset");
+            }
+            return new PutObjectResult();
+        });
+        UserContext.setUserId(USER_A);
+        MultipartFile[] files = {image("image-1"), image("broken"), image("image-2")};
+        
+        assertThatThrownBy(() -> ossService.uploadFiles(files)).isInstanceOf(ClientException.class);
+        
+        assertThat(ossObjectRepository.count()).isZero();
+        assertThat(queuedDeletes()).hasSize(2 * (1 + VARIANT_COUNT));
+    }
+    
+    @Test
+    void failedBatchUploadKeepsObjectsOtherUploadsStillUse() {
+        String shared = upload(USER_B, "image-1");
+        when(ossClient.putObject(any(PutObjectRequest.class))).thenThrow(new ClientException("connection reset"));
+        UserContext.setUserId(USER_A);
+        MultipartFile[] files = {image("image-1"), image("broken")};
+        
+        assertThatThrownBy(() -> ossService.uploadFiles(files)).isInstanceOf(ClientException.class);
+        
+        assertThat(queuedDeletes()).isEmpty();
+        createAttachment(USER_B, shared);
+    }
+    
+    @Test
+    void deletingAttachmentsReleasesReferencesWithAFixedNumberOfStatements() {
+        String x = upload(USER_A, "image-x");
+        String y = upload(USER_A, "image-y");
+        List<Long> diaryIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Long id = newDiary();
+            attachmentService.batchCreateAttachments(id, Arrays.asList(x, y));
+            diaryIds.add(id);
+        }
+        
+        sqlStatementCounter.begin();
+        int deleted = attachmentService.deleteAttachmentsByDiaryIds(diaryIds);
+        int statements = sqlStatementCounter.end();
+        
+        assertThat(deleted).isEqualTo(40);
+        // 查询附件、查询已登记对象、按释放数量分组的一条更新、删除附件
+        assertThat(statements).isEqualTo(4);
+        assertThat(object(x).getRefCount()).isZero();
+        assertThat(object(y).getRefCount()).isZero();
+        assertThat(queuedDeletes()).isEmpty();
+    }
+    
+    @Test
+    void releaseGroupsByMultiplicityAndReturnsUnregisteredObjects() {
+        String x = upload(USER_A, "image-x");
+        String y = upload(USER_A, "image-y");
+        String z = upload(USER_A, "image-z");
+        attachmentService.batchCreateAttachments(diaryId, Arrays.asList(x, x, x, y, y, z));
+        String legacy = "https://yunlog-test.oss.local/diary-images/20200101/legacy.jpg";
+        
+        Set<String> unregistered = transactionTemplate.execute(status ->
+            ossService.release(Arrays.asList(x, x, y, legacy)));
+        
+        assertThat(unregistered).containsExactly(objectName(legacy));
+        assertThat(object(x).getRefCount()).isEqualTo(1);
+        assertThat(object(y).getRefCount()).isEqualTo(1);
+        assertThat(object(z).getRefCount()).isEqualTo(1);
+    }
+    
+    private void assertAttachRejected(String url) {
+        assertThatThrownBy(() -> createAttachment(USER_A, url))
+            .isInstanceOf(BusinessException.class)
+            .extracting(e -> ((BusinessException) e).getCode())
+            .isEqualTo(409);
+        // 附件随事务回滚
+        assertThat(attachmentRepository.count()).isZero();
+    }
+    
+    private Long newDiary() {
+        Diary diary = new Diary();
+        diary.setContent("今天");
+        diary.setCategoryId(1L);
+        diary.setUserId(USER_A);
+        return diaryRepository.save(diary).getId();
+    }
+    
+    private String upload(Long userId, String content) {
+        UserContext.setUserId(userId);
+        return ossService.uploadFile(image(content));
+    }
+    
+    private MockMultipartFile image(String content) {
+        return new MockMultipartFile("file", "photo.jpg", "image/jpeg", bytes(content));
+    }
+    
+    private byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private boolean discard(Long userId, String url) {
+        UserContext.setUserId(userId);
+        return ossService.discardUpload(url);
+    }
+    
+    private void createAttachment(Long userId, String url) {
+        UserContext.setUserId(userId);
+        CreateAttachmentRequest request = new CreateAttachmentRequest();
+        request.setDiaryId(diaryId);
+        request.setUrl(url);
+        attachmentService.createAttachment(request);
+    }
+    
+    private OssObject object(String url) {
+        return ossObjectRepository.findByObjectName(objectName(url)).orElseThrow(IllegalStateException::new);
+    }
+    
+    private String objectName(String url) {
+        return ossService.extractObjectName(url);
+    }
+    
+    private List<String> queuedDeletes() {
+        return ossDeleteTaskRepository.findAll().stream()
+            .map(OssDeleteTask::getObjectName)
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,262 @@
+package io.github.uncleacc.yunlog.service;
+
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.model.UploadPartRequest;
+import io.github.uncleacc.yunlog.config.OssProperties;
+import io.github.uncleacc.yunlog.config.OssUploadExecutorConfig;
+import io.github.uncleacc.yunlog.context.UserContext;
+import io.github.uncleacc.yunlog.exception.BusinessException;
+import io.github.uncleacc.yunlog.repository.OssDeleteTaskRepository;
+import io.github.uncleacc.yunlog.repository.OssObjectRepository;
+import io.github.uncleacc.yunlog.support.LocalFileOss;
+import io.github.uncleacc.yunlog.util.RedisLock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 流式上传：按缓冲区大小切成多个分片写入本地文件系统 OSS 替身，单个分片失败时从缓冲区重传，
+ * 不可重试的失败、读取失败和超限时取消分片上传；任何情况下缓冲区都归还缓冲池
+ */
+@DataJpaTest(showSql = false, properties = {
+    "aliyun.oss.stream.part-size=1024",
+    "aliyun.oss.stream.max-buffers=2",
+    "aliyun.oss.stream.max-part-retries=2",
+    "aliyun.oss.stream.max-object-size=8192"
+})
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OssService.class, OssDeleteOutboxService.class, OssUploadExecutorConfig.class})
+class OssStreamUploadTest {
+    
+    private static final int PART_SIZE = 1024;
+    
+    private static final String URL_PREFIX = "https://yunlog-test.oss.local/";
+    
+    @TestConfiguration
+    @EnableConfigurationProperties(OssProperties.class)
+    static class Config {
+        
+        @Bean
+        public Path ossRoot() throws IOException {
+            return Files.createTempDirectory("yunlog-oss");
+        }
+        
+        @Bean
+        public OSS localFileOss(Path ossRoot) {
+            return LocalFileOss.create(ossRoot);
+        }
+        
+        /**
+         * 默认委托给本地替身，测试中按分片注入失败
+         */
+        @Bean
+        @Primary
+        public OSS ossClient(@Qualifier("localFileOss") OSS localFileOss) {
+            return mock(OSS.class, delegatesTo(localFileOss));
+        }
+    }
+    
+    @MockBean
+    private RedisLock redisLock;
+    
+    @Autowired
+    private OssService ossService;
+    
+    @Autowired
+    private OSS ossClient;
+    
+    @Autowired
+    @Qualifier("localFileOss")
+    private OSS localFileOss;
+    
+    @Autowired
+    private Path ossRoot;
+    
+    @Autowired
+    private OssObjectRepository ossObjectRepository;
+    
+    @Autowired
+    private OssDeleteTaskRepository ossDeleteTaskRepository;
+    
+    @BeforeEach
+    void setUp() {
+        UserContext.setUserId(10001L);
+    }
+    
+    @AfterEach
+    void tearDown() throws IOException {
+        // 每条路径结束后缓冲区都已归还，OSS 上没有残留的分片上传
+        assertThat(ossService.getStreamBufferBytesInUse()).isZero();
+        assertThat(pendingMultipartUploads()).isZero();
+        
+        UserContext.clear();
+        reset(ossClient);
+        ossObjectRepository.deleteAll();
+        ossDeleteTaskRepository.deleteAll();
+    }
+    
+    @Test
+    void uploadSpanningSeveralBuffersIsAssembledInOrder() throws IOException {
+        byte[] content = content(3 * PART_SIZE + 512);
+        
+        String url = ossService.uploadStream(new ByteArrayInputStream(content), "image/png", null);
+        
+        assertThat(url).startsWith(URL_PREFIX).endsWith(".png");
+        assertThat(Files.readAllBytes(ossRoot.resolve(objectName(url)))).isEqualTo(content);
+        verify(ossClient, times(4)).uploadPart(any());
+        assertThat(ossObjectRepository.findByObjectName(objectName(url))).isPresent();
+    }
+    
+    @Test
+    void failedPartIsResentFromTheBuffer() throws IOException {
+        byte[] content = content(3 * PART_SIZE);
+        // 第 2 片第一次发送到一半时连接被重置
+        doAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            request.getInputStream().read(new byte[PART_SIZE / 2]);
+            throw new ClientException("Connection reset");
+        }).doAnswer(delegatesTo(localFileOss)).when(ossClient).uploadPart(argThat(part(2)));
+        
+        String url = ossService.uploadStream(new ByteArrayInputStream(content), "image/jpeg", "photo.jpg");
+        
+        assertThat(Files.readAllBytes(ossRoot.resolve(objectName(url)))).isEqualTo(content);
+        verify(ossClient, times(2)).uploadPart(argThat(part(2)));
+        verify(ossClient, never()).abortMultipartUpload(any());
+    }
+    
+    @Test
+    void exhaustedRetriesAbortTheUpload() {
+        doThrow(new ClientException("Connection reset")).when(ossClient).uploadPart(argThat(part(2)));
+        
+        assertUploadFails(content(3 * PART_SIZE), 500);
+        
+        // 首次发送加 2 次重试
+        verify(ossClient, times(3)).uploadPart(argThat(part(2)));
+        verify(ossClient).abortMultipartUpload(any());
+    }
+    
+    @Test
+    void nonRetryableErrorAbortsWithoutRetry() {
+        doThrow(new OSSException("The specified upload does not exist.", OSSErrorCode.NO_SUCH_UPLOAD,
+            "request-id", "host-id", null, null, "PUT"))
+            .when(ossClient).uploadPart(argThat(part(2)));
+        
+        assertUploadFails(content(3 * PART_SIZE), 500);
+        
+        verify(ossClient, times(1)).uploadPart(argThat(part(2)));
+        verify(ossClient, never()).uploadPart(argThat(part(3)));
+        verify(ossClient).abortMultipartUpload(any());
+    }
+    
+    @Test
+    void requestBodyReadFailureAbortsTheUpload() {
+        InputStream broken = new SequenceInputStream(new ByteArrayInputStream(content(PART_SIZE + 100)),
+            new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    throw new IOException("Connection reset by peer");
+                }
+            });
+        
+        assertUploadFails(broken, 500);
+        
+        verify(ossClient).abortMultipartUpload(any());
+    }
+    
+    @Test
+    void oversizedUploadAbortsTheUpload() {
+        assertUploadFails(content(8 * PART_SIZE + 1), 400);
+        
+        verify(ossClient, times(8)).uploadPart(any());
+        verify(ossClient).abortMultipartUpload(any());
+    }
+    
+    @Test
+    void emptyUploadAbortsTheUpload() {
+        assertUploadFails(new byte[0], 400);
+        
+        verify(ossClient, never()).uploadPart(any());
+        verify(ossClient).abortMultipartUpload(any());
+    }
+    
+    @Test
+    void nonImageIsRejectedBeforeTakingABuffer() {
+        assertThatThrownBy(() -> ossService.uploadStream(new ByteArrayInputStream(content(10)), "text/plain", null))
+            .isInstanceOf(BusinessException.class);
+        
+        verify(ossClient, never()).initiateMultipartUpload(any());
+    }
+    
+    private void assertUploadFails(byte[] content, int code) {
+        assertUploadFails(new ByteArrayInputStream(content), code);
+    }
+    
+    private void assertUploadFails(InputStream inputStream, int code) {
+        assertThatThrownBy(() -> ossService.uploadStream(inputStream, "image/png", null))
+            .isInstanceOf(BusinessException.class)
+            .extracting(e -> ((BusinessException) e).getCode())
+            .isEqualTo(code);
+        assertThat(ossObjectRepository.count()).isZero();
+    }
+    
+    private long pendingMultipartUploads() throws IOException {
+        try (Stream<Path> uploads = Files.list(ossRoot.resolve(".multipart"))) {
+            return uploads.count();
+        }
+    }
+    
+    private static ArgumentMatcher<UploadPartRequest> part(int partNumber) {
+        return request -> request != null && request.getPartNumber() == partNumber;
+    }
+    
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return content;
+    }
+    
+    private static String objectName(String url) {
+        return url.substring(URL_PREFIX.length());
+    }
+}
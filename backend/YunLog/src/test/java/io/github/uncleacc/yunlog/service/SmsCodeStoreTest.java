@@ -0,0 +1,163 @@
+package io.github.uncleacc.yunlog.service;
+
+import io.github.uncleacc.yunlog.service.SmsCodeStore.IssueResult;
+import io.github.uncleacc.yunlog.service.SmsCodeStore.IssueStatus;
+import io.github.uncleacc.yunlog.service.SmsCodeStore.VerifyResult;
+import io.github.uncleacc.yunlog.support.EmbeddedRedisSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 短信验证码签发和校验脚本：冷却期、IP令牌桶、错误次数上限和一次性使用
+ */
+class SmsCodeStoreTest extends EmbeddedRedisSupport {
+    
+    private static final String PHONE = "13800138000";
+    
+    private static final String IP = "10.0.0.1";
+    
+    private SmsCodeStore store;
+    
+    @BeforeEach
+    void setUp() {
+        store = newStore(Duration.ofSeconds(60), 3);
+    }
+    
+    @Test
+    void issuedCodeCanBeUsedOnlyOnce() {
+        assertThat(store.issue(PHONE, "123456", IP).getStatus()).isEqualTo(IssueStatus.ISSUED);
+        
+        assertThat(store.verify(PHONE, "123456")).isEqualTo(VerifyResult.MATCHED);
+        assertThat(store.verify(PHONE, "123456")).isEqualTo(VerifyResult.MISSING);
+    }
+    
+    @Test
+    void unknownPhoneIsMissing() {
+        assertThat(store.verify(PHONE, "123456")).isEqualTo(VerifyResult.MISSING);
+    }
+    
+    @Test
+    void codeIsDiscardedWhenAttemptsAreExhausted() {
+        store.issue(PHONE, "123456", IP);
+        
+        for (int i = 0; i < 4; i++) {
+            assertThat(store.verify(PHONE, "000000")).isEqualTo(VerifyResult.MISMATCH);
+        }
+        assertThat(store.verify(PHONE, "000000")).isEqualTo(VerifyResult.EXHAUSTED);
+        // 作废后正确的验证码也不能再使用
+        assertThat(store.verify(PHONE, "123456")).isEqualTo(VerifyResult.MISSING);
+    }
+    
+    @Test
+    void correctCodeStillMatchesBeforeAttemptsAreExhausted() {
+        store.issue(PHONE, "123456", IP);
+        
+        for (int i = 0; i < 4; i++) {
+            store.verify(PHONE, "000000");
+        }
+        assertThat(store.verify(PHONE, "123456")).isEqualTo(VerifyResult.MATCHED);
+    }
+    
+    @Test
+    void reissueResetsAttempts() throws InterruptedException {
+        store = newStore(Duration.ofMillis(50), 3);
+        store.issue(PHONE, "111111", IP);
+        for (int i = 0; i < 4; i++) {
+            store.verify(PHONE, "000000");
+        }
+        
+        Thread.sleep(80);
+        assertThat(store.issue(PHONE, "222222", IP).getStatus()).isEqualTo(IssueStatus.ISSUED);
+        
+        // 旧验证码被覆盖，错误次数重新计算
+        assertThat(store.verify(PHONE, "111111")).isEqualTo(VerifyResult.MISMATCH);
+        assertThat(store.verify(PHONE, "222222")).isEqualTo(VerifyResult.MATCHED);
+    }
+    
+    @Test
+    void phoneIsInCooldownAfterIssue() {
+        store.issue(PHONE, "123456", IP);
+        
+        IssueResult result = store.issue(PHONE, "654321", "10.0.0.2");
+        
+        assertThat(result.getStatus()).isEqualTo(IssueStatus.COOLDOWN);
+        assertThat(result.getRetryAfterMillis()).isBetween(1L, 60_000L);
+        // 冷却期内的请求不覆盖已签发的验证码
+        assertThat(store.verify(PHONE, "123456")).isEqualTo(VerifyResult.MATCHED);
+    }
+    
+    @Test
+    void discardClearsCodeAndCooldown() {
+        store.issue(PHONE, "123456", IP);
+        
+        store.discard(PHONE);
+        
+        assertThat(store.verify(PHONE, "123456")).isEqualTo(VerifyResult.MISSING);
+        assertThat(store.issue(PHONE, "654321", IP).getStatus()).isEqualTo(IssueStatus.ISSUED);
+    }
+    
+    @Test
+    void ipBucketLimitsIssuesAcrossPhones() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(store.issue("1380013800" + i, "123456", IP).getStatus()).isEqualTo(IssueStatus.ISSUED);
+        }
+        
+        IssueResult limited = store.issue("13800138009", "123456", IP);
+        
+        assertThat(limited.getStatus()).isEqualTo(IssueStatus.RATE_LIMITED);
+        // 每分钟补充 5 个令牌，下一个令牌约 12 秒后可用
+        assertThat(limited.getRetryAfterMillis()).isBetween(1L, 12_000L);
+        assertThat(store.issue("13800138009", "123456", "10.0.0.2").getStatus()).isEqualTo(IssueStatus.ISSUED);
+    }
+    
+    @Test
+    void concurrentVerificationMatchesOnce() throws Exception {
+        store.issue(PHONE, "123456", IP);
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<VerifyResult>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Callable<VerifyResult> task = () -> {
+                    start.await();
+                    return store.verify(PHONE, "123456");
+                };
+                futures.add(executor.submit(task));
+            }
+            start.countDown();
+            
+            int matched = 0;
+            for (Future<VerifyResult> future : futures) {
+                if (future.get() == VerifyResult.MATCHED) {
+                    matched++;
+                }
+            }
+            assertThat(matched).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private static SmsCodeStore newStore(Duration cooldown, int ipBucketCapacity) {
+        SmsCodeStore store = new SmsCodeStore(redisTemplate);
+        ReflectionTestUtils.setField(store, "codeTtl", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(store, "cooldown", cooldown);
+        ReflectionTestUtils.setField(store, "maxAttempts", 5);
+        ReflectionTestUtils.setField(store, "ipBucketCapacity", ipBucketCapacity);
+        ReflectionTestUtils.setField(store, "ipRefillPerMinute", 5.0);
+        return store;
+    }
+}
@@ -0,0 +1,189 @@
+package io.github.uncleacc.yunlog.service;
+
+import io.github.uncleacc.yunlog.dto.auth.AuthResponse;
+import io.github.uncleacc.yunlog.exception.BusinessException;
+import io.github.uncleacc.yunlog.support.EmbeddedRedisSupport;
+import io.github.uncleacc.yunlog.util.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 令牌签发、刷新轮换和按版本号吊销
+ */
+class TokenServiceTest extends EmbeddedRedisSupport {
+    
+    private static final Long USER_ID = 10001L;
+    
+    private JwtUtil jwtUtil;
+    
+    private TokenService tokenService;
+    
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "test-secret-key-must-be-at-least-256-bits-long!!");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3600L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaxSize", 1000L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheTtl", Duration.ofMinutes(10));
+        jwtUtil.init();
+        tokenService = newTokenService(Duration.ofSeconds(5));
+    }
+    
+    @Test
+    void issuedAccessTokenAuthenticates() {
+        AuthResponse response = tokenService.issue(USER_ID, "user_0001");
+        
+        assertThat(tokenService.authenticate(response.getToken())).isEqualTo(USER_ID);
+        assertThat(response.getRefreshToken()).startsWith(USER_ID + ".");
+        assertThat(response.getExpiresIn()).isEqualTo(3600L);
+    }
+    
+    @Test
+    void refreshRotatesAndOldRefreshTokenCannotBeReused() {
+        AuthResponse issued = tokenService.issue(USER_ID, "user_0001");
+        
+        AuthResponse refreshed = tokenService.refresh(issued.getRefreshToken());
+        
+        assertThat(refreshed.getRefreshToken()).isNotEqualTo(issued.getRefreshToken());
+        assertThat(tokenService.authenticate(refreshed.getToken())).isEqualTo(USER_ID);
+        assertThat(jwtUtil.getUsernameFromToken(refreshed.getToken())).isEqualTo("user_0001");
+        assertUnauthorized(issued.getRefreshToken());
+        // 新的刷新token仍然可用
+        assertThat(tokenService.refresh(refreshed.getRefreshToken()).getToken()).isNotBlank();
+    }
+    
+    @Test
+    void concurrentRefreshWithSameTokenSucceedsOnce() throws Exception {
+        String refreshToken = tokenService.issue(USER_ID, "user_0001").getRefreshToken();
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<AuthResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return tokenService.refresh(refreshToken);
+                }));
+            }
+            start.countDown();
+            
+            int succeeded = 0;
+            for (Future<AuthResponse> future : futures) {
+                try {
+                    future.get();
+                    succeeded++;
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOf(BusinessException.class);
+                }
+            }
+            assertThat(succeeded).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    void revokeAllInvalidatesAccessAndRefreshTokens() {
+        AuthResponse first = tokenService.issue(USER_ID, "user_0001");
+        AuthResponse second = tokenService.issue(USER_ID, "user_0001");
+        
+        tokenService.revokeAll(USER_ID);
+        
+        assertThat(tokenService.authenticate(first.getToken())).isNull();
+        assertThat(tokenService.authenticate(second.getToken())).isNull();
+        assertUnauthorized(first.getRefreshToken());
+        assertUnauthorized(second.getRefreshToken());
+    }
+    
+    @Test
+    void tokensIssuedAfterRevocationAreValid() {
+        tokenService.issue(USER_ID, "user_0001");
+        tokenService.revokeAll(USER_ID);
+        
+        AuthResponse fresh = tokenService.issue(USER_ID, "user_0001");
+        
+        assertThat(tokenService.authenticate(fresh.getToken())).isEqualTo(USER_ID);
+        assertThat(tokenService.refresh(fresh.getRefreshToken()).getToken()).isNotBlank();
+    }
+    
+    @Test
+    void revocationDoesNotAffectOtherUsers() {
+        AuthResponse other = tokenService.issue(20002L, "user_0002");
+        
+        tokenService.revokeAll(USER_ID);
+        
+        assertThat(tokenService.authenticate(other.getToken())).isEqualTo(20002L);
+    }
+    
+    @Test
+    void otherInstanceSeesRevocationAfterLocalCacheExpires() throws InterruptedException {
+        TokenService otherInstance = newTokenService(Duration.ofMillis(100));
+        AuthResponse response = tokenService.issue(USER_ID, "user_0001");
+        // 其他实例已缓存版本号 0
+        assertThat(otherInstance.authenticate(response.getToken())).isEqualTo(USER_ID);
+        
+        tokenService.revokeAll(USER_ID);
+        Thread.sleep(150);
+        
+        assertThat(otherInstance.authenticate(response.getToken())).isNull();
+    }
+    
+    @Test
+    void verifyRefreshTokenDoesNotRotate() {
+        String refreshToken = tokenService.issue(USER_ID, "user_0001").getRefreshToken();
+        
+        assertThat(tokenService.verifyRefreshToken(refreshToken)).isEqualTo(USER_ID);
+        assertThat(tokenService.verifyRefreshToken(refreshToken)).isEqualTo(USER_ID);
+        assertThat(tokenService.refresh(refreshToken).getToken()).isNotBlank();
+    }
+    
+    @Test
+    void verifyRefreshTokenRejectsUsedAndRevokedTokens() {
+        String used = tokenService.issue(USER_ID, "user_0001").getRefreshToken();
+        String current = tokenService.refresh(used).getRefreshToken();
+        assertThat(tokenService.verifyRefreshToken(used)).isNull();
+        
+        tokenService.revokeAll(USER_ID);
+        
+        assertThat(tokenService.verifyRefreshToken(current)).isNull();
+    }
+    
+    @ParameterizedTest
+    @ValueSource(strings = {"", "abc", "10001.", ".secret", "abc.secret", "10001.unknown-secret"})
+    void malformedOrUnknownRefreshTokenIsRejected(String refreshToken) {
+        assertUnauthorized(refreshToken);
+        assertThat(tokenService.verifyRefreshToken(refreshToken)).isNull();
+    }
+    
+    private TokenService newTokenService(Duration revocationLocalTtl) {
+        TokenService service = new TokenService(jwtUtil, redisTemplate);
+        ReflectionTestUtils.setField(service, "refreshTtl", Duration.ofDays(30));
+        ReflectionTestUtils.setField(service, "revocationLocalTtl", revocationLocalTtl);
+        ReflectionTestUtils.setField(service, "revocationLocalMaxSize", 1000L);
+        service.init();
+        return service;
+    }
+    
+    private void assertUnauthorized(String refreshToken) {
+        assertThatThrownBy(() -> tokenService.refresh(refreshToken))
+            .isInstanceOf(BusinessException.class)
+            .extracting(e -> ((BusinessException) e).getCode())
+            .isEqualTo(401);
+    }
+}
@@ -0,0 +1,265 @@
+package io.github.uncleacc.yunlog.service;
+
+import io.github.uncleacc.yunlog.entity.User;
+import io.github.uncleacc.yunlog.exception.BusinessException;
+import io.github.uncleacc.yunlog.repository.UserRepository;
+import io.github.uncleacc.yunlog.support.EmbeddedRedisSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 登录身份解析：并发首次登录只创建一个用户和一个默认分类、用户名冲突时更换用户名、
+ * 缓存只保存用户ID、禁用用户立即生效
+ * MySQL 不可用，用内存表模拟 INSERT ... ON DUPLICATE KEY UPDATE 的唯一键行锁（持有到事务结束）
+ */
+class UserIdentityServiceTest extends EmbeddedRedisSupport {
+    
+    private static final String PHONE = "13800138000";
+    
+    private FakeUserTable users;
+    
+    private Set<Long> usersWithCategory;
+    
+    private AtomicInteger defaultCategoriesCreated;
+    
+    private UserIdentityService service;
+    
+    @BeforeEach
+    void setUp() {
+        users = new FakeUserTable();
+        usersWithCategory = ConcurrentHashMap.newKeySet();
+        defaultCategoriesCreated = new AtomicInteger();
+        
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByPhone(anyString())).thenAnswer(inv -> users.findByPhone(inv.getArgument(0)));
+        when(userRepository.findById(anyLong())).thenAnswer(inv -> users.findById(inv.getArgument(0)));
+        doAnswer(inv -> {
+            users.insertByPhone(inv.getArgument(0), inv.getArgument(1));
+            return null;
+        }).when(userRepository).insertByPhone(anyString(), anyString(), any(LocalDateTime.class));
+        
+        CategoryService categoryService = mock(CategoryService.class);
+        when(categoryService.createDefaultCategoryIfAbsent(anyLong())).thenAnswer(inv -> {
+            if (usersWithCategory.add(inv.getArgument(0))) {
+                defaultCategoriesCreated.incrementAndGet();
+                return true;
+            }
+            return false;
+        });
+        
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> {
+            TransactionCallback<?> callback = inv.getArgument(0);
+            try {
+                return callback.doInTransaction(null);
+            } finally {
+                users.commit();
+            }
+        });
+        
+        service = new UserIdentityService(userRepository, categoryService, transactionTemplate, redisTemplate);
+        ReflectionTestUtils.setField(service, "ttl", Duration.ofHours(1));
+    }
+    
+    @Test
+    void concurrentFirstLoginsCreateOneUser() throws Exception {
+        int threads = 100;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<User>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return service.resolveByPhone(PHONE);
+                }));
+            }
+            start.countDown();
+            
+            Set<Long> ids = ConcurrentHashMap.newKeySet();
+            for (Future<User> future : futures) {
+                ids.add(future.get().getId());
+            }
+            assertThat(ids).hasSize(1);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(users.size()).isEqualTo(1);
+        assertThat(defaultCategoriesCreated).hasValue(1);
+    }
+    
+    @Test
+    void existingUserIsReturnedWithoutInsert() {
+        User existing = users.seed("user_8000", PHONE);
+        
+        assertThat(service.resolveByPhone(PHONE).getId()).isEqualTo(existing.getId());
+        assertThat(users.insertAttempts()).isZero();
+        assertThat(defaultCategoriesCreated).hasValue(0);
+    }
+    
+    @Test
+    void usernameCollisionRetriesWithSuffix() {
+        // 另一个手机号后4位相同的用户已占用默认用户名
+        users.seed("user_8000", "13900138000");
+        
+        User created = service.resolveByPhone(PHONE);
+        
+        assertThat(created.getPhone()).isEqualTo(PHONE);
+        assertThat(created.getUsername()).startsWith("user_8000_");
+        assertThat(users.size()).isEqualTo(2);
+        assertThat(defaultCategoriesCreated).hasValue(1);
+    }
+    
+    @Test
+    void cacheStoresOnlyUserId() {
+        User user = service.resolveByPhone(PHONE);
+        
+        assertThat(redisTemplate.opsForValue().get("user:identity:phone:" + PHONE))
+            .isEqualTo(String.valueOf(user.getId()));
+    }
+    
+    @Test
+    void disabledUserIsRejectedEvenWhenCached() {
+        User user = service.resolveByPhone(PHONE);
+        
+        users.findById(user.getId()).get().setStatus(0);
+        
+        assertThatThrownBy(() -> service.resolveByPhone(PHONE))
+            .isInstanceOf(BusinessException.class)
+            .extracting(e -> ((BusinessException) e).getCode())
+            .isEqualTo(403);
+    }
+    
+    @Test
+    void unreadableCacheFallsBackToDatabase() {
+        User existing = users.seed("user_8000", PHONE);
+        // 旧版本缓存的是整个用户JSON
+        redisTemplate.opsForValue().set("user:identity:phone:" + PHONE, "{\"id\":1,\"username\":\"user_8000\"}");
+        
+        assertThat(service.resolveByPhone(PHONE).getId()).isEqualTo(existing.getId());
+        assertThat(redisTemplate.opsForValue().get("user:identity:phone:" + PHONE))
+            .isEqualTo(String.valueOf(existing.getId()));
+    }
+    
+    @Test
+    void cachedIdOfMissingUserFallsBackToDatabase() {
+        User existing = users.seed("user_8000", PHONE);
+        redisTemplate.opsForValue().set("user:identity:phone:" + PHONE, "999999");
+        
+        assertThat(service.resolveByPhone(PHONE).getId()).isEqualTo(existing.getId());
+    }
+    
+    /**
+     * 内存中的 user 表：phone 和 username 唯一
+     * 插入时先对手机号加锁并持有到事务提交，模拟 InnoDB 在唯一索引上的行锁；未提交的行只对本线程可见
+     */
+    static class FakeUserTable {
+        
+        private final AtomicLong ids = new AtomicLong(1000);
+        
+        private final AtomicInteger insertAttempts = new AtomicInteger();
+        
+        private final Map<Long, User> committed = new ConcurrentHashMap<>();
+        
+        private final Map<String, ReentrantLock> phoneLocks = new ConcurrentHashMap<>();
+        
+        private final Object uniqueCheck = new Object();
+        
+        private final ThreadLocal<List<ReentrantLock>> heldLocks = ThreadLocal.withInitial(ArrayList::new);
+        
+        private final ThreadLocal<Map<Long, User>> pending = ThreadLocal.withInitial(HashMap::new);
+        
+        User seed(String username, String phone) {
+            User user = newUser(username, phone);
+            committed.put(user.getId(), user);
+            return user;
+        }
+        
+        void insertByPhone(String username, String phone) {
+            insertAttempts.incrementAndGet();
+            ReentrantLock lock = phoneLocks.computeIfAbsent(phone, key -> new ReentrantLock());
+            if (!lock.isHeldByCurrentThread()) {
+                lock.lock();
+                heldLocks.get().add(lock);
+            }
+            synchronized (uniqueCheck) {
+                boolean duplicate = visible().stream()
+                    .anyMatch(user -> phone.equals(user.getPhone()) || username.equals(user.getUsername()));
+                if (!duplicate) {
+                    User user = newUser(username, phone);
+                    pending.get().put(user.getId(), user);
+                }
+            }
+        }
+        
+        Optional<User> findByPhone(String phone) {
+            return visible().stream().filter(user -> phone.equals(user.getPhone())).findFirst();
+        }
+        
+        Optional<User> findById(Long id) {
+            User user = pending.get().get(id);
+            return Optional.ofNullable(user != null ? user : committed.get(id));
+        }
+        
+        void commit() {
+            synchronized (uniqueCheck) {
+                committed.putAll(pending.get());
+            }
+            pending.get().clear();
+            heldLocks.get().forEach(ReentrantLock::unlock);
+            heldLocks.get().clear();
+        }
+        
+        int size() {
+            return committed.size();
+        }
+        
+        int insertAttempts() {
+            return insertAttempts.get();
+        }
+        
+        private List<User> visible() {
+            List<User> visible = new ArrayList<>(committed.values());
+            visible.addAll(pending.get().values());
+            return visible;
+        }
+        
+        private User newUser(String username, String phone) {
+            User user = new User();
+            user.setId(ids.incrementAndGet());
+            user.setUsername(username);
+            user.setPhone(phone);
+            user.setStatus(1);
+            return user;
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package io.github.uncleacc.yunlog.service.impl;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.github.uncleacc.yunlog.config.WechatClientConfig;
+import io.github.uncleacc.yunlog.config.WechatProperties;
+import io.github.uncleacc.yunlog.exception.BusinessException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * jscode2session 调用的重试分类、超时和熔断：只重试请求发出前的失败、5xx 和系统繁忙
+ * 通过 WechatClientConfig 创建的真实 HttpClient 调用本机 HTTP 桩，连接、读取和连接池获取超时都实际发生
+ */
+class WechatServiceImplTest {
+    
+    private static final String OK = "{\"openid\":\"openid-1\",\"session_key\":\"key\"}";
+    
+    private static final String BUSY = "{\"errcode\":-1,\"errmsg\":\"system busy\"}";
+    
+    private static final Duration CONNECT_TIMEOUT = Duration.ofMillis(300);
+    
+    private static final Duration READ_TIMEOUT = Duration.ofMillis(800);
+    
+    private static final Duration POOL_ACQUIRE_TIMEOUT = Duration.ofMillis(100);
+    
+    private WechatStub stub;
+    
+    private WechatProperties properties;
+    
+    private CloseableHttpClient httpClient;
+    
+    private MeterRegistry meterRegistry;
+    
+    private WechatServiceImpl wechatService;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        stub = new WechatStub();
+        properties = new WechatProperties();
+        properties.setAppid("wx-test-appid");
+        properties.setSecret("secret");
+        properties.getClient().setConnectTimeout(CONNECT_TIMEOUT);
+        properties.getClient().setReadTimeout(READ_TIMEOUT);
+        properties.getClient().setPoolAcquireTimeout(POOL_ACQUIRE_TIMEOUT);
+        properties.getClient().setMaxRetries(1);
+        properties.getClient().setRetryBackoff(Duration.ZERO);
+        properties.getCircuitBreaker().setFailureThreshold(2);
+        properties.getCircuitBreaker().setOpenDuration(Duration.ofMinutes(1));
+        useApi(stub.url());
+    }
+    
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+        stub.stop();
+    }
+    
+    @Test
+    void connectFailureIsRetried() throws Exception {
+        // 第一次连接被拒绝，重试前桩服务启动
+        int port = freePort();
+        properties.getClient().setRetryBackoff(Duration.ofMillis(500));
+        useApi("http://127.0.0.1:" + port);
+        CompletableFuture<WechatStub> lateStub = CompletableFuture.supplyAsync(() -> {
+            sleep(150);
+            return WechatStub.startOn(port);
+        });
+        
+        try {
+            assertThat(wechatService.getOpenidByCode("code")).isEqualTo("openid-1");
+            assertThat(lateStub.get().requests()).isEqualTo(1);
+            assertThat(retries()).isEqualTo(1.0);
+        } finally {
+            lateStub.get().stop();
+        }
+    }
+    
+    @Test
+    void connectTimeoutIsRetried() throws IOException {
+        // 不接受连接且积压队列已满的端口，新连接的握手得不到响应
+        try (ServerSocket blackhole = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            List<Socket> backlog = fillBacklog(blackhole.getLocalPort());
+            useApi("http://127.0.0.1:" + blackhole.getLocalPort());
+            try {
+                long start = System.nanoTime();
+                assertUnavailable();
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                
+                assertThat(retries()).isEqualTo(1.0);
+                assertThat(elapsedMillis).isBetween(2 * CONNECT_TIMEOUT.toMillis(), 2 * CONNECT_TIMEOUT.toMillis() + 1500);
+            } finally {
+                for (Socket socket : backlog) {
+                    socket.close();
+                }
+            }
+        }
+    }
+    
+    @Test
+    void poolAcquireTimeoutIsRetried() throws Exception {
+        properties.getClient().setMaxTotal(1);
+        properties.getClient().setMaxPerRoute(1);
+        properties.getClient().setReadTimeout(Duration.ofSeconds(5));
+        useApi(stub.url());
+        // 唯一的连接被一个慢请求占用
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch received = new CountDownLatch(1);
+        stub.enqueue(exchange -> {
+            received.countDown();
+            await(release);
+            respond(exchange, 200, OK);
+        });
+        CompletableFuture<String> slow = CompletableFuture.supplyAsync(() -> wechatService.getOpenidByCode("slow"));
+        assertThat(received.await(5, TimeUnit.SECONDS)).isTrue();
+        
+        try {
+            assertUnavailable();
+            
+            assertThat(retries()).isEqualTo(1.0);
+            assertThat(stub.requests()).isEqualTo(1);
+        } finally {
+            release.countDown();
+        }
+        assertThat(slow.get(5, TimeUnit.SECONDS)).isEqualTo("openid-1");
+    }
+    
+    @Test
+    void serverErrorIsRetried() {
+        stub.enqueue(exchange -> respond(exchange, 502, "Bad Gateway"));
+        
+        assertThat(wechatService.getOpenidByCode("code")).isEqualTo("openid-1");
+        assertThat(stub.requests()).isEqualTo(2);
+        assertThat(retries()).isEqualTo(1.0);
+    }
+    
+    @Test
+    void systemBusyIsRetried() {
+        stub.enqueue(exchange -> respond(exchange, 200, BUSY));
+        
+        assertThat(wechatService.getOpenidByCode("code")).isEqualTo("openid-1");
+        assertThat(stub.requests()).isEqualTo(2);
+    }
+    
+    @Test
+    void noHttpResponseIsNotRetried() {
+        // 请求可能已经到达微信，code 只能使用一次
+        stub.enqueue(exchange -> {
+            throw new IOException("close without response");
+        });
+        
+        assertUnavailable();
+        assertThat(stub.requests()).isEqualTo(1);
+    }
+    
+    @Test
+    void readTimeoutIsNotRetried() {
+        stub.enqueue(exchange -> {
+            sleep(READ_TIMEOUT.toMillis() + 2000);
+            respond(exchange, 200, OK);
+        });
+        
+        long start = System.nanoTime();
+        assertUnavailable();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        
+        assertThat(stub.requests()).isEqualTo(1);
+        assertThat(retries()).isZero();
+        assertThat(elapsedMillis).isBetween(READ_TIMEOUT.toMillis(), READ_TIMEOUT.toMillis() + 1500);
+    }
+    
+    @Test
+    void retriesAreBounded() throws IOException {
+        useApi("http://127.0.0.1:" + freePort());
+        
+        assertUnavailable();
+        
+        assertThat(retries()).isEqualTo(1.0);
+    }
+    
+    @Test
+    void requestCarriesAppidAndCode() {
+        assertThat(wechatService.getOpenidByCode("code-123")).isEqualTo("openid-1");
+        
+        assertThat(stub.lastQuery()).contains("appid=wx-test-appid", "js_code=code-123", "grant_type=authorization_code");
+    }
+    
+    @Test
+    void businessErrorDoesNotOpenCircuit() {
+        for (int i = 0; i < 3; i++) {
+            stub.enqueue(exchange -> respond(exchange, 200, "{\"errcode\":40029,\"errmsg\":\"invalid code\"}"));
+        }
+        
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> wechatService.getOpenidByCode("code"))
+                .isInstanceOf(BusinessException.class)
+                .extracting(e -> ((BusinessException) e).getCode())
+                .isEqualTo(500);
+        }
+        assertThat(stub.requests()).isEqualTo(3);
+    }
+    
+    @Test
+    void circuitOpensAfterConsecutiveFailures() {
+        for (int i = 0; i < 2; i++) {
+            stub.enqueue(exchange -> respond(exchange, 503, "Service Unavailable"));
+            stub.enqueue(exchange -> respond(exchange, 503, "Service Unavailable"));
+        }
+        assertUnavailable();
+        assertUnavailable();
+        
+        assertUnavailable();
+        
+        // 熔断后不再调用微信
+        assertThat(stub.requests()).isEqualTo(4);
+        assertThat(meterRegistry.counter("wechat.jscode2session.rejected", "reason", "circuit_open").count())
+            .isEqualTo(1.0);
+    }
+    
+    /**
+     * 用 WechatClientConfig 创建真实的 HttpClient 和 RestTemplate，指向给定地址
+     */
+    private void useApi(String apiUrl) {
+        if (httpClient != null) {
+            try {
+                httpClient.close();
+            } catch (IOException ignored) {
+                // 测试中替换客户端，关闭失败不影响结果
+            }
+        }
+        properties.setApiUrl(apiUrl);
+        WechatClientConfig config = new WechatClientConfig(properties);
+        httpClient = config.wechatHttpClient();
+        meterRegistry = new SimpleMeterRegistry();
+        wechatService = new WechatServiceImpl(properties, config.wechatRestTemplate(httpClient), meterRegistry);
+    }
+    
+    private double retries() {
+        return meterRegistry.counter("wechat.jscode2session.retries").count();
+    }
+    
+    private void assertUnavailable() {
+        assertThatThrownBy(() -> wechatService.getOpenidByCode("code"))
+            .isInstanceOf(BusinessException.class)
+            .extracting(e -> ((BusinessException) e).getCode())
+            .isEqualTo(503);
+    }
+    
+    /**
+     * 占满监听端口的积压队列，之后的连接握手不会被响应
+     */
+    private static List<Socket> fillBacklog(int port) {
+        List<Socket> sockets = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Socket socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 200);
+                sockets.add(socket);
+            } catch (IOException e) {
+                closeQuietly(socket);
+                break;
+            }
+        }
+        return sockets;
+    }
+    
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // 未连接成功的套接字
+        }
+    }
+    
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+    
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * 本机 jscode2session 桩：按顺序使用排队的响应，队列为空时返回登录成功
+     */
+    static class WechatStub {
+        
+        private final HttpServer server;
+        
+        private final ExecutorService executor = Executors.newCachedThreadPool();
+        
+        private final BlockingQueue<HttpHandler> responses = new LinkedBlockingQueue<>();
+        
+        private final AtomicInteger requests = new AtomicInteger();
+        
+        private volatile String lastQuery;
+        
+        WechatStub() throws IOException {
+            this(0);
+        }
+        
+        private WechatStub(int port) throws IOException {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            server.createContext("/sns/jscode2session", exchange -> {
+                requests.incrementAndGet();
+                lastQuery = exchange.getRequestURI().getQuery();
+                HttpHandler handler = responses.poll();
+                try {
+                    if (handler != null) {
+                        handler.handle(exchange);
+                    } else {
+                        respond(exchange, 200, OK);
+                    }
+                } finally {
+                    exchange.close();
+                }
+            });
+            server.setExecutor(executor);
+            server.start();
+        }
+        
+        static WechatStub startOn(int port) {
+            try {
+                return new WechatStub(port);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        
+        String url() {
+            return "http://127.0.0.1:" + server.getAddress().getPort();
+        }
+        
+        void enqueue(HttpHandler handler) {
+            responses.add(handler);
+        }
+        
+        int requests() {
+            return requests.get();
+        }
+        
+        String lastQuery() {
+            return lastQuery;
+        }
+        
+        void stop() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package io.github.uncleacc.yunlog.support;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+/**
+ * 使用内嵌 Redis 的测试基类，Lua 脚本在真实的 Redis 中执行
+ * 每个测试类启动一个实例，每个测试前清空数据
+ */
+public abstract class EmbeddedRedisSupport {
+    
+    private static RedisServer redisServer;
+    
+    private static LettuceConnectionFactory connectionFactory;
+    
+    protected static StringRedisTemplate redisTemplate;
+    
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port = freePort();
+        redisServer = RedisServer.builder()
+            .port(port)
+            .setting("bind 127.0.0.1")
+            .setting("maxmemory 64mb")
+            .build();
+        redisServer.start();
+        
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", port));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+    
+    @AfterAll
+    static void stopRedis() {
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+    
+    @BeforeEach
+    void flushRedis() {
+        redisTemplate.execute(connection -> {
+            connection.flushAll();
+            return null;
+        }, true);
+    }
+    
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package io.github.uncleacc.yunlog.support;
+
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.model.AbortMultipartUploadRequest;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
+import com.aliyun.oss.model.CompleteMultipartUploadResult;
+import com.aliyun.oss.model.DeleteObjectsRequest;
+import com.aliyun.oss.model.DeleteObjectsResult;
+import com.aliyun.oss.model.InitiateMultipartUploadRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadResult;
+import com.aliyun.oss.model.OSSObject;
+import com.aliyun.oss.model.PartETag;
+import com.aliyun.oss.model.PutObjectRequest;
+import com.aliyun.oss.model.PutObjectResult;
+import com.aliyun.oss.model.UploadPartRequest;
+import com.aliyun.oss.model.UploadPartResult;
+import com.aliyun.oss.model.VoidResult;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * 基于本地文件系统的 OSS 替身
+ * 只实现项目用到的方法（上传、分片上传、下载、删除、Bucket 检查），其余方法抛出 UnsupportedOperationException
+ * 单元测试和压测（loadtest profile）共用
+ */
+@Slf4j
+public class LocalFileOss implements InvocationHandler {
+    
+    private final Path root;
+    
+    private final Path uploads;
+    
+    private LocalFileOss(Path root) throws IOException {
+        this.root = Files.createDirectories(root);
+        this.uploads = Files.createDirectories(root.resolve(".multipart"));
+    }
+    
+    /**
+     * 创建以 root 为存储目录的 OSS 客户端
+     */
+    public static OSS create(Path root) {
+        try {
+            return (OSS) Proxy.newProxyInstance(OSS.class.getClassLoader(),
+                new Class<?>[]{OSS.class}, new LocalFileOss(root));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "doesBucketExist":
+                return true;
+            case "createBucket":
+            case "shutdown":
+                return null;
+            case "putObject":
+                if (args.length == 1 && args[0] instanceof PutObjectRequest) {
+                    PutObjectRequest request = (PutObjectRequest) args[0];
+                    return putObject(request.getKey(), request.getInputStream());
+                }
+                if (args.length == 4 && args[2] instanceof InputStream) {
+                    return putObject((String) args[1], (InputStream) args[2]);
+                }
+                break;
+            case "getObject":
+                if (args.length == 2 && args[1] instanceof String) {
+                    return getObject((String) args[0], (String) args[1]);
+                }
+                break;
+            case "deleteObject":
+                if (args.length == 2 && args[1] instanceof String) {
+                    Files.deleteIfExists(resolve((String) args[1]));
+                    return new VoidResult();
+                }
+                break;
+            case "deleteObjects":
+                return deleteObjects((DeleteObjectsRequest) args[0]);
+            case "initiateMultipartUpload":
+                return initiateMultipartUpload((InitiateMultipartUploadRequest) args[0]);
+            case "uploadPart":
+                return uploadPart((UploadPartRequest) args[0]);
+            case "completeMultipartUpload":
+                return completeMultipartUpload((CompleteMultipartUploadRequest) args[0]);
+            case "abortMultipartUpload":
+                deleteRecursively(uploads.resolve(((AbortMultipartUploadRequest) args[0]).getUploadId()));
+                return new VoidResult();
+            case "toString":
+                return "LocalFileOss[" + root + "]";
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            default:
+                break;
+        }
+        throw new UnsupportedOperationException("LocalFileOss 不支持: " + method);
+    }
+    
+    private PutObjectResult putObject(String key, InputStream inputStream) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        try (InputStream in = inputStream) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return new PutObjectResult();
+    }
+    
+    private OSSObject getObject(String bucketName, String key) throws IOException {
+        OSSObject object = new OSSObject();
+        object.setBucketName(bucketName);
+        object.setKey(key);
+        object.setObjectContent(Files.newInputStream(resolve(key)));
+        return object;
+    }
+    
+    private DeleteObjectsResult deleteObjects(DeleteObjectsRequest request) throws IOException {
+        for (String key : request.getKeys()) {
+            Files.deleteIfExists(resolve(key));
+        }
+        // 与 OSS 一致：非 quiet 模式返回已删除的 key（对象不存在也算删除成功）
+        return request.isQuiet() ? new DeleteObjectsResult() : new DeleteObjectsResult(request.getKeys());
+    }
+    
+    private InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request) throws IOException {
+        String uploadId = UUID.randomUUID().toString();
+        Files.createDirectories(uploads.resolve(uploadId));
+        
+        InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+        result.setBucketName(request.getBucketName());
+        result.setKey(request.getKey());
+        result.setUploadId(uploadId);
+        return result;
+    }
+    
+    private UploadPartResult uploadPart(UploadPartRequest request) throws IOException {
+        Path part = uploads.resolve(request.getUploadId()).resolve(String.valueOf(request.getPartNumber()));
+        try (InputStream in = request.getInputStream()) {
+            Files.copy(in, part, StandardCopyOption.REPLACE_EXISTING);
+        }
+        
+        UploadPartResult result = new UploadPartResult();
+        result.setPartNumber(request.getPartNumber());
+        result.setPartSize(request.getPartSize());
+        result.setETag(request.getUploadId() + "-" + request.getPartNumber());
+        return result;
+    }
+    
+    private CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request) throws IOException {
+        Path dir = uploads.resolve(request.getUploadId());
+        Path target = resolve(request.getKey());
+        Files.createDirectories(target.getParent());
+        
+        List<PartETag> parts = request.getPartETags();
+        parts.sort(Comparator.comparingInt(PartETag::getPartNumber));
+        try (OutputStream out = Files.newOutputStream(target)) {
+            for (PartETag part : parts) {
+                Files.copy(dir.resolve(String.valueOf(part.getPartNumber())), out);
+            }
+        }
+        deleteRecursively(dir);
+        
+        CompleteMultipartUploadResult result = new CompleteMultipartUploadResult();
+        result.setBucketName(request.getBucketName());
+        result.setKey(request.getKey());
+        return result;
+    }
+    
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("非法对象名: " + key);
+        }
+        return path;
+    }
+    
+    private void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    log.warn("删除临时文件失败: {}", path);
+                }
+            });
+        }
+    }
+}
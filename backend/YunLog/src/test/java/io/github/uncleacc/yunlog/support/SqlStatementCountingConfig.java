@@ -0,0 +1,26 @@
+package io.github.uncleacc.yunlog.support;
+
+import io.github.uncleacc.yunlog.metrics.SqlStatementCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * 在 JPA 切片测试中注册 SQL 语句计数器（与 MetricsConfig 相同的 StatementInspector），
+ * 测试用 begin/end 统计一次调用实际执行的语句数
+ */
+@TestConfiguration
+public class SqlStatementCountingConfig {
+    
+    @Bean
+    public SqlStatementCounter sqlStatementCounter() {
+        return new SqlStatementCounter(new SimpleMeterRegistry());
+    }
+    
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounterCustomizer(SqlStatementCounter sqlStatementCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlStatementCounter);
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.uncleacc.yunlog.util;
+
+import io.github.uncleacc.yunlog.util.CircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 熔断器状态转换：CLOSED -> OPEN -> HALF_OPEN -> CLOSED / OPEN
+ */
+class CircuitBreakerTest {
+    
+    private static final Duration OPEN_DURATION = Duration.ofMillis(100);
+    
+    private final CircuitBreaker breaker = new CircuitBreaker(3, OPEN_DURATION);
+    
+    @Test
+    void staysClosedBelowThreshold() {
+        fail(2);
+        
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+    
+    @Test
+    void successResetsConsecutiveFailures() {
+        fail(2);
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onSuccess();
+        fail(2);
+        
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+    
+    @Test
+    void opensAtThresholdAndRejectsCalls() {
+        fail(3);
+        
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+    
+    @Test
+    void halfOpenAllowsSingleProbe() throws InterruptedException {
+        fail(3);
+        Thread.sleep(OPEN_DURATION.toMillis() + 20);
+        
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+    
+    @Test
+    void successfulProbeCloses() throws InterruptedException {
+        fail(3);
+        Thread.sleep(OPEN_DURATION.toMillis() + 20);
+        assertThat(breaker.tryAcquire()).isTrue();
+        
+        breaker.onSuccess();
+        
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+    
+    @Test
+    void failedProbeReopens() throws InterruptedException {
+        fail(3);
+        Thread.sleep(OPEN_DURATION.toMillis() + 20);
+        assertThat(breaker.tryAcquire()).isTrue();
+        
+        breaker.onFailure();
+        
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+    
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            assertThat(breaker.tryAcquire()).isTrue();
+            breaker.onFailure();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package io.github.uncleacc.yunlog.util;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JWT 签发、验证和验证缓存
+ */
+class JwtUtilTest {
+    
+    private static final String SECRET = "test-secret-key-must-be-at-least-256-bits-long!!";
+    
+    private JwtUtil jwtUtil;
+    
+    @BeforeEach
+    void setUp() {
+        jwtUtil = newJwtUtil(SECRET, 3600L);
+    }
+    
+    @Test
+    void authenticateReturnsUserIdAndEpoch() {
+        String token = jwtUtil.generateToken(10001L, "user_0001", 3L);
+        
+        JwtUtil.VerifiedToken verified = jwtUtil.authenticate(token);
+        
+        assertThat(verified).isNotNull();
+        assertThat(verified.getUserId()).isEqualTo(10001L);
+        assertThat(verified.getEpoch()).isEqualTo(3L);
+        assertThat(jwtUtil.getUsernameFromToken(token)).isEqualTo("user_0001");
+    }
+    
+    @Test
+    void repeatedAuthenticationHitsCache() {
+        String token = jwtUtil.generateToken(10001L, "user_0001", 0L);
+        
+        assertThat(jwtUtil.authenticate(token)).isSameAs(jwtUtil.authenticate(token));
+    }
+    
+    @Test
+    void tamperedTokenIsRejected() {
+        String token = jwtUtil.generateToken(10001L, "user_0001", 0L);
+        // 修改签名的第一个字符，避免末尾字符只影响填充位
+        int signatureStart = token.lastIndexOf('.') + 1;
+        char replaced = token.charAt(signatureStart) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, signatureStart) + replaced + token.substring(signatureStart + 1);
+        
+        assertThat(jwtUtil.authenticate(tampered)).isNull();
+    }
+    
+    @Test
+    void tokenSignedWithAnotherKeyIsRejected() {
+        JwtUtil other = newJwtUtil("another-secret-key-must-be-at-least-256-bits-long", 3600L);
+        
+        assertThat(jwtUtil.authenticate(other.generateToken(10001L, "user_0001", 0L))).isNull();
+    }
+    
+    @Test
+    void malformedTokenIsRejected() {
+        assertThat(jwtUtil.authenticate("not-a-jwt")).isNull();
+        assertThat(jwtUtil.validateToken("")).isFalse();
+    }
+    
+    @Test
+    void expiredTokenIsRejected() {
+        JwtUtil expired = newJwtUtil(SECRET, -60L);
+        
+        assertThat(jwtUtil.authenticate(expired.generateToken(10001L, "user_0001", 0L))).isNull();
+    }
+    
+    @Test
+    void cachedTokenExpiresWithTheToken() throws InterruptedException {
+        JwtUtil shortLived = newJwtUtil(SECRET, 1L);
+        String token = shortLived.generateToken(10001L, "user_0001", 0L);
+        assertThat(shortLived.authenticate(token)).isNotNull();
+        
+        Thread.sleep(1100);
+        
+        assertThat(shortLived.authenticate(token)).isNull();
+    }
+    
+    @Test
+    void tokenWithoutEpochIsTreatedAsEpochZero() {
+        String legacy = Jwts.builder()
+            .setSubject("10001")
+            .claim("username", "user_0001")
+            .setIssuedAt(new Date())
+            .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+            .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+            .compact();
+        
+        JwtUtil.VerifiedToken verified = jwtUtil.authenticate(legacy);
+        
+        assertThat(verified).isNotNull();
+        assertThat(verified.getEpoch()).isZero();
+    }
+    
+    static JwtUtil newJwtUtil(String secret, long expirationSeconds) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", secret);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", expirationSeconds);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaxSize", 1000L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheTtl", Duration.ofMinutes(10));
+        jwtUtil.init();
+        return jwtUtil;
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.uncleacc.yunlog.util;
+
+import io.github.uncleacc.yunlog.util.VerifyCodeGenerator.Strategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 验证码格式、长度校验、取值分布和并发使用
+ */
+class VerifyCodeGeneratorTest {
+    
+    @ParameterizedTest
+    @EnumSource(Strategy.class)
+    void generatesFixedLengthDigits(Strategy strategy) {
+        VerifyCodeGenerator generator = new VerifyCodeGenerator(6, strategy);
+        
+        for (int i = 0; i < 1000; i++) {
+            assertThat(generator.generate()).matches("\\d{6}");
+        }
+    }
+    
+    @ParameterizedTest
+    @ValueSource(ints = {0, 10, -1})
+    void rejectsUnsupportedLength(int length) {
+        assertThatThrownBy(() -> new VerifyCodeGenerator(length, Strategy.SECURE))
+            .isInstanceOf(IllegalStateException.class);
+    }
+    
+    @Test
+    void supportsMaxLength() {
+        assertThat(new VerifyCodeGenerator(9, Strategy.SECURE).generate()).matches("\\d{9}");
+    }
+    
+    @ParameterizedTest
+    @EnumSource(Strategy.class)
+    void valuesAreRoughlyUniformIncludingLeadingZeros(Strategy strategy) {
+        VerifyCodeGenerator generator = new VerifyCodeGenerator(2, strategy);
+        int samples = 100_000;
+        int[] counts = new int[100];
+        for (int i = 0; i < samples; i++) {
+            counts[Integer.parseInt(generator.generate())]++;
+        }
+        
+        // 卡方检验，自由度 99 时 p = 0.0001 的临界值约为 155
+        double expected = samples / 100.0;
+        double chiSquare = 0;
+        for (int count : counts) {
+            chiSquare += (count - expected) * (count - expected) / expected;
+        }
+        assertThat(counts[0]).isPositive();
+        assertThat(chiSquare).isLessThan(155);
+    }
+    
+    @Test
+    void secureGeneratorIsSafeToShareAcrossThreads() throws Exception {
+        VerifyCodeGenerator generator = new VerifyCodeGenerator(6, Strategy.SECURE);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 10_000; j++) {
+                        if (!generator.generate().matches("\\d{6}")) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertThat(future.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
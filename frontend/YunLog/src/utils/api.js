@@ -3,6 +3,7 @@
  * 对应后端 API 文档
  */
 import { get, post, put, del, upload } from './request.js'
+import { getRefreshToken } from './auth.js'
 import { parseDate } from './textUtils.js'
 
 // ==================== 认证管理 API ====================
@@ -33,9 +34,14 @@ export function wechatLogin(data) {
 
 /**
  * 登出
+ * 同时携带刷新token，访问token已过期时也能吊销；失败不弹出登录框
  */
 export function logout() {
-  return post('/api/v1/auth/logout', {}, { loading: false, showError: false })
+  return post('/api/v1/auth/logout', { refreshToken: getRefreshToken() || undefined }, {
+    loading: false,
+    showError: false,
+    authRetry: false
+  })
 }
 
 // ==================== 日记管理 API ====================
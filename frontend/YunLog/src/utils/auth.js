@@ -5,6 +5,7 @@
 import { wechatLogin } from './api.js'
 
 const TOKEN_KEY = 'yunlog_token';
+const REFRESH_TOKEN_KEY = 'yunlog_refresh_token';
 const USER_INFO_KEY = 'yunlog_user_info';
 
 /**
@@ -41,6 +42,50 @@ export function removeToken() {
   }
 }
 
+/**
+ * 保存刷新token（访问token过期后用于换取新token，每次刷新后替换）
+ */
+export function setRefreshToken(refreshToken) {
+  try {
+    uni.setStorageSync(REFRESH_TOKEN_KEY, refreshToken);
+  } catch (e) {
+    console.error('保存刷新token失败', e);
+  }
+}
+
+/**
+ * 获取刷新token
+ */
+export function getRefreshToken() {
+  try {
+    return uni.getStorageSync(REFRESH_TOKEN_KEY);
+  } catch (e) {
+    console.error('获取刷新token失败', e);
+    return null;
+  }
+}
+
+/**
+ * 移除刷新token
+ */
+export function removeRefreshToken() {
+  try {
+    uni.removeStorageSync(REFRESH_TOKEN_KEY);
+  } catch (e) {
+    console.error('移除刷新token失败', e);
+  }
+}
+
+/**
+ * 保存登录/刷新接口返回的token
+ */
+export function saveAuthTokens(res) {
+  setToken(res.token);
+  if (res.refreshToken) {
+    setRefreshToken(res.refreshToken);
+  }
+}
+
 /**
  * 保存用户信息
  */
@@ -89,6 +134,7 @@ export function isLoggedIn() {
  */
 export function logout() {
   removeToken();
+  removeRefreshToken();
   removeUserInfo();
 }
 
@@ -138,7 +184,7 @@ export async function performWechatLogin() {
     const res = await wechatLogin({ code: loginRes.code });
     
     // 保存 token 和用户信息
-    setToken(res.token);
+    saveAuthTokens(res);
     setUserInfo(res.userInfo);
     
     uni.showToast({
@@ -3,7 +3,14 @@
  * 统一处理请求和响应
  */
 
-import { getToken, showWechatLoginModal, performWechatLogin } from './auth.js'
+import {
+  getToken,
+  getRefreshToken,
+  saveAuthTokens,
+  logout as clearAuth,
+  showWechatLoginModal,
+  performWechatLogin
+} from './auth.js'
 
 // 后端 API 基础地址配置
 // 生产环境：使用云服务器地址
@@ -13,6 +20,88 @@ const getBaseURL = () => {
 
 const BASE_URL = getBaseURL()
 
+// 正在进行的刷新请求，同时遇到401的请求共用同一次刷新
+let refreshPromise = null
+
+/**
+ * 使用刷新token换取新的访问token
+ * 刷新token只能使用一次，并发刷新会让其余请求失败，因此同一时间只发起一次
+ * @returns {Promise<Boolean>} 是否刷新成功
+ */
+function refreshAccessToken() {
+  if (refreshPromise) {
+    return refreshPromise
+  }
+  
+  const refreshToken = getRefreshToken()
+  if (!refreshToken) {
+    return Promise.resolve(false)
+  }
+  
+  refreshPromise = new Promise((resolve) => {
+    uni.request({
+      url: BASE_URL + '/api/v1/auth/refresh',
+      method: 'POST',
+      data: { refreshToken },
+      header: { 'Content-Type': 'application/json' },
+      timeout: 15000,
+      success: (res) => {
+        const data = res.data
+        if (res.statusCode === 200 && data && data.code === 200 && data.data) {
+          saveAuthTokens(data.data)
+          resolve(true)
+          return
+        }
+        // 刷新token无效、已使用或已吊销，清除本地登录状态
+        if (res.statusCode === 401 || (data && data.code === 401)) {
+          clearAuth()
+        }
+        resolve(false)
+      },
+      fail: () => {
+        resolve(false)
+      }
+    })
+  }).then((refreshed) => {
+    refreshPromise = null
+    return refreshed
+  })
+  return refreshPromise
+}
+
+/**
+ * 处理401：刷新token后重试一次原请求，刷新失败才显示登录弹窗
+ * @param {Object} options - 原请求配置（authRetry 为 false 时不刷新也不弹窗，如登出）
+ * @param {String} sentToken - 原请求携带的访问token
+ * @param {Function} retry - 重试原请求
+ * @returns {Promise}
+ */
+function handleUnauthorized(options, sentToken, retry) {
+  if (options.authRetry === false) {
+    return Promise.reject(new Error('未授权'))
+  }
+  
+  // 其他请求已经刷新过时直接重试；重试后仍然401时不再刷新
+  const currentToken = getToken()
+  let refreshing
+  if (options._retried) {
+    refreshing = Promise.resolve(false)
+  } else if (currentToken && currentToken !== sentToken) {
+    refreshing = Promise.resolve(true)
+  } else {
+    refreshing = refreshAccessToken()
+  }
+  return refreshing.then((refreshed) => {
+    if (refreshed) {
+      return retry()
+    }
+    
+    // 显示微信登录弹窗
+    showWechatLoginModal(performWechatLogin)
+    throw new Error('未授权')
+  })
+}
+
 /**
  * 发送 HTTP 请求
  * @param {Object} options - 请求配置
@@ -74,15 +163,9 @@ function request(options) {
             reject(new Error(errorMsg))
           }
         } else if (res.statusCode === 401) {
-          // 未授权，显示登录弹窗
-          if (options.loading !== false) {
-            uni.hideLoading()
-          }
-          
-          // 显示微信登录弹窗
-          showWechatLoginModal(performWechatLogin)
-          
-          reject(new Error('未授权'))
+          // 访问token过期，刷新后重试
+          handleUnauthorized(options, token, () => request({ ...options, _retried: true }))
+            .then(resolve, reject)
         } else {
           // HTTP 错误
           // 尝试从响应体中获取错误消息
@@ -230,6 +313,10 @@ export function upload(url, filePath, formData = {}, options = {}) {
             }
             reject(new Error(errorMsg))
           }
+        } else if (res.statusCode === 401) {
+          // 访问token过期，刷新后重试
+          handleUnauthorized(options, token, () => upload(url, filePath, formData, { ...options, _retried: true }))
+            .then(resolve, reject)
         } else {
           const errorMsg = `上传失败(${res.statusCode})`
           if (options.showError !== false) {